@@ -0,0 +1,186 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.batch.chunk.checkpoint;
+
+import java.util.concurrent.TimeUnit;
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.AbstractCheckpointAlgorithm;
+import javax.batch.runtime.context.StepContext;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * A checkpoint algorithm that resizes the chunk at runtime instead of checkpointing every N items.
+ *
+ * After every commit it measures how long the chunk took per item, read to commit, and picks the number of items that
+ * would have taken +targetIntervalMillis+. The new size is averaged with the previous one, so a single slow item does
+ * not collapse the chunk. If the commit itself took more than +commitSpikeFactor+ times the running average commit
+ * time, the chunk size is halved instead, to hold locks for a shorter time while the database is struggling. A chunk
+ * is also checkpointed early when the target interval is already over, whatever its size.
+ *
+ * The size always stays between +minItems+ and +maxItems+. Every adjustment is recorded in a
+ * +CheckpointStatistics+ kept as the step's persistent user data, unless the step already uses it for something else.
+ */
+@Named
+public class AdaptiveCheckpointAlgorithm extends AbstractCheckpointAlgorithm {
+
+    private static final double COMMIT_AVERAGE_WEIGHT = 0.2;
+
+    @Inject
+    @BatchProperty(name = "targetIntervalMillis")
+    String targetIntervalMillisProp;
+
+    @Inject
+    @BatchProperty(name = "initialItems")
+    String initialItemsProp;
+
+    @Inject
+    @BatchProperty(name = "minItems")
+    String minItemsProp;
+
+    @Inject
+    @BatchProperty(name = "maxItems")
+    String maxItemsProp;
+
+    @Inject
+    @BatchProperty(name = "commitSpikeFactor")
+    String commitSpikeFactorProp;
+
+    @Inject
+    StepContext stepContext;
+
+    private boolean configured;
+    private long targetNanos;
+    private int minItems;
+    private int maxItems;
+    private double commitSpikeFactor;
+
+    private int chunkSize;
+    private int items;
+    private long chunkStart;
+    private long readyAt;
+    private boolean ready;
+    private double averageCommitNanos;
+
+    @Override
+    public void beginCheckpoint() throws Exception {
+        configure();
+        items = 0;
+        ready = false;
+        chunkStart = System.nanoTime();
+    }
+
+    @Override
+    public boolean isReadyToCheckpoint() throws Exception {
+        configure();
+        if (chunkStart == 0) {
+            chunkStart = System.nanoTime();
+        }
+
+        items++;
+        long now = System.nanoTime();
+        if (items >= chunkSize || now - chunkStart >= targetNanos) {
+            readyAt = now;
+            ready = true;
+        }
+        return ready;
+    }
+
+    @Override
+    public void endCheckpoint() throws Exception {
+        long now = System.nanoTime();
+        if (!ready) {
+            // The last chunk of the step ended because the reader ran out of items, not because of this algorithm
+            record(items, now - chunkStart, 0, false);
+            return;
+        }
+
+        long processingNanos = readyAt - chunkStart;
+        long commitNanos = now - readyAt;
+        boolean commitSpike = averageCommitNanos > 0 && commitNanos > commitSpikeFactor * averageCommitNanos;
+
+        int next;
+        if (commitSpike) {
+            next = chunkSize / 2;
+        } else {
+            double nanosPerItem = (double) (processingNanos + commitNanos) / items;
+            int fitsTarget = nanosPerItem <= 0 ? maxItems : (int) Math.min(maxItems, targetNanos / nanosPerItem);
+            next = (chunkSize + fitsTarget) / 2;
+        }
+
+        averageCommitNanos = averageCommitNanos == 0
+            ? commitNanos
+            : (1 - COMMIT_AVERAGE_WEIGHT) * averageCommitNanos + COMMIT_AVERAGE_WEIGHT * commitNanos;
+
+        chunkSize = Math.max(minItems, Math.min(maxItems, next));
+        record(items, processingNanos, commitNanos, commitSpike);
+    }
+
+    private void record(int chunkItems, long processingNanos, long commitNanos, boolean commitSpike) {
+        Object userData = stepContext.getPersistentUserData();
+        if (userData != null && !(userData instanceof CheckpointStatistics)) {
+            return;
+        }
+
+        CheckpointStatistics statistics = userData == null ? new CheckpointStatistics() : (CheckpointStatistics) userData;
+        statistics.record(chunkItems, TimeUnit.NANOSECONDS.toMillis(processingNanos),
+            TimeUnit.NANOSECONDS.toMillis(commitNanos), chunkSize, commitSpike);
+        stepContext.setPersistentUserData(statistics);
+
+        System.out.println("endCheckpoint: " + statistics.getLast());
+    }
+
+    private void configure() {
+        if (configured) {
+            return;
+        }
+        targetNanos = TimeUnit.MILLISECONDS.toNanos(parse(targetIntervalMillisProp, 1000));
+        minItems = Math.max(1, parse(minItemsProp, 1));
+        maxItems = Math.max(minItems, parse(maxItemsProp, 1000));
+        chunkSize = Math.max(minItems, Math.min(maxItems, parse(initialItemsProp, 10)));
+        commitSpikeFactor = commitSpikeFactorProp == null || commitSpikeFactorProp.isEmpty()
+            ? 3.0 : Double.parseDouble(commitSpikeFactorProp);
+        configured = true;
+    }
+
+    private static int parse(String value, int defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+}
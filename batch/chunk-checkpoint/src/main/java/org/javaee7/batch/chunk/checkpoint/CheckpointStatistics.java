@@ -0,0 +1,156 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.batch.chunk.checkpoint;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * How the chunk size chosen by +AdaptiveCheckpointAlgorithm+ changed over a run. Only the most recent
+ * +MAX_SAMPLES+ chunks are kept, together with totals for the whole step.
+ */
+public class CheckpointStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int MAX_SAMPLES = 100;
+
+    private final Deque<Sample> samples = new ArrayDeque<>();
+    private long chunks;
+    private long items;
+    private long commitMillis;
+    private long commitSpikes;
+
+    void record(int chunkItems, long processingMillis, long chunkCommitMillis, int nextChunkSize, boolean commitSpike) {
+        if (samples.size() == MAX_SAMPLES) {
+            samples.removeFirst();
+        }
+        samples.addLast(new Sample(chunkItems, processingMillis, chunkCommitMillis, nextChunkSize, commitSpike));
+
+        chunks++;
+        items += chunkItems;
+        commitMillis += chunkCommitMillis;
+        if (commitSpike) {
+            commitSpikes++;
+        }
+    }
+
+    public List<Sample> getSamples() {
+        return new ArrayList<>(samples);
+    }
+
+    public Sample getLast() {
+        return samples.peekLast();
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public long getItems() {
+        return items;
+    }
+
+    public long getAverageCommitMillis() {
+        return chunks == 0 ? 0 : commitMillis / chunks;
+    }
+
+    public long getCommitSpikes() {
+        return commitSpikes;
+    }
+
+    @Override
+    public String toString() {
+        return "CheckpointStatistics: " + items + " items in " + chunks + " chunks, avg commit "
+            + getAverageCommitMillis() + "ms, " + commitSpikes + " commit spikes";
+    }
+
+    /**
+     * A single chunk: how many items it held, how long reading, processing and writing them took, how long the
+     * commit took, and the chunk size picked for the next chunk as a result.
+     */
+    public static class Sample implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int items;
+        private final long processingMillis;
+        private final long commitMillis;
+        private final int nextChunkSize;
+        private final boolean commitSpike;
+
+        Sample(int items, long processingMillis, long commitMillis, int nextChunkSize, boolean commitSpike) {
+            this.items = items;
+            this.processingMillis = processingMillis;
+            this.commitMillis = commitMillis;
+            this.nextChunkSize = nextChunkSize;
+            this.commitSpike = commitSpike;
+        }
+
+        public int getItems() {
+            return items;
+        }
+
+        public long getProcessingMillis() {
+            return processingMillis;
+        }
+
+        public long getCommitMillis() {
+            return commitMillis;
+        }
+
+        public int getNextChunkSize() {
+            return nextChunkSize;
+        }
+
+        public boolean isCommitSpike() {
+            return commitSpike;
+        }
+
+        @Override
+        public String toString() {
+            return items + " items, processed in " + processingMillis + "ms, committed in " + commitMillis
+                + "ms, next chunk " + nextChunkSize + (commitSpike ? " (commit spike)" : "");
+        }
+    }
+}
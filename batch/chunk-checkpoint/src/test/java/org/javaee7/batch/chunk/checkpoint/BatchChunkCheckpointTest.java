@@ -52,6 +52,13 @@ import org.junit.runner.RunWith;
  * Note that the behaviour of this custom checkpoint algorithm could also be achieved by using the +item+ policy and
  * defining the +item-count+ element at the +chunk+ level.
  *
+ * A custom policy can also adapt to the job as it runs. The +myAdaptiveJob.xml+ job uses an algorithm that resizes the
+ * chunk after every commit to hit a target commit interval, and halves it when a commit takes much longer than usual:
+ *
+ * include::myAdaptiveJob.xml[]
+ *
+ * include::AdaptiveCheckpointAlgorithm#endCheckpoint[]
+ *
  * @author Roberto Cortez
  */
 @RunWith(Arquillian.class)
@@ -63,9 +70,10 @@ public class BatchChunkCheckpointTest {
      * [source,file]
      * ----
      * /META-INF/batch-jobs/myJob.xml
+     * /META-INF/batch-jobs/myAdaptiveJob.xml
      * ----
      *
-     * The +myJob.xml+ file is needed for running the batch definition.
+     * The +myJob.xml+ and +myAdaptiveJob.xml+ files are needed for running the batch definitions.
      */
     @Deployment
     public static WebArchive createDeployment() {
@@ -73,7 +81,8 @@ public class BatchChunkCheckpointTest {
             .addClass(BatchTestHelper.class)
             .addPackage("org.javaee7.batch.chunk.checkpoint")
             .addAsWebInfResource(INSTANCE, create("beans.xml"))
-            .addAsResource("META-INF/batch-jobs/myJob.xml");
+            .addAsResource("META-INF/batch-jobs/myJob.xml")
+            .addAsResource("META-INF/batch-jobs/myAdaptiveJob.xml");
         
         System.out.println("\nBatchChunkCheckpointTest test war content: \n" + war.toString(true) + "\n");
         
@@ -119,4 +128,39 @@ public class BatchChunkCheckpointTest {
         // <5> Job should be completed.
         assertEquals(jobExecution.getBatchStatus(), COMPLETED);
     }
+
+    /**
+     * The adaptive job starts with chunks of 2 items. Items are processed far faster than the 1 second target
+     * interval, so the first commit grows the chunk and the remaining items are written in a single chunk. How the
+     * chunk size changed is available from the step's persistent user data.
+     *
+     * @throws Exception an exception if the batch could not complete successfully.
+     */
+    @Test
+    public void testBatchChunkAdaptiveCheckpoint() throws Exception {
+
+        JobOperator jobOperator = getJobOperator();
+        Long executionId = jobOperator.start("myAdaptiveJob", new Properties());
+        JobExecution jobExecution = jobOperator.getJobExecution(executionId);
+
+        jobExecution = BatchTestHelper.keepTestAlive(jobExecution);
+
+        for (StepExecution stepExecution : jobOperator.getStepExecutions(executionId)) {
+            if (stepExecution.getStepName().equals("myStep")) {
+                Map<Metric.MetricType, Long> metricsMap = getMetricsMap(stepExecution.getMetrics());
+
+                assertEquals(10L, metricsMap.get(READ_COUNT).longValue());
+                assertEquals(10L / 2L, metricsMap.get(WRITE_COUNT).longValue());
+
+                CheckpointStatistics statistics = (CheckpointStatistics) stepExecution.getPersistentUserData();
+                System.out.println(statistics + ": " + statistics.getSamples());
+
+                assertEquals(10L, statistics.getItems());
+                assertEquals(2, statistics.getSamples().get(0).getItems());
+                assertTrue(statistics.getSamples().get(0).getNextChunkSize() > 2);
+            }
+        }
+
+        assertEquals(jobExecution.getBatchStatus(), COMPLETED);
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.batch.chunk.csv.database;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A view over a single CSV line held in the reader's buffer. Fields are recorded as byte offsets, so nothing is
+ * copied or decoded until a caller explicitly asks for a field as a +String+.
+ *
+ * The same instance is reused for every line, which is safe because the batch runtime hands each item read to the
+ * processor before reading the next one. The view is only valid until the next call to +readItem+.
+ */
+public class CsvLine {
+
+    private static final int MAX_FIELDS = 16;
+
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] ends = new int[MAX_FIELDS];
+
+    private ByteBuffer buffer;
+    private int fieldCount;
+    private long offset;
+
+    void reset(ByteBuffer buffer, long offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.fieldCount = 0;
+    }
+
+    void addField(int start, int end) {
+        if (fieldCount == MAX_FIELDS) {
+            throw new IllegalStateException("More than " + MAX_FIELDS + " fields in line at offset " + offset);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * @return the byte offset of this line in the input file.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public int length(int field) {
+        return ends[field] - starts[field];
+    }
+
+    public byte byteAt(int field, int index) {
+        return buffer.get(starts[field] + index);
+    }
+
+    /**
+     * Decodes a single field. This is the only method that allocates.
+     */
+    public String getString(int field) {
+        byte[] bytes = new byte[length(field)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(starts[field] + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < fieldCount; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(getString(i));
+        }
+        return builder.toString();
+    }
+}
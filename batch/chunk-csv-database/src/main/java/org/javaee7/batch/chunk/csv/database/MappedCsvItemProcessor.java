@@ -0,0 +1,120 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.batch.chunk.csv.database;
+
+import javax.batch.api.chunk.ItemProcessor;
+import javax.inject.Named;
+
+/**
+ * Turns a {@link CsvLine} into a +Person+. The hire date is validated directly on the bytes of the line, in the same
+ * +M/d/yy+ form accepted by +MyItemProcessor+, so only the two fields that end up in the entity are decoded into
+ * strings.
+ */
+@Named
+public class MappedCsvItemProcessor implements ItemProcessor {
+    private static int id = 1;
+
+    private static final int[] DAYS_IN_MONTH = { 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+    @Override
+    public Person processItem(Object t) {
+        CsvLine line = (CsvLine) t;
+
+        if (line.getFieldCount() < 2 || !isValidDate(line, 1)) {
+            return null;
+        }
+
+        return new Person(id++, line.getString(0), line.getString(1));
+    }
+
+    /**
+     * Non-lenient check of a +month/day/year+ field, ignoring surrounding whitespace.
+     */
+    static boolean isValidDate(CsvLine line, int field) {
+        int length = line.length(field);
+        int[] parts = new int[3];
+        int part = 0;
+        int digits = 0;
+        int yearDigits = 0;
+        int i = 0;
+
+        while (i < length && line.byteAt(field, i) == ' ') {
+            i++;
+        }
+        for (; i < length; i++) {
+            byte b = line.byteAt(field, i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > 4) {
+                    return false;
+                }
+                parts[part] = parts[part] * 10 + (b - '0');
+            } else if (b == '/' && part < 2 && digits > 0) {
+                part++;
+                digits = 0;
+            } else if (b == ' ' && part == 2) {
+                break;
+            } else {
+                return false;
+            }
+        }
+        yearDigits = digits;
+        for (; i < length; i++) {
+            if (line.byteAt(field, i) != ' ') {
+                return false;
+            }
+        }
+        if (part != 2 || yearDigits == 0) {
+            return false;
+        }
+
+        int month = parts[0];
+        int day = parts[1];
+        int year = yearDigits == 2 ? 2000 + parts[2] : parts[2];
+
+        if (month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]) {
+            return false;
+        }
+        return month != 2 || day < 29 || isLeapYear(year);
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.batch.chunk.csv.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Reads a CSV file without creating a +String+ per line. When the input is a plain file it is memory-mapped in
+ * windows of +windowSize+ bytes, so files larger than 2 GB can be read as well. When the input can only be opened as
+ * a stream (e.g. a resource packaged inside an archive) it is read through a single reusable direct buffer instead.
+ *
+ * Each item is a {@link CsvLine} view over the buffer. The checkpoint is the byte offset of the next unread line, so
+ * a restart seeks straight to it instead of re-reading the file from the beginning.
+ */
+@Named
+public class MappedCsvItemReader extends AbstractItemReader {
+
+    private static final String DEFAULT_RESOURCE = "/META-INF/mydata.csv";
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    @Inject
+    @BatchProperty(name = "resource")
+    String resource;
+
+    @Inject
+    @BatchProperty(name = "windowSize")
+    String windowSize;
+
+    private final CsvLine line = new CsvLine();
+
+    private FileChannel fileChannel;
+    private long fileSize;
+
+    private ReadableByteChannel streamChannel;
+    private boolean endOfStream;
+
+    private int capacity;
+    private ByteBuffer window;
+    private long windowOffset;
+    private long offset;
+
+    @Override
+    public void open(Serializable checkpoint) throws Exception {
+        offset = checkpoint == null ? 0L : (Long) checkpoint;
+        capacity = windowSize == null || windowSize.isEmpty() ? DEFAULT_WINDOW_SIZE : Integer.parseInt(windowSize);
+
+        String name = resource == null || resource.isEmpty() ? DEFAULT_RESOURCE : resource;
+        Path file = resolveFile(name);
+        if (file != null) {
+            fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+            fileSize = fileChannel.size();
+        } else {
+            InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(name);
+            if (in == null) {
+                throw new IOException("CSV input not found: " + name);
+            }
+            skipFully(in, offset);
+            streamChannel = Channels.newChannel(in);
+            window = ByteBuffer.allocateDirect(capacity);
+            window.flip();
+        }
+        advance();
+    }
+
+    @Override
+    public CsvLine readItem() throws Exception {
+        while (true) {
+            int start = window.position();
+            int end = indexOf('\n', start, window.limit());
+            if (end >= 0) {
+                if (parse(start, end, end + 1)) {
+                    return line;
+                }
+                continue;
+            }
+            if (isLastWindow()) {
+                if (parse(start, window.limit(), window.limit())) {
+                    return line;
+                }
+                return null;
+            }
+
+            int unread = window.remaining();
+            advance();
+            if (window.remaining() == unread && !isLastWindow()) {
+                throw new IOException("Line at offset " + offset + " does not fit in a window of " + capacity + " bytes");
+            }
+        }
+    }
+
+    @Override
+    public Serializable checkpointInfo() {
+        return offset;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (fileChannel != null) {
+            fileChannel.close();
+        }
+        if (streamChannel != null) {
+            streamChannel.close();
+        }
+    }
+
+    /**
+     * Splits the bytes in +[start, end)+ into fields and moves the read position to +next+.
+     *
+     * @return +false+ if the line was blank and should be skipped.
+     */
+    private boolean parse(int start, int end, int next) {
+        window.position(next);
+        long lineOffset = windowOffset + start;
+        offset = windowOffset + next;
+
+        if (end > start && window.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return false;
+        }
+
+        line.reset(window, lineOffset);
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            if (window.get(i) == ',') {
+                line.addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        line.addField(fieldStart, end);
+        return true;
+    }
+
+    /**
+     * Moves the window so that it starts at the current offset, either by mapping the next region of the file or by
+     * compacting the direct buffer and filling it from the stream.
+     */
+    private void advance() throws IOException {
+        if (fileChannel != null) {
+            long size = Math.min(capacity, fileSize - offset);
+            window = fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, Math.max(size, 0L));
+        } else {
+            window.compact();
+            while (window.hasRemaining()) {
+                if (streamChannel.read(window) < 0) {
+                    endOfStream = true;
+                    break;
+                }
+            }
+            window.flip();
+        }
+        windowOffset = offset;
+    }
+
+    private boolean isLastWindow() {
+        if (fileChannel != null) {
+            return windowOffset + window.limit() >= fileSize;
+        }
+        return endOfStream;
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (window.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Path resolveFile(String name) throws Exception {
+        Path path = Paths.get(name);
+        if (Files.isRegularFile(path)) {
+            return path;
+        }
+        URL url = Thread.currentThread().getContextClassLoader().getResource(name);
+        if (url != null && "file".equals(url.getProtocol())) {
+            return Paths.get(url.toURI());
+        }
+        return null;
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count) {
+            long n = in.skip(count - skipped);
+            if (n <= 0) {
+                throw new IOException("Checkpoint offset " + count + " is past the end of the input");
+            }
+            skipped += n;
+        }
+    }
+}
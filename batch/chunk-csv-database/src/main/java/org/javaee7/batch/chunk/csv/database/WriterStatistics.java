@@ -0,0 +1,121 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.batch.chunk.csv.database;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Running totals kept by +MyItemWriter+: rows and chunks written, and the time spent flushing each chunk to the
+ * database. Stored as the step's persistent user data, so it survives checkpoints and can be read back from the
+ * +StepExecution+ once the job is done.
+ */
+public class WriterStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long rows;
+    private long chunks;
+    private long totalNanos;
+    private long maxNanos;
+    private long lastNanos;
+    private int lastRows;
+
+    /**
+     * Adds one flushed chunk of +chunkRows+ rows that took +nanos+ to write.
+     */
+    void record(int chunkRows, long nanos) {
+        rows += chunkRows;
+        chunks++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        lastNanos = nanos;
+        lastRows = chunkRows;
+    }
+
+    /**
+     * @return the rows written so far.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the chunks written so far.
+     */
+    public long getChunks() {
+        return chunks;
+    }
+
+    /**
+     * @return rows written per second of time spent writing, over the whole step.
+     */
+    public long getRowsPerSecond() {
+        return totalNanos == 0 ? 0 : rows * TimeUnit.SECONDS.toNanos(1) / totalNanos;
+    }
+
+    /**
+     * @return the mean time taken to write one chunk.
+     */
+    public long getAverageFlushMicros() {
+        return chunks == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos / chunks);
+    }
+
+    /**
+     * @return the longest time taken to write one chunk.
+     */
+    public long getMaxFlushMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxNanos);
+    }
+
+    /**
+     * @return the time taken to write the most recent chunk.
+     */
+    public long getLastFlushMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "chunk of " + lastRows + " rows flushed in " + getLastFlushMicros() + "us (total " + rows + " rows in "
+            + chunks + " chunks, " + getRowsPerSecond() + " rows/sec, avg " + getAverageFlushMicros() + "us, max "
+            + getMaxFlushMicros() + "us)";
+    }
+}
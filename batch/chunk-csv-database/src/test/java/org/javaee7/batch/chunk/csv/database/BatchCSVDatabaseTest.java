@@ -44,7 +44,8 @@ import org.junit.runner.RunWith;
  * Process the data by transforming it into a +Person+ object:
  * include::MyItemProcessor#processItem[]
  *
- * And finally write the data using JPA to a database:
+ * And finally write the data to a database, as one JDBC batch per chunk (the +mode+ property in +myJob.xml+ switches
+ * back to one +em.persist+ per entity):
  * include::MyItemWriter#writeItems[]
  *
  * @author Roberto Cortez
@@ -120,16 +121,22 @@ public class BatchCSVDatabaseTest {
                 
                 // <3> The commit count should be 4. Checkpoint is on every 3rd read, 4 commits for read elements.
                 assertEquals(3L, metricsMap.get(Metric.MetricType.COMMIT_COUNT).longValue());
+
+                // <4> The writer keeps its own statistics of rows and chunks flushed.
+                WriterStatistics statistics = (WriterStatistics) stepExecution.getPersistentUserData();
+                assertEquals(7L, statistics.getRows());
+                assertEquals(3L, statistics.getChunks());
+                System.out.println("Writer statistics: " + statistics);
             }
         }
 
         Query query = entityManager.createNamedQuery("Person.findAll");
         List<Person> persons = query.getResultList();
 
-        // <4> Confirm that the elements were actually persisted into the database.
+        // <5> Confirm that the elements were actually persisted into the database.
         assertEquals(7L, persons.size());
         
-        // <5> Job should be completed.
+        // <6> Job should be completed.
         assertEquals(jobExecution.getBatchStatus(), BatchStatus.COMPLETED);
     }
 }
@@ -0,0 +1,220 @@
+package org.javaee7.batch.chunk.csv.database;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.batch.runtime.BatchRuntime.getJobOperator;
+import static org.javaee7.util.BatchTestHelper.keepTestAlive;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.batch.operations.JobOperator;
+import javax.batch.runtime.BatchStatus;
+import javax.batch.runtime.JobExecution;
+import javax.batch.runtime.Metric;
+import javax.batch.runtime.StepExecution;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.javaee7.util.BatchTestHelper;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ArchivePaths;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * The same job as +BatchCSVDatabaseTest+, but reading the CSV file with a reader that memory-maps the input and hands
+ * out +CsvLine+ views instead of one +String+ per line:
+ *
+ * include::myMappedJob.xml[]
+ *
+ * The reader checkpoints on the byte offset of the next line:
+ * include::MappedCsvItemReader#checkpointInfo[]
+ *
+ * And the processor validates the date directly on the bytes of the line:
+ * include::MappedCsvItemProcessor#processItem[]
+ */
+@RunWith(Arquillian.class)
+public class BatchMappedCSVDatabaseTest {
+
+    private static final int BENCHMARK_ROWS = 50000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Deployment
+    public static WebArchive createDeployment() {
+        WebArchive war = ShrinkWrap.create(WebArchive.class)
+            .addClass(BatchTestHelper.class)
+            .addPackage("org.javaee7.batch.chunk.csv.database")
+            .addAsWebInfResource(EmptyAsset.INSTANCE, ArchivePaths.create("beans.xml"))
+            .addAsResource("META-INF/batch-jobs/myMappedJob.xml")
+            .addAsResource("META-INF/persistence.xml")
+            .addAsResource("META-INF/create.sql")
+            .addAsResource("META-INF/drop.sql")
+            .addAsResource("META-INF/mydata.csv");
+        System.out.println(war.toString(true));
+        return war;
+    }
+
+    /**
+     * Runs the job over the bundled +mydata.csv+ and checks that it produces exactly the same result as the
+     * +String+ based reader.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBatchMappedCSVDatabase() throws Exception {
+
+        JobOperator jobOperator = getJobOperator();
+        Long executionId = jobOperator.start("myMappedJob", new Properties());
+        JobExecution jobExecution = jobOperator.getJobExecution(executionId);
+
+        jobExecution = keepTestAlive(jobExecution);
+
+        List<StepExecution> stepExecutions = jobOperator.getStepExecutions(executionId);
+        for (StepExecution stepExecution : stepExecutions) {
+            if (stepExecution.getStepName().equals("myStep")) {
+                Map<Metric.MetricType, Long> metricsMap = BatchTestHelper.getMetricsMap(stepExecution.getMetrics());
+
+                assertEquals(7L, metricsMap.get(Metric.MetricType.READ_COUNT).longValue());
+                assertEquals(7L, metricsMap.get(Metric.MetricType.WRITE_COUNT).longValue());
+                assertEquals(3L, metricsMap.get(Metric.MetricType.COMMIT_COUNT).longValue());
+            }
+        }
+
+        Query query = entityManager.createNamedQuery("Person.findAll");
+        List<Person> persons = query.getResultList();
+
+        assertEquals(7L, persons.size());
+        assertEquals(jobExecution.getBatchStatus(), BatchStatus.COMPLETED);
+    }
+
+    /**
+     * A reader reopened with the offset returned by +checkpointInfo+ continues with the next line, without reading
+     * the lines before it again. A small window forces the reader to remap several times.
+     */
+    @Test
+    public void testRestartFromCheckpoint() throws Exception {
+        File csv = createCsv(100);
+
+        MappedCsvItemReader reader = newReader(csv, "64");
+        reader.open(null);
+        for (int i = 0; i < 40; i++) {
+            reader.readItem();
+        }
+        Serializable checkpoint = reader.checkpointInfo();
+        reader.close();
+
+        reader = newReader(csv, "64");
+        reader.open(checkpoint);
+        assertEquals("Person 40", reader.readItem().getString(0));
+
+        int remaining = 1;
+        while (reader.readItem() != null) {
+            remaining++;
+        }
+        reader.close();
+
+        assertEquals(60, remaining);
+    }
+
+    /**
+     * Compares rows/sec and bytes allocated per row of the current +MyItemReader+ / +MyItemProcessor+ pair (a
+     * +BufferedReader+ feeding one +String+ per line to a +StringTokenizer+ and +SimpleDateFormat+) against the
+     * mapped reader and its processor, over the same generated file.
+     */
+    @Test
+    public void testReaderThroughput() throws Exception {
+        File csv = createCsv(BENCHMARK_ROWS);
+
+        // Warm up both paths before measuring
+        readWithBufferedReader(csv);
+        readWithMappedReader(csv);
+
+        long[] current = measure(csv, false);
+        long[] mapped = measure(csv, true);
+
+        System.out.format("BufferedReader: %d rows/sec, %d bytes/row%n", current[0], current[1]);
+        System.out.format("Mapped reader:  %d rows/sec, %d bytes/row%n", mapped[0], mapped[1]);
+    }
+
+    private long[] measure(File csv, boolean useMappedReader) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        boolean allocationSupported = threads instanceof com.sun.management.ThreadMXBean;
+
+        long allocatedBefore = allocationSupported
+            ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId) : 0;
+        long start = System.nanoTime();
+
+        int rows = useMappedReader ? readWithMappedReader(csv) : readWithBufferedReader(csv);
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocationSupported
+            ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId) - allocatedBefore : -1;
+
+        assertEquals(BENCHMARK_ROWS, rows);
+
+        return new long[] { rows * 1000000000L / Math.max(elapsed, 1), allocated < 0 ? -1 : allocated / rows };
+    }
+
+    private int readWithBufferedReader(File csv) throws Exception {
+        MyItemProcessor processor = new MyItemProcessor();
+        int rows = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csv.toPath(), UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (processor.processItem(line) != null) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private int readWithMappedReader(File csv) throws Exception {
+        MappedCsvItemProcessor processor = new MappedCsvItemProcessor();
+        MappedCsvItemReader reader = newReader(csv, null);
+        int rows = 0;
+        reader.open(null);
+        CsvLine line;
+        while ((line = reader.readItem()) != null) {
+            if (processor.processItem(line) != null) {
+                rows++;
+            }
+        }
+        reader.close();
+        return rows;
+    }
+
+    private static MappedCsvItemReader newReader(File csv, String windowSize) {
+        MappedCsvItemReader reader = new MappedCsvItemReader();
+        reader.resource = csv.getAbsolutePath();
+        reader.windowSize = windowSize;
+        return reader;
+    }
+
+    private static File createCsv(int rows) throws Exception {
+        File csv = File.createTempFile("persons", ".csv");
+        csv.deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(csv.toPath(), UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                writer.write("Person " + i + ", 12/1/12\n");
+            }
+        }
+        return csv;
+    }
+}
@@ -41,6 +41,8 @@ package org.javaee7.batch.sample.chunk.partition;
 
 import java.util.List;
 import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.runtime.context.StepContext;
+import javax.inject.Inject;
 import javax.inject.Named;
 
 /**
@@ -49,8 +51,21 @@ import javax.inject.Named;
 @Named
 public class MyItemWriter extends AbstractItemWriter {
 
+    @Inject
+    StepContext stepContext;
+
     @Override
     public void writeItems(List list) {
         System.out.println("writeItems: " + list);
+
+        // Picked up by MyCollector when the step runs with a collector, ignored otherwise
+        PartitionResult result = (PartitionResult) stepContext.getTransientUserData();
+        if (result == null) {
+            result = new PartitionResult();
+            stepContext.setTransientUserData(result);
+        }
+        for (Object item : list) {
+            result.add(((MyOutputRecord) item).getId());
+        }
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.batch.sample.chunk.partition;
+
+import java.util.Properties;
+import javax.batch.api.BatchProperty;
+import javax.batch.api.partition.PartitionMapper;
+import javax.batch.api.partition.PartitionPlan;
+import javax.batch.api.partition.PartitionPlanImpl;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Builds the partition plan at runtime instead of hard-coding it in the job XML. The +items+ to read are split into
+ * one contiguous +start+ / +end+ range per partition, with one thread per partition.
+ *
+ * Unless +partitions+ is set explicitly, there is one partition per available core, but never so many that a
+ * partition gets fewer than +minItemsPerPartition+ items.
+ */
+@Named
+public class MyMapper implements PartitionMapper {
+
+    @Inject
+    @BatchProperty(name = "items")
+    private String itemsProp;
+
+    @Inject
+    @BatchProperty(name = "partitions")
+    private String partitionsProp;
+
+    @Inject
+    @BatchProperty(name = "minItemsPerPartition")
+    private String minItemsPerPartitionProp;
+
+    @Override
+    public PartitionPlan mapPartitions() throws Exception {
+        int items = Integer.parseInt(itemsProp);
+        int partitions = partitionCount(items);
+
+        Properties[] props = new Properties[partitions];
+        for (int i = 0; i < partitions; i++) {
+            props[i] = new Properties();
+            props[i].setProperty("start", String.valueOf((long) i * items / partitions + 1));
+            props[i].setProperty("end", String.valueOf((long) (i + 1) * items / partitions));
+        }
+
+        PartitionPlanImpl plan = new PartitionPlanImpl();
+        plan.setPartitions(partitions);
+        plan.setThreads(partitions);
+        plan.setPartitionProperties(props);
+
+        System.out.format("mapPartitions: %d items in %d partitions\n", items, partitions);
+        return plan;
+    }
+
+    private int partitionCount(int items) {
+        int partitions = partitionsProp == null || partitionsProp.isEmpty() ? 0 : Integer.parseInt(partitionsProp);
+
+        if (partitions <= 0) {
+            int minItems = minItemsPerPartitionProp == null || minItemsPerPartitionProp.isEmpty()
+                ? 1 : Math.max(1, Integer.parseInt(minItemsPerPartitionProp));
+            int bySize = (items + minItems - 1) / minItems;
+            partitions = Math.min(Runtime.getRuntime().availableProcessors(), bySize);
+        }
+
+        return Math.max(1, Math.min(partitions, items));
+    }
+}
@@ -51,6 +51,13 @@ import org.junit.runner.RunWith;
  *
  * include::MyItemReader[]
  *
+ * The +myDynamicJob.xml+ job runs the same step, but builds its partition plan at runtime from the number of items to
+ * read and the available cores, and merges the results of all the partitions with a collector and an analyzer:
+ *
+ * include::myDynamicJob.xml[]
+ *
+ * include::MyMapper#mapPartitions[]
+ *
  * @author Roberto Cortez
  */
 @RunWith(Arquillian.class)
@@ -61,9 +68,10 @@ public class BatchChunkPartitionTest {
      * [source,file]
      * ----
      * /META-INF/batch-jobs/myJob.xml
+     * /META-INF/batch-jobs/myDynamicJob.xml
      * ----
      *
-     * The +myJob.xml+ file is needed for running the batch definition.
+     * The +myJob.xml+ and +myDynamicJob.xml+ files are needed for running the batch definitions.
      */
     @Deployment
     public static WebArchive createDeployment() {
@@ -71,7 +79,8 @@ public class BatchChunkPartitionTest {
             .addClass(BatchTestHelper.class)
             .addPackage("org.javaee7.batch.sample.chunk.partition")
             .addAsWebInfResource(EmptyAsset.INSTANCE, ArchivePaths.create("beans.xml"))
-            .addAsResource("META-INF/batch-jobs/myJob.xml");
+            .addAsResource("META-INF/batch-jobs/myJob.xml")
+            .addAsResource("META-INF/batch-jobs/myDynamicJob.xml");
         System.out.println(war.toString(true));
         return war;
     }
@@ -117,4 +126,64 @@ public class BatchChunkPartitionTest {
         // <4> Job should be completed.
         assertEquals(COMPLETED, jobExecution.getBatchStatus());
     }
+
+    /**
+     * The dynamic plan reads and writes the same elements as the static one, and the analyzer merges what every
+     * partition wrote: the 10 odd elements, doubled by +MyItemProcessor+.
+     *
+     * @throws Exception an exception if the batch could not complete successfully.
+     */
+    @Test
+    public void testBatchChunkDynamicPartition() throws Exception {
+        JobOperator jobOperator = getJobOperator();
+        Long executionId = jobOperator.start("myDynamicJob", new Properties());
+        JobExecution jobExecution = jobOperator.getJobExecution(executionId);
+
+        jobExecution = BatchTestHelper.keepTestAlive(jobExecution);
+
+        List<StepExecution> stepExecutions = jobOperator.getStepExecutions(executionId);
+        for (StepExecution stepExecution : stepExecutions) {
+            if (stepExecution.getStepName().equals("myStep")) {
+                Map<Metric.MetricType, Long> metricsMap = BatchTestHelper.getMetricsMap(stepExecution.getMetrics());
+
+                assertEquals(20L, metricsMap.get(Metric.MetricType.READ_COUNT).longValue());
+                assertEquals(10L, metricsMap.get(Metric.MetricType.WRITE_COUNT).longValue());
+
+                PartitionResult result = (PartitionResult) stepExecution.getPersistentUserData();
+                assertEquals(10L, result.getCount());
+                assertEquals(200L, result.getSum());
+            }
+        }
+
+        assertEquals(COMPLETED, jobExecution.getBatchStatus());
+    }
+
+    /**
+     * Reports the wall-clock time of the dynamic plan over the same 2000 items as the number of partitions grows. The
+     * static plan of +myJob.xml+ only reads its fixed 20 items, so it is left out of the comparison.
+     *
+     * @throws Exception an exception if the batch could not complete successfully.
+     */
+    @Test
+    public void testPartitionScaling() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int partitions = 1; partitions <= Math.max(cores, 2); partitions *= 2) {
+            Properties jobParameters = new Properties();
+            jobParameters.setProperty("items", "2000");
+            jobParameters.setProperty("partitions", String.valueOf(partitions));
+
+            System.out.format("dynamic plan, %d partitions, 2000 items: %d ms%n",
+                partitions, runAndTime("myDynamicJob", jobParameters));
+        }
+    }
+
+    private long runAndTime(String jobName, Properties jobParameters) throws Exception {
+        JobOperator jobOperator = getJobOperator();
+        Long executionId = jobOperator.start(jobName, jobParameters);
+        JobExecution jobExecution = BatchTestHelper.keepTestAlive(jobOperator.getJobExecution(executionId));
+
+        assertEquals(COMPLETED, jobExecution.getBatchStatus());
+
+        return jobExecution.getEndTime().getTime() - jobExecution.getStartTime().getTime();
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Hands due tasks to the executor without letting one tenant take all of its threads.
+ *
+ * Each tenant has its own queue, ordered by priority. Tenants with work take turns, one task per turn, so a tenant
+ * with thousands of due tasks gets no more turns than one with a single task. At most +maxRunning+ tasks run at
+ * once, and at most +maxPerTenant+ of the same tenant, so the long tasks of one tenant cannot hold every thread
+ * either.
+ */
+public class FairShareDispatcher {
+
+    /**
+     * Runs a task handed out by the dispatcher.
+     */
+    public interface Runner {
+        void run(ScheduledTask task);
+    }
+
+    private final Executor executor;
+    private final Runner runner;
+    private final int maxRunning;
+    private final int maxPerTenant;
+
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    private final ArrayDeque<Tenant> turns = new ArrayDeque<>();
+    private int running;
+
+    public FairShareDispatcher(Executor executor, Runner runner, int maxRunning, int maxPerTenant) {
+        this.executor = executor;
+        this.runner = runner;
+        this.maxRunning = maxRunning;
+        this.maxPerTenant = Math.min(maxPerTenant, maxRunning);
+    }
+
+    public void dispatch(ScheduledTask task) {
+        synchronized (this) {
+            Tenant tenant = tenants.get(task.getTenant());
+            if (tenant == null) {
+                tenant = new Tenant(task.getTenant());
+                tenants.put(tenant.name, tenant);
+            }
+            tenant.queue.add(task);
+            takeTurn(tenant);
+        }
+        pump();
+    }
+
+    private void pump() {
+        while (true) {
+            final ScheduledTask task;
+            final Tenant tenant;
+            synchronized (this) {
+                if (running >= maxRunning || turns.isEmpty()) {
+                    return;
+                }
+                tenant = turns.poll();
+                tenant.waiting = false;
+                task = tenant.queue.poll();
+                tenant.running++;
+                running++;
+                takeTurn(tenant);
+            }
+
+            Runnable run = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runner.run(task);
+                    } finally {
+                        synchronized (FairShareDispatcher.this) {
+                            tenant.running--;
+                            running--;
+                            takeTurn(tenant);
+                        }
+                        pump();
+                    }
+                }
+            };
+            try {
+                executor.execute(run);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    tenant.running--;
+                    running--;
+                    tenant.queue.add(task);
+                    takeTurn(tenant);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Puts the tenant at the end of the line if it has tasks waiting and may run one more.
+     */
+    private void takeTurn(Tenant tenant) {
+        if (!tenant.waiting && !tenant.queue.isEmpty() && tenant.running < maxPerTenant) {
+            tenant.waiting = true;
+            turns.add(tenant);
+        }
+    }
+
+    private static class Tenant {
+        final String name;
+        final PriorityQueue<ScheduledTask> queue = new PriorityQueue<>();
+        int running;
+        boolean waiting;
+
+        Tenant(String name) {
+            this.name = name;
+        }
+    }
+}
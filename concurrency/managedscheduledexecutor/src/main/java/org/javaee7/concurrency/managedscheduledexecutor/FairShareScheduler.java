@@ -0,0 +1,200 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.enterprise.concurrent.Trigger;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Schedules many tasks for many tenants over a single +ManagedScheduledExecutorService+.
+ *
+ * Only one task is actually scheduled on the executor: a tick every +TICK_MILLIS+ that advances a +TimingWheel+
+ * holding all the timers. Due tasks go through a +FairShareDispatcher+, which runs them on the executor by
+ * priority within a tenant and in turns between tenants, using at most +MAX_RUNNING+ threads.
+ *
+ * The lag of every run, between the time it was due and the time it started, is kept per tenant in
+ * +TenantStatistics+.
+ */
+@ApplicationScoped
+public class FairShareScheduler {
+
+    public static final long TICK_MILLIS = 10;
+    public static final int MAX_RUNNING = 8;
+    public static final int MAX_PER_TENANT = 4;
+
+    private static final Logger logger = Logger.getLogger(FairShareScheduler.class.getName());
+
+    @Resource(name = "DefaultManagedScheduledExecutorService")
+    ManagedScheduledExecutorService executor;
+
+    private final ConcurrentMap<String, TenantStatistics> statistics = new ConcurrentHashMap<>();
+    private TimingWheel<ScheduledTask> wheel;
+    private FairShareDispatcher dispatcher;
+    private ScheduledFuture<?> ticker;
+
+    @PostConstruct
+    void start() {
+        dispatcher = new FairShareDispatcher(executor, new FairShareDispatcher.Runner() {
+            @Override
+            public void run(ScheduledTask task) {
+                execute(task);
+            }
+        }, MAX_RUNNING, MAX_PER_TENANT);
+
+        wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis(), new TimingWheel.Expiry<ScheduledTask>() {
+            @Override
+            public void expired(ScheduledTask task) {
+                if (!task.isCancelled()) {
+                    statistics(task.getTenant()).queued();
+                    dispatcher.dispatch(task);
+                }
+            }
+        });
+
+        ticker = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    wheel.advance(System.currentTimeMillis());
+                } catch (RuntimeException e) {
+                    // An exception would cancel the ticker, and with it every task
+                    logger.log(Level.SEVERE, "Failed to advance the timing wheel", e);
+                }
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.cancel(false);
+    }
+
+    /**
+     * Runs +task+ once, after +delay+.
+     *
+     * @param priority higher runs first among the due tasks of the same tenant
+     */
+    public ScheduledTask schedule(String tenant, int priority, Runnable task, long delay, TimeUnit unit) {
+        return add(new ScheduledTask(tenant, priority, Executors.callable(task), null,
+            System.currentTimeMillis() + unit.toMillis(delay)));
+    }
+
+    /**
+     * Runs +task+ at the times given by +trigger+, until the trigger returns +null+ or the task is cancelled.
+     *
+     * @param priority higher runs first among the due tasks of the same tenant
+     * @return +null+ if the trigger does not give a first run time
+     */
+    public ScheduledTask schedule(String tenant, int priority, Callable<?> task, Trigger trigger) {
+        Date first = trigger.getNextRunTime(null, new Date());
+        if (first == null) {
+            return null;
+        }
+        return add(new ScheduledTask(tenant, priority, task, trigger, first.getTime()));
+    }
+
+    public Map<String, TenantStatistics> getStatistics() {
+        return new TreeMap<>(statistics);
+    }
+
+    private ScheduledTask add(ScheduledTask task) {
+        statistics(task.getTenant()).scheduled();
+        wheel.add(task, task.getDueMillis());
+        return task;
+    }
+
+    private void execute(ScheduledTask task) {
+        TenantStatistics tenantStatistics = statistics(task.getTenant());
+        long start = System.currentTimeMillis();
+        long due = task.getDueMillis();
+        Trigger trigger = task.getTrigger();
+
+        if (task.isCancelled() || trigger != null && trigger.skipRun(task.getLastExecution(), new Date(due))) {
+            tenantStatistics.skipped();
+            task.setLastExecution(new ScheduledTask.Execution(task.getTenant(), null, due, start, start));
+        } else {
+            tenantStatistics.started(start - due);
+            Object result = null;
+            try {
+                result = task.getTask().call();
+            } catch (Exception e) {
+                tenantStatistics.failed();
+                logger.log(Level.WARNING, "Task of tenant " + task.getTenant() + " failed", e);
+            }
+            task.setLastExecution(
+                new ScheduledTask.Execution(task.getTenant(), result, due, start, System.currentTimeMillis()));
+        }
+
+        if (trigger != null && !task.isCancelled()) {
+            Date next = trigger.getNextRunTime(task.getLastExecution(), task.getScheduledTime());
+            if (next != null) {
+                task.setDueMillis(next.getTime());
+                wheel.add(task, next.getTime());
+            }
+        }
+    }
+
+    private TenantStatistics statistics(String tenant) {
+        TenantStatistics tenantStatistics = statistics.get(tenant);
+        if (tenantStatistics == null) {
+            TenantStatistics created = new TenantStatistics();
+            tenantStatistics = statistics.putIfAbsent(tenant, created);
+            if (tenantStatistics == null) {
+                tenantStatistics = created;
+            }
+        }
+        return tenantStatistics;
+    }
+}
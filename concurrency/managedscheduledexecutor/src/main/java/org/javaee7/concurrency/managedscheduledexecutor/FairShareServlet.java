@@ -0,0 +1,231 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Schedules a burst of tasks for a noisy tenant and a few tasks for quiet tenants, all due at the same time, plus
+ * periodic tasks using the jitter, skew and backoff triggers, then prints the lag of each tenant.
+ *
+ * Parameters: +noisy+ tasks (default 2000), +quiet+ tasks per quiet tenant (default 20) and +work+ milliseconds per
+ * task (default 5).
+ */
+@WebServlet(urlPatterns = { "/FairShareServlet" })
+public class FairShareServlet extends HttpServlet {
+
+    private static final String[] QUIET_TENANTS = { "quiet-a", "quiet-b", "quiet-c" };
+    private static final AtomicInteger runs = new AtomicInteger();
+
+    @Inject
+    FairShareScheduler scheduler;
+
+    /**
+     * Processes requests for both HTTP
+     * <code>GET</code> and
+     * <code>POST</code> methods.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    protected void processRequest(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException {
+        int noisy = intParameter(request, "noisy", 2000);
+        int quiet = intParameter(request, "quiet", 20);
+        final long work = intParameter(request, "work", 5);
+        String run = "-" + runs.incrementAndGet();
+
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                sleep(work);
+            }
+        };
+
+        List<ScheduledTask> periodic = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            periodic.add(scheduler.schedule("skew" + run, 0, callable(task),
+                new SkewTrigger(1, "job-" + i, 200, TimeUnit.SECONDS)));
+            periodic.add(scheduler.schedule("jitter" + run, 0, callable(task),
+                new JitterTrigger(1, TimeUnit.SECONDS, 0.2)));
+        }
+        final AtomicInteger attempts = new AtomicInteger();
+        periodic.add(scheduler.schedule("backoff" + run, 0, new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                // Fails twice, then succeeds
+                return attempts.incrementAndGet() > 2;
+            }
+        }, new BackoffTrigger(1, 100, 2000, TimeUnit.MILLISECONDS)));
+
+        for (int i = 0; i < noisy; i++) {
+            scheduler.schedule("noisy" + run, 0, task, 100, TimeUnit.MILLISECONDS);
+        }
+        for (String tenant : QUIET_TENANTS) {
+            for (int i = 0; i < quiet; i++) {
+                scheduler.schedule(tenant + run, i % 2, task, 100, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        waitForBurst(run);
+        for (ScheduledTask scheduled : periodic) {
+            scheduled.cancel();
+        }
+
+        response.setContentType("text/html;charset=UTF-8");
+        try (PrintWriter out = response.getWriter()) {
+            out.println("<!DOCTYPE html>");
+            out.println("<html>");
+            out.println("<head>");
+            out.println("<title>Fair-share scheduling</title>");
+            out.println("</head>");
+            out.println("<body>");
+            out.println("<h1>Fair-share scheduling</h1>");
+            out.println(noisy + " tasks for the noisy tenant, " + quiet + " for each quiet tenant, " + work
+                + " ms each, at most " + FairShareScheduler.MAX_RUNNING + " running and "
+                + FairShareScheduler.MAX_PER_TENANT + " per tenant<br><br>");
+            for (Map.Entry<String, TenantStatistics> tenant : scheduler.getStatistics().entrySet()) {
+                if (tenant.getKey().endsWith(run)) {
+                    out.println(tenant.getKey() + ": " + tenant.getValue() + "<br>");
+                }
+            }
+            out.println("</body>");
+            out.println("</html>");
+        }
+    }
+
+    private void waitForBurst(String run) {
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        while (System.currentTimeMillis() < deadline) {
+            boolean done = true;
+            for (Map.Entry<String, TenantStatistics> tenant : scheduler.getStatistics().entrySet()) {
+                TenantStatistics statistics = tenant.getValue();
+                if ((tenant.getKey().startsWith("noisy") || tenant.getKey().startsWith("quiet"))
+                    && tenant.getKey().endsWith(run)
+                    && statistics.getStarted() + statistics.getSkipped() < statistics.getScheduled()) {
+                    done = false;
+                }
+            }
+            if (done) {
+                return;
+            }
+            sleep(100);
+        }
+    }
+
+    private static Callable<Object> callable(final Runnable task) {
+        return new Callable<Object>() {
+            @Override
+            public Object call() {
+                task.run();
+                return Boolean.TRUE;
+            }
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
+    /**
+     * Handles the HTTP
+     * <code>GET</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Handles the HTTP
+     * <code>POST</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Short description";
+    }// </editor-fold>
+}
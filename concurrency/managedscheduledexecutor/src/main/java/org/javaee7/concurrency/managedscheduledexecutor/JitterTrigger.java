@@ -0,0 +1,79 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.concurrent.LastExecution;
+import javax.enterprise.concurrent.Trigger;
+
+/**
+ * Runs a task every +period+, moved each time by a random amount of up to +jitter+ times the period either way, so
+ * that tasks scheduled together with the same period drift apart instead of all waking up at the same instant. The
+ * jitter does not accumulate: each run is moved from its nominal time, which stays +period+ after the previous one.
+ * Each task needs its own instance.
+ */
+public class JitterTrigger implements Trigger {
+
+    private final long periodMillis;
+    private final double jitter;
+    private long nominal = -1;
+
+    /**
+     * @param jitter between 0 and 1
+     */
+    public JitterTrigger(long period, TimeUnit unit, double jitter) {
+        this.periodMillis = unit.toMillis(period);
+        this.jitter = Math.max(0, Math.min(jitter, 1));
+    }
+
+    @Override
+    public synchronized Date getNextRunTime(LastExecution le, Date taskScheduledTime) {
+        nominal = (nominal < 0 ? taskScheduledTime.getTime() : nominal) + periodMillis;
+        long offset = (long) (periodMillis * jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1));
+        return new Date(nominal + offset);
+    }
+
+    @Override
+    public boolean skipRun(LastExecution le, Date scheduledRunTime) {
+        return false;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.enterprise.concurrent.LastExecution;
+import javax.enterprise.concurrent.Trigger;
+
+/**
+ * A task scheduled through +FairShareScheduler+. Tasks of the same tenant run by decreasing priority, then by due
+ * time. A task with a +Trigger+ is scheduled again after each run, for the time the trigger returns.
+ */
+public class ScheduledTask implements Comparable<ScheduledTask> {
+
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private final String tenant;
+    private final int priority;
+    private final Callable<?> task;
+    private final Trigger trigger;
+    private final long order = sequence.getAndIncrement();
+
+    private final Date scheduledTime;
+    private volatile long dueMillis;
+    private volatile boolean cancelled;
+    private volatile Execution lastExecution;
+
+    ScheduledTask(String tenant, int priority, Callable<?> task, Trigger trigger, long dueMillis) {
+        this.tenant = tenant;
+        this.priority = priority;
+        this.task = task;
+        this.trigger = trigger;
+        this.dueMillis = dueMillis;
+        this.scheduledTime = new Date();
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getDueMillis() {
+        return dueMillis;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public LastExecution getLastExecution() {
+        return lastExecution;
+    }
+
+    Callable<?> getTask() {
+        return task;
+    }
+
+    Trigger getTrigger() {
+        return trigger;
+    }
+
+    Date getScheduledTime() {
+        return scheduledTime;
+    }
+
+    void setDueMillis(long dueMillis) {
+        this.dueMillis = dueMillis;
+    }
+
+    void setLastExecution(Execution lastExecution) {
+        this.lastExecution = lastExecution;
+    }
+
+    @Override
+    public int compareTo(ScheduledTask other) {
+        if (priority != other.priority) {
+            return priority > other.priority ? -1 : 1;
+        }
+        if (dueMillis != other.dueMillis) {
+            return dueMillis < other.dueMillis ? -1 : 1;
+        }
+        return Long.compare(order, other.order);
+    }
+
+    /**
+     * What a trigger is told about the previous run.
+     */
+    static class Execution implements LastExecution {
+        private final String identityName;
+        private final Object result;
+        private final Date scheduledStart;
+        private final Date runStart;
+        private final Date runEnd;
+
+        Execution(String identityName, Object result, long scheduledStart, long runStart, long runEnd) {
+            this.identityName = identityName;
+            this.result = result;
+            this.scheduledStart = new Date(scheduledStart);
+            this.runStart = new Date(runStart);
+            this.runEnd = new Date(runEnd);
+        }
+
+        @Override
+        public String getIdentityName() {
+            return identityName;
+        }
+
+        @Override
+        public Object getResult() {
+            return result;
+        }
+
+        @Override
+        public Date getScheduledStart() {
+            return scheduledStart;
+        }
+
+        @Override
+        public Date getRunStart() {
+            return runStart;
+        }
+
+        @Override
+        public Date getRunEnd() {
+            return runEnd;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.concurrent.LastExecution;
+import javax.enterprise.concurrent.Trigger;
+
+/**
+ * Runs a task every +period+, at a fixed offset within the period derived from a key. Thousands of tasks with the
+ * same period are spread evenly over it, and a given task always runs at the same point of the period.
+ *
+ * A run that starts more than +maxLateness+ after its time is skipped rather than run late, so a backlog does not
+ * turn into a burst of catch-up runs.
+ */
+public class SkewTrigger implements Trigger {
+
+    private final long periodMillis;
+    private final long offsetMillis;
+    private final long maxLatenessMillis;
+
+    public SkewTrigger(long period, String key, long maxLateness, TimeUnit unit) {
+        this.periodMillis = Math.max(unit.toMillis(period), 1);
+        this.offsetMillis = (key.hashCode() & Integer.MAX_VALUE) % periodMillis;
+        this.maxLatenessMillis = unit.toMillis(maxLateness);
+    }
+
+    @Override
+    public Date getNextRunTime(LastExecution le, Date taskScheduledTime) {
+        long after = le == null ? taskScheduledTime.getTime() : le.getScheduledStart().getTime();
+        long next = after - after % periodMillis + offsetMillis;
+        if (next <= after) {
+            next += periodMillis;
+        }
+        return new Date(next);
+    }
+
+    @Override
+    public boolean skipRun(LastExecution le, Date scheduledRunTime) {
+        return System.currentTimeMillis() - scheduledRunTime.getTime() > maxLatenessMillis;
+    }
+}
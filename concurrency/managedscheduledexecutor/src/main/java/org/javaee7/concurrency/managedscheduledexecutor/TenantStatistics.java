@@ -0,0 +1,150 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters of the tasks of one tenant. The lag of a run is the time between when it was due and when it started, so
+ * it includes both the tick of the timing wheel and the wait for a free thread behind other tasks.
+ */
+public class TenantStatistics {
+
+    private static final int BUCKETS = 32;
+
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalLag = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+    private final AtomicLongArray lagBuckets = new AtomicLongArray(BUCKETS);
+
+    void scheduled() {
+        scheduled.incrementAndGet();
+    }
+
+    void queued() {
+        queued.incrementAndGet();
+    }
+
+    void started(long lagMillis) {
+        queued.decrementAndGet();
+        started.incrementAndGet();
+        long lag = Math.max(lagMillis, 0);
+        totalLag.addAndGet(lag);
+        lagBuckets.incrementAndGet(Math.min(64 - Long.numberOfLeadingZeros(lag), BUCKETS - 1));
+        long max = maxLag.get();
+        while (lag > max && !maxLag.compareAndSet(max, lag)) {
+            max = maxLag.get();
+        }
+    }
+
+    void skipped() {
+        queued.decrementAndGet();
+        skipped.incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    public long getScheduled() {
+        return scheduled.get();
+    }
+
+    /**
+     * @return the runs that are due but wait for a thread
+     */
+    public long getQueued() {
+        return queued.get();
+    }
+
+    public long getStarted() {
+        return started.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getMeanLagMillis() {
+        long n = started.get();
+        return n == 0 ? 0 : totalLag.get() / n;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLag.get();
+    }
+
+    /**
+     * @return the upper bound of the power of two bucket holding the given percentile of the lag, in milliseconds
+     */
+    public long getLagPercentileMillis(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = lagBuckets.get(i);
+            total += counts[i];
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(1L << i, getMaxLagMillis());
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "scheduled=" + getScheduled() + ", queued=" + getQueued() + ", started=" + getStarted()
+            + ", skipped=" + getSkipped() + ", failed=" + getFailed() + ", meanLag=" + getMeanLagMillis()
+            + "ms, p99Lag=" + getLagPercentileMillis(99) + "ms, maxLag=" + getMaxLagMillis() + "ms";
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hierarchical timing wheel: +LEVELS+ wheels of +SLOTS+ slots each, the first one advancing one slot per tick and
+ * each of the others one slot per full turn of the wheel below. Inserting a timer is a lock-free enqueue, whatever
+ * the number of timers, instead of the +O(log n)+ insertion into the delay queue of a +ScheduledExecutorService+.
+ *
+ * A single thread, the one calling {@link #advance(long)}, owns the wheels: it moves new timers from the inbox into
+ * their slot, cascades the timers of an upper slot into the lower wheels when its turn comes, and hands the timers of
+ * the current slot to the +Expiry+. Timers further away than the whole wheel wait in the last slot of the top wheel
+ * and are placed again when it cascades.
+ */
+public class TimingWheel<T> {
+
+    public static final int SLOT_BITS = 6;
+    public static final int SLOTS = 1 << SLOT_BITS;
+    public static final int LEVELS = 4;
+
+    /**
+     * Receives the timers that are due.
+     */
+    public interface Expiry<T> {
+        void expired(T timer);
+    }
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Expiry<T> expiry;
+
+    private final Queue<Timer<T>> inbox = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Timer<T>>[][] wheels;
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long startMillis, Expiry<T> expiry) {
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.expiry = expiry;
+        this.wheels = new ArrayDeque[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheels[level][slot] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    /**
+     * May be called from any thread.
+     *
+     * @param dueMillis the time, in milliseconds since the epoch, the timer is due
+     */
+    public void add(T timer, long dueMillis) {
+        inbox.add(new Timer<>(timer, Math.max((dueMillis - startMillis + tickMillis - 1) / tickMillis, 0)));
+    }
+
+    /**
+     * Advances the wheels up to +nowMillis+, expiring the timers due until then. Must only be called from one thread
+     * at a time.
+     */
+    public void advance(long nowMillis) {
+        long targetTick = (nowMillis - startMillis) / tickMillis;
+        placeNew();
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = 1; level < LEVELS; level++) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(wheels[level][slot(currentTick, level)]);
+            }
+            ArrayDeque<Timer<T>> slot = wheels[0][slot(currentTick, 0)];
+            Timer<T> timer;
+            while ((timer = slot.poll()) != null) {
+                expiry.expired(timer.value);
+            }
+            placeNew();
+        }
+    }
+
+    private void placeNew() {
+        Timer<T> timer;
+        while ((timer = inbox.poll()) != null) {
+            place(timer);
+        }
+    }
+
+    private void cascade(ArrayDeque<Timer<T>> slot) {
+        int n = slot.size();
+        for (int i = 0; i < n; i++) {
+            place(slot.poll());
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.dueTick - currentTick;
+        if (delta <= 0) {
+            expiry.expired(timer.value);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                wheels[level][slot(timer.dueTick, level)].add(timer);
+                return;
+            }
+        }
+        // Beyond the top wheel: wait for its last slot before this turn ends, then be placed again
+        int top = LEVELS - 1;
+        wheels[top][slot(currentTick, top) == 0 ? SLOTS - 1 : slot(currentTick, top) - 1].add(timer);
+    }
+
+    private static int slot(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+
+    private static class Timer<T> {
+        final T value;
+        final long dueTick;
+
+        Timer(T value, long dueTick) {
+            this.value = value;
+            this.dueTick = dueTick;
+        }
+    }
+}
@@ -55,5 +55,6 @@
         Schedule using Callable <a href="${pageContext.request.contextPath}/ScheduleServlet">after 5 seconds</a><br/>
         Schedule <a href="${pageContext.request.contextPath}/ScheduleFixedRateServlet">at fixed rate</a><br/>
         Schedule <a href="${pageContext.request.contextPath}/ScheduleWithFixedDelayServlet">with fixed delay</a><br/>
+        Schedule many tenants <a href="${pageContext.request.contextPath}/FairShareServlet">with fair share</a><br/>
     </body>
 </html>
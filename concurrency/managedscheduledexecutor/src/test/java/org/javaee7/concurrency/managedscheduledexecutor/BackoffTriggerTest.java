@@ -0,0 +1,51 @@
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class BackoffTriggerTest {
+
+    private final BackoffTrigger trigger = new BackoffTrigger(1000, 100, 1000, TimeUnit.MILLISECONDS);
+
+    @Test
+    public void firstRunIsOnePeriodAfterScheduling() {
+        assertEquals(6000, trigger.getNextRunTime(null, new Date(5000)).getTime());
+    }
+
+    @Test
+    public void backoffDoublesUpToTheCap() {
+        long[] expected = { 100, 200, 400, 800, 1000, 1000 };
+        for (int i = 0; i < expected.length; i++) {
+            long end = 10000L * (i + 1);
+            assertEquals(end + expected[i], trigger.getNextRunTime(run(null, end), null).getTime());
+        }
+        assertEquals(expected.length, trigger.getFailures());
+    }
+
+    @Test
+    public void falseCountsAsAFailure() {
+        assertEquals(5100, trigger.getNextRunTime(run(Boolean.FALSE, 5000), null).getTime());
+        assertEquals(1, trigger.getFailures());
+    }
+
+    @Test
+    public void successGoesBackToThePeriodAndResetsTheBackoff() {
+        trigger.getNextRunTime(run(null, 5000), null);
+        trigger.getNextRunTime(run(null, 6000), null);
+
+        assertEquals(8000 + 1000, trigger.getNextRunTime(run("done", 8000), null).getTime());
+        assertEquals(0, trigger.getFailures());
+        assertEquals(9000 + 100, trigger.getNextRunTime(run(null, 9000), null).getTime());
+    }
+
+    /**
+     * A run scheduled, started and ended at +time+.
+     */
+    private static ScheduledTask.Execution run(Object result, long time) {
+        return new ScheduledTask.Execution("task", result, time, time, time);
+    }
+}
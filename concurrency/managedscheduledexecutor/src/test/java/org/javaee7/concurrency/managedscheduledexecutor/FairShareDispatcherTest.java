@@ -0,0 +1,107 @@
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+/**
+ * Hands the dispatcher an executor that only queues the tasks, and runs them one at a time to check the order the
+ * tenants get their turns in.
+ */
+public class FairShareDispatcherTest {
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private final List<String> ran = new ArrayList<>();
+    private final FairShareDispatcher.Runner runner = new FairShareDispatcher.Runner() {
+        @Override
+        public void run(ScheduledTask task) {
+            try {
+                ran.add((String) task.getTask().call());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    @Test
+    public void tenantsTakeTurns() {
+        FairShareDispatcher dispatcher = new FairShareDispatcher(executor, runner, 1, 1);
+        dispatcher.dispatch(task("a", "a1", 0));
+        dispatcher.dispatch(task("a", "a2", 0));
+        dispatcher.dispatch(task("a", "a3", 0));
+        dispatcher.dispatch(task("b", "b1", 0));
+        dispatcher.dispatch(task("b", "b2", 0));
+        dispatcher.dispatch(task("c", "c1", 0));
+
+        executor.runAll();
+
+        assertEquals("[a1, b1, c1, a2, b2, a3]", ran.toString());
+    }
+
+    @Test
+    public void oneTenantCannotTakeEveryThread() {
+        FairShareDispatcher dispatcher = new FairShareDispatcher(executor, runner, 4, 2);
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(task("a", "a" + i, 0));
+        }
+        assertEquals(2, executor.pending());
+
+        dispatcher.dispatch(task("b", "b0", 0));
+        dispatcher.dispatch(task("b", "b1", 0));
+        dispatcher.dispatch(task("b", "b2", 0));
+        assertEquals(4, executor.pending());
+
+        executor.runAll();
+        assertEquals(13, ran.size());
+    }
+
+    @Test
+    public void higherPriorityRunsFirstWithinATenant() {
+        FairShareDispatcher dispatcher = new FairShareDispatcher(executor, runner, 1, 1);
+        dispatcher.dispatch(task("a", "running", 0));
+        dispatcher.dispatch(task("a", "low", 0));
+        dispatcher.dispatch(task("a", "high", 5));
+        dispatcher.dispatch(task("a", "medium", 1));
+
+        executor.runAll();
+
+        assertEquals("[running, high, medium, low]", ran.toString());
+    }
+
+    private static ScheduledTask task(String tenant, final String name, int priority) {
+        return new ScheduledTask(tenant, priority, new Callable<String>() {
+            @Override
+            public String call() {
+                return name;
+            }
+        }, null, 0);
+    }
+
+    private static class ManualExecutor implements Executor {
+
+        private final Queue<Runnable> queue = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+
+        int pending() {
+            return queue.size();
+        }
+
+        void runAll() {
+            Runnable command;
+            while ((command = queue.poll()) != null) {
+                command.run();
+            }
+        }
+    }
+}
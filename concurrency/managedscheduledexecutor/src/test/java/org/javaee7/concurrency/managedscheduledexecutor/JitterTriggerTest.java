@@ -0,0 +1,47 @@
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class JitterTriggerTest {
+
+    @Test
+    public void runsStayWithinTheJitterOfTheirNominalTime() {
+        JitterTrigger trigger = new JitterTrigger(1000, TimeUnit.MILLISECONDS, 0.2);
+        Date scheduled = new Date(0);
+
+        boolean early = false;
+        boolean late = false;
+        for (int i = 1; i <= 1000; i++) {
+            long offset = trigger.getNextRunTime(null, scheduled).getTime() - i * 1000L;
+            assertTrue("run " + i + " is " + offset + "ms off", Math.abs(offset) <= 200);
+            early |= offset < 0;
+            late |= offset > 0;
+        }
+        // With 1000 runs, both sides of the nominal time come up
+        assertTrue(early && late);
+    }
+
+    @Test
+    public void noJitterRunsOnThePeriod() {
+        JitterTrigger trigger = new JitterTrigger(1, TimeUnit.SECONDS, 0);
+
+        assertEquals(6000, trigger.getNextRunTime(null, new Date(5000)).getTime());
+        assertEquals(7000, trigger.getNextRunTime(null, new Date(5000)).getTime());
+    }
+
+    @Test
+    public void jitterIsCappedAtOnePeriod() {
+        JitterTrigger trigger = new JitterTrigger(1000, TimeUnit.MILLISECONDS, 5);
+
+        for (int i = 1; i <= 100; i++) {
+            long offset = trigger.getNextRunTime(null, new Date(0)).getTime() - i * 1000L;
+            assertTrue(Math.abs(offset) <= 1000);
+        }
+    }
+}
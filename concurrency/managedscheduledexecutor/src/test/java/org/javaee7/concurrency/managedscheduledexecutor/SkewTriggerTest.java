@@ -0,0 +1,36 @@
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class SkewTriggerTest {
+
+    @Test
+    public void runsAtTheSameOffsetOfEveryPeriod() {
+        SkewTrigger trigger = new SkewTrigger(1000, "tenant-42", 100, TimeUnit.MILLISECONDS);
+        long offset = ("tenant-42".hashCode() & Integer.MAX_VALUE) % 1000;
+
+        long first = trigger.getNextRunTime(null, new Date(5000)).getTime();
+        assertEquals(offset, first % 1000);
+        assertTrue(first > 5000 && first <= 6000);
+
+        long second = trigger.getNextRunTime(new ScheduledTask.Execution("task", null, first, first, first), null)
+            .getTime();
+        assertEquals(first + 1000, second);
+    }
+
+    @Test
+    public void runTooLateIsSkipped() {
+        SkewTrigger trigger = new SkewTrigger(1, "key", 1, TimeUnit.MINUTES);
+        long now = System.currentTimeMillis();
+
+        assertFalse(trigger.skipRun(null, new Date(now)));
+        assertTrue(trigger.skipRun(null, new Date(now - TimeUnit.MINUTES.toMillis(2))));
+    }
+}
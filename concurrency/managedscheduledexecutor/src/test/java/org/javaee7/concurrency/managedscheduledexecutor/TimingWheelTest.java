@@ -0,0 +1,107 @@
+package org.javaee7.concurrency.managedscheduledexecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Drives the wheel by hand, one tick after the other where it matters, and records the tick each timer expired at.
+ */
+public class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+
+    private final Map<String, Long> expiredAt = new HashMap<>();
+    private final List<String> expired = new ArrayList<>();
+    private long now;
+    private TimingWheel<String> wheel;
+
+    @Before
+    public void createWheel() {
+        now = 0;
+        wheel = new TimingWheel<>(TICK_MILLIS, 0, new TimingWheel.Expiry<String>() {
+            @Override
+            public void expired(String timer) {
+                expired.add(timer);
+                expiredAt.put(timer, now);
+            }
+        });
+    }
+
+    @Test
+    public void timerExpiresOnTheTickOfItsDueTime() {
+        wheel.add("exact", 50);
+        wheel.add("rounded up", 41);
+
+        advanceTicks(10);
+
+        assertEquals(50L, (long) expiredAt.get("exact"));
+        assertEquals(50L, (long) expiredAt.get("rounded up"));
+    }
+
+    @Test
+    public void timerDueInThePastExpiresOnTheNextAdvance() {
+        advanceTicks(5);
+        wheel.add("late", 10);
+
+        advanceTicks(1);
+
+        assertEquals(60L, (long) expiredAt.get("late"));
+    }
+
+    @Test
+    public void timersCascadeFromTheUpperWheels() {
+        long secondLevel = (3L * TimingWheel.SLOTS + 7) * TICK_MILLIS;
+        long thirdLevel = ((long) TimingWheel.SLOTS * TimingWheel.SLOTS + 5) * TICK_MILLIS;
+        wheel.add("second level", secondLevel);
+        wheel.add("third level", thirdLevel);
+        wheel.add("first level", 20);
+
+        advanceTicks(TimingWheel.SLOTS * TimingWheel.SLOTS + 10);
+
+        assertEquals(secondLevel, (long) expiredAt.get("second level"));
+        assertEquals(thirdLevel, (long) expiredAt.get("third level"));
+        assertEquals("[first level, second level, third level]", expired.toString());
+    }
+
+    @Test
+    public void timerBeyondTheWholeWheelWaitsForItsTurn() {
+        long wheelTicks = 1L << (TimingWheel.SLOT_BITS * TimingWheel.LEVELS);
+        long due = (wheelTicks + 100) * TICK_MILLIS;
+        wheel.add("beyond", due);
+
+        now = due - TICK_MILLIS;
+        wheel.advance(now);
+        assertTrue(expired.isEmpty());
+
+        now = due;
+        wheel.advance(now);
+        assertEquals("[beyond]", expired.toString());
+    }
+
+    @Test
+    public void timersDueOnTheSameTickAllExpire() {
+        for (int i = 0; i < 1000; i++) {
+            wheel.add("timer" + i, 700);
+        }
+
+        advanceTicks(70);
+
+        assertEquals(1000, expired.size());
+        assertEquals(700L, (long) expiredAt.get("timer999"));
+    }
+
+    private void advanceTicks(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            now += TICK_MILLIS;
+            wheel.advance(now);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.javaee7.ejb.async;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue depth and wait time of the asynchronous calls of each bean. A bean submits its work through
+ * {@link #executor(String, Executor)}, which counts a task as queued from the moment it is submitted until a thread
+ * of the underlying executor starts running it.
+ */
+@ApplicationScoped
+public class AsyncStatistics {
+
+    private final ConcurrentMap<String, Queue> queues = new ConcurrentHashMap<>();
+
+    public Executor executor(String bean, final Executor executor) {
+        final Queue queue = queue(bean);
+        return new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                final long submitted = System.nanoTime();
+                queue.submitted();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        queue.started(System.nanoTime() - submitted);
+                        command.run();
+                    }
+                });
+            }
+        };
+    }
+
+    public Queue queue(String bean) {
+        Queue queue = queues.get(bean);
+        if (queue == null) {
+            Queue created = new Queue();
+            queue = queues.putIfAbsent(bean, created);
+            if (queue == null) {
+                queue = created;
+            }
+        }
+        return queue;
+    }
+
+    public Map<String, Queue> getQueues() {
+        return new TreeMap<>(queues);
+    }
+
+    /**
+     * Counters of the calls of one bean.
+     */
+    public static class Queue {
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong started = new AtomicLong();
+        private final AtomicLong maxDepth = new AtomicLong();
+        private final AtomicLong totalWait = new AtomicLong();
+        private final AtomicLong maxWait = new AtomicLong();
+
+        void submitted() {
+            long depth = submitted.incrementAndGet() - started.get();
+            max(maxDepth, depth);
+        }
+
+        void started(long waitNanos) {
+            started.incrementAndGet();
+            totalWait.addAndGet(waitNanos);
+            max(maxWait, waitNanos);
+        }
+
+        private static void max(AtomicLong max, long value) {
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+
+        public long getSubmitted() {
+            return submitted.get();
+        }
+
+        /**
+         * @return the number of calls submitted but not started yet
+         */
+        public long getDepth() {
+            return submitted.get() - started.get();
+        }
+
+        public long getMaxDepth() {
+            return maxDepth.get();
+        }
+
+        public long getAverageWaitMillis() {
+            long n = started.get();
+            return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWait.get() / n);
+        }
+
+        public long getMaxWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxWait.get());
+        }
+
+        @Override
+        public String toString() {
+            return "submitted=" + getSubmitted() + ", depth=" + getDepth() + ", maxDepth=" + getMaxDepth()
+                + ", averageWait=" + getAverageWaitMillis() + "ms, maxWait=" + getMaxWaitMillis() + "ms";
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.javaee7.ejb.async;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.Stateless;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The same work as +MyAsyncBeanMethodLevel+, but returning a +CompletableFuture+ the caller can compose with other
+ * calls instead of blocking in +get()+.
+ *
+ * An +@Asynchronous+ method may only return +void+ or +Future+, and the caller gets the container's own +Future+,
+ * so this method is not asynchronous as far as the container is concerned: it hands the work to the managed
+ * executor and returns at once.
+ */
+@Stateless
+public class MyCompletableAsyncBean {
+
+    public static final long AWAIT = 3000;
+
+    @Resource
+    ManagedExecutorService managedExecutor;
+
+    @Inject
+    AsyncStatistics statistics;
+
+    private Executor executor;
+
+    @PostConstruct
+    void init() {
+        executor = statistics.executor(MyCompletableAsyncBean.class.getSimpleName(), managedExecutor);
+    }
+
+    public CompletableFuture<Integer> addNumbers(int n1, int n2) {
+        return addNumbers(n1, n2, AWAIT);
+    }
+
+    public CompletableFuture<Integer> addNumbers(final int n1, final int n2, final long millis) {
+        return CompletableFuture.supplyAsync(new Supplier<Integer>() {
+            @Override
+            public Integer get() {
+                try {
+                    // simulating a long running query
+                    Thread.sleep(millis);
+                } catch (InterruptedException ex) {
+                    Logger.getLogger(MyCompletableAsyncBean.class.getName()).log(Level.SEVERE, null, ex);
+                }
+                return n1 + n2;
+            }
+        }, executor);
+    }
+
+}
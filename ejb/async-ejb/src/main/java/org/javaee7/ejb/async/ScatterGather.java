@@ -0,0 +1,67 @@
+package org.javaee7.ejb.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Combines the results of many asynchronous calls into one +CompletableFuture+. Nothing waits for the calls: the
+ * combined future is completed by the thread finishing the last call, so fanning out N calls does not park the
+ * caller, nor any other thread, while they run.
+ *
+ * If any call fails, the combined future fails with the same exception.
+ */
+public final class ScatterGather {
+
+    private ScatterGather() {
+    }
+
+    /**
+     * @return a future of the results, in the order of the calls
+     */
+    public static <T> CompletableFuture<List<T>> gather(final List<CompletableFuture<T>> calls) {
+        return CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[calls.size()]))
+            .thenApply(new Function<Void, List<T>>() {
+                @Override
+                public List<T> apply(Void done) {
+                    List<T> results = new ArrayList<>(calls.size());
+                    for (CompletableFuture<T> call : calls) {
+                        // Already completed, join() does not block
+                        results.add(call.join());
+                    }
+                    return results;
+                }
+            });
+    }
+
+    /**
+     * @return a future of the results folded into +identity+, in the order of the calls
+     */
+    public static <T, R> CompletableFuture<R> reduce(List<CompletableFuture<T>> calls, final R identity,
+                                                     final BiFunction<R, ? super T, R> accumulator) {
+        return gather(calls).thenApply(new Function<List<T>, R>() {
+            @Override
+            public R apply(List<T> results) {
+                R result = identity;
+                for (T value : results) {
+                    result = accumulator.apply(result, value);
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Calls +call+ once for each input and gathers the results.
+     */
+    public static <I, T> CompletableFuture<List<T>> scatter(List<I> inputs,
+                                                            Function<? super I, CompletableFuture<T>> call) {
+        List<CompletableFuture<T>> calls = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            calls.add(call.apply(input));
+        }
+        return gather(calls);
+    }
+}
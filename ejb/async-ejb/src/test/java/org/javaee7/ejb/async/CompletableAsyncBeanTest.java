@@ -0,0 +1,137 @@
+package org.javaee7.ejb.async;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.jboss.shrinkwrap.resolver.api.maven.Maven;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static com.jayway.awaitility.Awaitility.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(Arquillian.class)
+public class CompletableAsyncBeanTest {
+
+    private static final int CALLS = 1000;
+    private static final long CALL_MILLIS = 10;
+
+    @Inject
+    MyCompletableAsyncBean bean;
+
+    @Inject
+    AsyncStatistics statistics;
+
+    @Deployment
+    public static WebArchive createDeployment() {
+        File[] jars = Maven.resolver().loadPomFromFile("pom.xml")
+            .resolve("com.jayway.awaitility:awaitility")
+            .withTransitivity().asFile();
+
+        return ShrinkWrap.create(WebArchive.class)
+            .addAsLibraries(jars)
+            .addClasses(MyCompletableAsyncBean.class, AsyncStatistics.class, ScatterGather.class)
+            .addAsManifestResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    @Test
+    public void should_return_composable_sum() throws Exception {
+        final Integer numberOne = 5;
+        final Integer numberTwo = 10;
+
+        long start = System.currentTimeMillis();
+        final CompletableFuture<Integer> resultFuture = bean.addNumbers(numberOne, numberTwo)
+            .thenApply(new Function<Integer, Integer>() {
+                @Override
+                public Integer apply(Integer sum) {
+                    return sum * 2;
+                }
+            });
+
+        assertThat(resultFuture.isDone(), is(equalTo(false)));
+        assertThat(System.currentTimeMillis() - start, is(lessThan(MyCompletableAsyncBean.AWAIT)));
+
+        await().until(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return resultFuture.isDone();
+            }
+        });
+
+        assertThat(resultFuture.get(), is(equalTo((numberOne + numberTwo) * 2)));
+    }
+
+    /**
+     * Fans out +CALLS+ calls and sums their results, once by combining the futures and once by calling +get()+ on
+     * each of them in turn. Combining returns to the caller before any call is finished, blocking parks the caller
+     * until the last one is.
+     */
+    @Test
+    public void should_gather_calls_without_blocking() throws Exception {
+        // Warm up the executor threads
+        sumWithGet();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Integer>> calls = fanOut();
+        CompletableFuture<Integer> sum = ScatterGather.reduce(calls, 0, new BiFunction<Integer, Integer, Integer>() {
+            @Override
+            public Integer apply(Integer total, Integer value) {
+                return total + value;
+            }
+        });
+        long callerNanos = System.nanoTime() - start;
+
+        assertThat(sum.isDone(), is(equalTo(false)));
+        assertThat(sum.get(1, TimeUnit.MINUTES), is(equalTo(expectedSum())));
+        long gatherNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        assertThat(sumWithGet(), is(equalTo(expectedSum())));
+        long getNanos = System.nanoTime() - start;
+
+        AsyncStatistics.Queue queue = statistics.queue(MyCompletableAsyncBean.class.getSimpleName());
+        System.out.format("%d calls gathered in %d ms, caller busy for %d ms%n",
+            CALLS, TimeUnit.NANOSECONDS.toMillis(gatherNanos), TimeUnit.NANOSECONDS.toMillis(callerNanos));
+        System.out.format("%d calls chained with get() in %d ms, caller busy for %d ms%n",
+            CALLS, TimeUnit.NANOSECONDS.toMillis(getNanos), TimeUnit.NANOSECONDS.toMillis(getNanos));
+        System.out.println("Queue of MyCompletableAsyncBean: " + queue);
+
+        assertThat(callerNanos, is(lessThan(gatherNanos)));
+        assertThat(queue.getSubmitted(), is(greaterThanOrEqualTo(3L * CALLS)));
+        assertThat(queue.getMaxDepth(), is(greaterThan(0L)));
+    }
+
+    private int sumWithGet() throws Exception {
+        int total = 0;
+        for (CompletableFuture<Integer> call : fanOut()) {
+            total += call.get();
+        }
+        return total;
+    }
+
+    private List<CompletableFuture<Integer>> fanOut() {
+        List<CompletableFuture<Integer>> calls = new ArrayList<>(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            calls.add(bean.addNumbers(i, 1, CALL_MILLIS));
+        }
+        return calls;
+    }
+
+    private static int expectedSum() {
+        return CALLS * (CALLS - 1) / 2 + CALLS;
+    }
+
+}
@@ -52,6 +52,11 @@ import javax.ejb.Startup;
 @Startup
 @Singleton
 public class MySingleton {
+    /**
+     * How much of the text written so far is kept, so that the cost of a write doesn't grow with every call.
+     */
+    static final int MAX_TEXT_LENGTH = 256;
+
     StringBuilder builder;
 
     @PostConstruct
@@ -68,6 +73,9 @@ public class MySingleton {
     @Lock(LockType.WRITE)
     public String writeSomething(String something) {
         builder.append(something);
+        if (builder.length() > MAX_TEXT_LENGTH) {
+            builder.delete(0, builder.length() - MAX_TEXT_LENGTH);
+        }
         return builder.toString() + " : " + new Date();
     }
 }
@@ -40,33 +40,61 @@
 package org.javaee7.ejb.singleton;
 
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
 
 /**
+ * Neither reads nor writes take a lock. The text is an immutable +String+ replaced with compare-and-set, so a reader
+ * always sees a complete value, and a writer that loses the race just appends again to the newer value. Like
+ * +MySingleton+, it keeps only the last +MySingleton.MAX_TEXT_LENGTH+ characters, so each write copies a bounded
+ * string however many came before. The counters are +LongAdder+s, which keep a cell per contending thread instead of
+ * making them all retry on one value.
+ *
  * @author Arun Gupta
  */
 @Startup
 @Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 public class MySingletonBeanManagedConcurrency {
 
-    volatile StringBuilder builder;
+    private final AtomicReference<String> text = new AtomicReference<>("");
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
 
     @PostConstruct
     private void postConstruct() {
-        builder = new StringBuilder();
         System.out.println("postConstruct");
     }
 
     public String readSomething() {
+        reads.increment();
         return "current timestamp: " + new Date();
     }
 
     public String writeSomething(String something) {
-        synchronized (builder) {
-            builder.append(something);
-        }
-        return builder.toString() + " : " + new Date();
+        writes.increment();
+        String current;
+        String next;
+        do {
+            current = text.get();
+            next = current.concat(something);
+            if (next.length() > MySingleton.MAX_TEXT_LENGTH) {
+                next = next.substring(next.length() - MySingleton.MAX_TEXT_LENGTH);
+            }
+        } while (!text.compareAndSet(current, next));
+        return next + " : " + new Date();
+    }
+
+    public long getReadCount() {
+        return reads.sum();
+    }
+
+    public long getWriteCount() {
+        return writes.sum();
     }
 }
@@ -0,0 +1,203 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.ejb.singleton;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.inject.Inject;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Calls both singletons from many threads at once, with a mix of reads and writes, and prints the calls per second
+ * of the container-managed +@Lock+ bean and of the lock-free bean-managed one.
+ *
+ * Parameters: +threads+ (default 8), +calls+ per thread (default 5000) and +writePercent+ (default 10). The calls
+ * run on the default +ManagedExecutorService+, so fewer than +threads+ of them run at once if its pool is smaller.
+ * Both beans keep the same bounded amount of text, so a write costs the same in both and only the locking differs.
+ */
+@WebServlet(urlPatterns = { "/ThroughputServlet" })
+public class ThroughputServlet extends HttpServlet {
+
+    @Inject
+    MySingleton bean;
+    @Inject
+    MySingletonBeanManagedConcurrency bean2;
+
+    @Resource
+    ManagedExecutorService executor;
+
+    protected void processRequest(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException {
+        int threads = intParameter(request, "threads", 8);
+        int calls = intParameter(request, "calls", 5000);
+        int writePercent = intParameter(request, "writePercent", 10);
+
+        response.setContentType("text/html;charset=UTF-8");
+        try (PrintWriter out = response.getWriter()) {
+            out.println("<!DOCTYPE html>");
+            out.println("<html>");
+            out.println("<head>");
+            out.println("<title>Singleton Bean Throughput</title>");
+            out.println("</head>");
+            out.println("<body>");
+            out.println("<h1>Singleton Bean Throughput</h1>");
+            out.println(threads + " threads, " + calls + " calls each, " + writePercent + "% writes<br>");
+
+            Client container = new Client() {
+                @Override
+                public void call(boolean write) {
+                    if (write) {
+                        bean.writeSomething("x");
+                    } else {
+                        bean.readSomething();
+                    }
+                }
+            };
+            Client beanManaged = new Client() {
+                @Override
+                public void call(boolean write) {
+                    if (write) {
+                        bean2.writeSomething("x");
+                    } else {
+                        bean2.readSomething();
+                    }
+                }
+            };
+
+            // Warm up both beans before measuring
+            run(container, threads, calls / 10, writePercent);
+            run(beanManaged, threads, calls / 10, writePercent);
+
+            out.println("<h2>Container-managed Concurrency</h2>");
+            out.println(run(container, threads, calls, writePercent) + " calls/sec<br>");
+            out.println("<h2>Bean-managed Concurrency</h2>");
+            out.println(run(beanManaged, threads, calls, writePercent) + " calls/sec<br>");
+            out.println(bean2.getReadCount() + " reads and " + bean2.getWriteCount() + " writes so far");
+            out.println("</body>");
+            out.println("</html>");
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+    }
+
+    private long run(final Client client, int threads, final int calls, final int writePercent)
+        throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int j = 0; j < calls; j++) {
+                        client.call(random.nextInt(100) < writePercent);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        return (long) threads * calls * 1000000000L / Math.max(elapsed, 1);
+    }
+
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private interface Client {
+        void call(boolean write);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
+    /**
+     * Handles the HTTP <code>GET</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Short description";
+    }// </editor-fold>
+
+}
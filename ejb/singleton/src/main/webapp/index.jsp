@@ -52,5 +52,7 @@
         <h1>EJB : Singleton</h1>
         
         <a href="${pageContext.request.contextPath}/TestServlet"/>Call bean</a>
+        <br><br>
+        <a href="${pageContext.request.contextPath}/ThroughputServlet"/>Compare throughput</a> of container-managed and bean-managed concurrency
     </body>
 </html>
@@ -6,7 +6,6 @@ import javax.ejb.SessionContext;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
 import javax.ejb.Timer;
-import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import java.util.Collection;
 
@@ -21,13 +20,17 @@ public class AutomaticTimerBean {
     SessionContext ctx;
 
     @Inject
-    Event<Ping> pingEvent;
+    PingBatcher pingBatcher;
 
+    /**
+     * Publishes one ping per timer to the +PingBatcher+, which delivers them together as a +PingBatch+ instead of
+     * calling the observers once per timer from here.
+     */
     @Schedule(hour = "*", minute = "*", second = "*/5", info = "Every 5 second timer")
     public void printDate() {
         Collection<Timer> timers = ctx.getTimerService().getAllTimers();
         for (Timer t : timers) {
-            pingEvent.fire(new Ping(t.getInfo().toString()));
+            pingBatcher.publish(new Ping(t.getInfo().toString()));
         }
     }
 
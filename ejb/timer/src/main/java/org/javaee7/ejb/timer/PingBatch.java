@@ -0,0 +1,27 @@
+package org.javaee7.ejb.timer;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Event carrying the pings published to +PingBatcher+ since the previous batch, oldest first.
+ */
+public class PingBatch {
+
+    private final List<Ping> pings;
+
+    public PingBatch(List<Ping> pings) {
+        this.pings = Collections.unmodifiableList(pings);
+    }
+
+    public List<Ping> getPings() {
+        return pings;
+    }
+
+    @Override
+    public String toString() {
+        return "PingBatch {" +
+            "size=" + pings.size() +
+            '}';
+    }
+}
@@ -0,0 +1,66 @@
+package org.javaee7.ejb.timer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires the published pings as +PingBatch+ events, every +INTERVAL+ milliseconds or as soon as +BATCH_SIZE+ of
+ * them are waiting, instead of one synchronous event per ping. Publishing only claims a slot in a +RingBatcher+,
+ * the observers run on a thread of the managed executor.
+ */
+@Startup
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class PingBatcher {
+
+    public static final long INTERVAL = 100;
+    public static final int BATCH_SIZE = 256;
+    public static final int CAPACITY = 4096;
+
+    @Resource
+    ManagedScheduledExecutorService executor;
+
+    @Inject
+    Event<PingBatch> batchEvent;
+
+    private RingBatcher<Ping> batcher;
+    private ScheduledFuture<?> flush;
+
+    @PostConstruct
+    void start() {
+        batcher = new RingBatcher<>(CAPACITY, BATCH_SIZE, executor);
+        batcher.addListener(new RingBatcher.Listener<Ping>() {
+            @Override
+            public void onBatch(List<Ping> batch) {
+                batchEvent.fire(new PingBatch(batch));
+            }
+        });
+        flush = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                batcher.drain();
+            }
+        }, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        flush.cancel(false);
+        batcher.drain();
+    }
+
+    public void publish(Ping ping) {
+        batcher.offer(ping);
+    }
+}
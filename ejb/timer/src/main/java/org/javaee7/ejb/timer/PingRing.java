@@ -0,0 +1,58 @@
+package org.javaee7.ejb.timer;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last +capacity+ pings, oldest first. Adding a ping overwrites the oldest one once the ring is full, instead of
+ * copying the whole list like a +CopyOnWriteArrayList+ does.
+ *
+ * This is a live view: reads take no lock and see the pings added since. A read racing with an add may see the ping
+ * that replaced the one it asked for.
+ */
+public class PingRing extends AbstractList<Ping> implements RandomAccess {
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final AtomicReferenceArray<Ping> pings;
+    private volatile long count;
+
+    public PingRing() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PingRing(int capacity) {
+        pings = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public synchronized boolean add(Ping ping) {
+        long c = count;
+        pings.set((int) (c % pings.length()), ping);
+        count = c + 1;
+        return true;
+    }
+
+    @Override
+    public Ping get(int index) {
+        long c = count;
+        int size = (int) Math.min(c, pings.length());
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return pings.get((int) ((c - size + index) % pings.length()));
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(count, pings.length());
+    }
+
+    /**
+     * @return the number of pings added, including those overwritten since
+     */
+    public long getCount() {
+        return count;
+    }
+}
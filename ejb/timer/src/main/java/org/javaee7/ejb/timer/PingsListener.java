@@ -4,19 +4,23 @@ import javax.ejb.Singleton;
 import javax.ejb.Startup;
 import javax.enterprise.event.Observes;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @Startup
 @Singleton
 public class PingsListener {
 
-    final List<Ping> pings = new CopyOnWriteArrayList<>();
+    final PingRing pings = new PingRing();
 
     public void listen(@Observes Ping ping) {
         System.out.println("ping = " + ping);
         pings.add(ping);
     }
 
+    public void listen(@Observes PingBatch batch) {
+        System.out.println("pings = " + batch);
+        pings.addAll(batch.getPings());
+    }
+
     public List<Ping> getPings() {
         return pings;
     }
@@ -0,0 +1,141 @@
+package org.javaee7.ejb.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects items from any number of producers and hands them to its listeners in batches.
+ *
+ * Producers claim a slot of a bounded ring with a compare-and-set and never take a lock. Only one thread drains at a
+ * time, in the order the slots were claimed, either when {@link #drain()} is called (typically on an interval) or as
+ * soon as +batchSize+ items are waiting, on the given executor. A producer that finds the ring full drains it itself
+ * before trying again, so nothing is dropped.
+ */
+public class RingBatcher<T> {
+
+    private static final Logger logger = Logger.getLogger(RingBatcher.class.getName());
+
+    /**
+     * Receives the items, at most +batchSize+ at a time.
+     */
+    public interface Listener<T> {
+        void onBatch(List<T> batch);
+    }
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final int batchSize;
+    private final Executor executor;
+    private final List<Listener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicBoolean drainPending = new AtomicBoolean();
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drainPending.set(false);
+            drain();
+        }
+    };
+
+    /**
+     * @param capacity rounded up to a power of two
+     * @param batchSize the largest batch, and the number of waiting items that triggers a drain
+     * @param executor where drains triggered by +batchSize+ run
+     */
+    public RingBatcher(int capacity, int batchSize, Executor executor) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.batchSize = Math.max(1, Math.min(batchSize, size));
+        this.executor = executor;
+    }
+
+    public void addListener(Listener<T> listener) {
+        listeners.add(listener);
+    }
+
+    public void offer(T item) {
+        while (true) {
+            long t = tail.get();
+            if (t - head >= slots.length()) {
+                if (!drain()) {
+                    Thread.yield();
+                }
+                continue;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                slots.set((int) (t & mask), item);
+                if (t + 1 - head >= batchSize && drainPending.compareAndSet(false, true)) {
+                    executor.execute(drainTask);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of items claimed but not delivered yet
+     */
+    public int size() {
+        return (int) (tail.get() - head);
+    }
+
+    /**
+     * Delivers the waiting items, unless another thread is already doing it.
+     *
+     * @return +false+ if another thread was draining
+     */
+    public boolean drain() {
+        if (!drainLock.tryLock()) {
+            return false;
+        }
+        try {
+            long h = head;
+            long t = tail.get();
+            while (h < t) {
+                List<T> batch = new ArrayList<>((int) Math.min(t - h, batchSize));
+                while (h < t && batch.size() < batchSize) {
+                    int index = (int) (h & mask);
+                    T item = slots.get(index);
+                    if (item == null) {
+                        // Claimed but not written yet, the next drain picks it up
+                        break;
+                    }
+                    slots.set(index, null);
+                    batch.add(item);
+                    h++;
+                }
+                head = h;
+                if (batch.isEmpty()) {
+                    break;
+                }
+                deliver(batch);
+            }
+            return true;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void deliver(List<T> batch) {
+        for (Listener<T> listener : listeners) {
+            try {
+                listener.onBatch(batch);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Listener failed on a batch of " + batch.size(), e);
+            }
+        }
+    }
+}
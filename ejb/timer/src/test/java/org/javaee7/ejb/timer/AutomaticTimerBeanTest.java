@@ -38,6 +38,7 @@ public class AutomaticTimerBeanTest {
                         .resolve("com.jayway.awaitility:awaitility")
                         .withTransitivity().asFile())
                 .addClasses(WithinWindowMatcher.class, Ping.class, PingsListener.class, AutomaticTimerBean.class)
+                .addClasses(PingRing.class, PingBatch.class, PingBatcher.class, RingBatcher.class)
                 .addAsWebInfResource(new File("src/main/webapp/WEB-INF/jboss-deployment-structure.xml"));
     }
 
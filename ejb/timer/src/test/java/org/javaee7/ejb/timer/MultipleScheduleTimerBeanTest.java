@@ -39,6 +39,7 @@ public class MultipleScheduleTimerBeanTest {
                         .resolve("com.jayway.awaitility:awaitility")
                         .withTransitivity().asFile())
                 .addClasses(WithinWindowMatcher.class, Ping.class, PingsListener.class, MultipleScheduleTimerBean.class)
+                .addClasses(PingRing.class, PingBatch.class)
                 .addAsWebInfResource(new File("src/main/webapp/WEB-INF/jboss-deployment-structure.xml"));
     }
 
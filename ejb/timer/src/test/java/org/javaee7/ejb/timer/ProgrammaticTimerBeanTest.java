@@ -42,7 +42,9 @@ public class ProgrammaticTimerBeanTest {
                     WithinWindowMatcher.class, 
                     Ping.class, 
                     PingsListener.class, 
-                    ProgrammaticTimerBean.class)
+                    ProgrammaticTimerBean.class,
+                    PingRing.class,
+                    PingBatch.class)
                 .addAsWebInfResource(new File("src/main/webapp/WEB-INF/jboss-deployment-structure.xml"));
                 
     }
@@ -39,6 +39,7 @@ public class SchedulesTimerBeanTest {
                         .resolve("com.jayway.awaitility:awaitility")
                         .withTransitivity().asFile())
                 .addClasses(WithinWindowMatcher.class, Ping.class, PingsListener.class, SchedulesTimerBean.class)
+                .addClasses(PingRing.class, PingBatch.class)
                 .addAsWebInfResource(new File("src/main/webapp/WEB-INF/jboss-deployment-structure.xml"));
     }
 
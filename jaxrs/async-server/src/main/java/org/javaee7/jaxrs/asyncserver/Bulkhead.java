@@ -0,0 +1,215 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.jaxrs.asyncserver;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * Limits how much of the shared executor a single resource may use.
+ *
+ * At most +maxConcurrent+ tasks of the resource run at the same time, the others wait in the bulkhead. Requests are
+ * admitted as long as fewer than +maxConcurrent + maxQueued+ are in flight (waiting, scheduled or running); after that
+ * they are resumed right away with +503 Service Unavailable+ and a +Retry-After+ header.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final ScheduledExecutorService executor;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final int retryAfterSeconds;
+
+    private final Queue<Task> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, ScheduledExecutorService executor, int maxConcurrent, int maxQueued, int retryAfterSeconds) {
+        this.name = name;
+        this.executor = executor;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Runs +work+ as soon as the bulkhead allows it and resumes +response+ with its result.
+     */
+    public void submit(AsyncResponse response, Callable<?> work) {
+        if (admit(response)) {
+            enqueue(new Task(response, work));
+        }
+    }
+
+    /**
+     * Same as +submit+, but queues +work+ only after +delay+. The request counts as in flight while it waits, yet
+     * holds no thread.
+     */
+    public void schedule(AsyncResponse response, Callable<?> work, long delay, TimeUnit unit) {
+        if (!admit(response)) {
+            return;
+        }
+
+        final Task task = new Task(response, work);
+        try {
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    enqueue(task);
+                }
+            }, delay, unit);
+        } catch (RejectedExecutionException e) {
+            task.reject();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private boolean admit(AsyncResponse response) {
+        if (inFlight.incrementAndGet() > maxConcurrent + maxQueued) {
+            inFlight.decrementAndGet();
+            rejected.incrementAndGet();
+            response.resume(unavailable());
+            return false;
+        }
+        return true;
+    }
+
+    private void enqueue(Task task) {
+        waiting.add(task);
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (!waiting.isEmpty()) {
+            int current = running.get();
+            if (current >= maxConcurrent) {
+                // A running task will dispatch the next one when it finishes
+                return;
+            }
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            Task next = waiting.poll();
+            if (next == null) {
+                running.decrementAndGet();
+                continue;
+            }
+
+            try {
+                executor.execute(next);
+            } catch (RejectedExecutionException e) {
+                running.decrementAndGet();
+                next.reject();
+            }
+        }
+    }
+
+    private Response unavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+            .build();
+    }
+
+    private final class Task implements Runnable {
+
+        private final AsyncResponse response;
+        private final Callable<?> work;
+
+        Task(AsyncResponse response, Callable<?> work) {
+            this.response = response;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            try {
+                // Nobody is waiting for the result any more once the request timed out or was cancelled
+                if (!response.isDone()) {
+                    response.resume(work.call());
+                }
+            } catch (Exception e) {
+                response.resume(e);
+            } finally {
+                inFlight.decrementAndGet();
+                completed.incrementAndGet();
+                running.decrementAndGet();
+                dispatch();
+            }
+        }
+
+        void reject() {
+            inFlight.decrementAndGet();
+            rejected.incrementAndGet();
+            response.resume(unavailable());
+        }
+    }
+}
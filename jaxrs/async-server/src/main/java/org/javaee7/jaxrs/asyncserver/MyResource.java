@@ -39,12 +39,13 @@
  */
 package org.javaee7.jaxrs.asyncserver;
 
-import java.util.concurrent.Executors;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
-import javax.enterprise.concurrent.ManagedThreadFactory;
-import javax.naming.InitialContext;
-import javax.naming.NamingException;
+import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.container.AsyncResponse;
@@ -54,17 +55,26 @@ import javax.ws.rs.container.Suspended;
 import javax.ws.rs.container.TimeoutHandler;
 
 /**
+ * The response is produced on the shared +AsyncExecutor+, within the limits of the +fruits+ bulkhead. The three
+ * seconds it takes to get it are a scheduled delay, so a suspended request holds no thread while it waits.
+ *
  * @author Arun Gupta
  */
 @Path("fruits")
 public class MyResource {
+    private static final Logger logger = Logger.getLogger(MyResource.class.getName());
+
+    static final int MAX_CONCURRENT = 8;
+    static final int MAX_QUEUED = 20000;
+    static final int RETRY_AFTER_SECONDS = 3;
+
     private final String[] response = { "apple", "banana", "mango" };
 
-    //    @Resource(name = "DefaultManagedThreadFactory")
-    //    ManagedThreadFactory threadFactory;
+    @Inject
+    private AsyncExecutor executor;
 
     @GET
-    public void getList(@Suspended final AsyncResponse ar) throws NamingException {
+    public void getList(@Suspended final AsyncResponse ar) {
         ar.setTimeoutHandler(new TimeoutHandler() {
 
             @Override
@@ -77,29 +87,41 @@ public class MyResource {
         ar.register(new MyCompletionCallback());
         ar.register(new MyConnectionCallback());
 
-        ManagedThreadFactory threadFactory = (ManagedThreadFactory) new InitialContext()
-            .lookup("java:comp/DefaultManagedThreadFactory");
-
-        Executors.newSingleThreadExecutor(threadFactory).submit(new Runnable() {
+        bulkhead().schedule(ar, new Callable<String>() {
 
             @Override
-            public void run() {
-                try {
-                    Thread.sleep(3000);
-                    ar.resume(response[0]);
-                } catch (InterruptedException ex) {
-
-                }
+            public String call() {
+                return response[0];
             }
 
-        });
+        }, 3000, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Thread counts of the server and the state of the bulkhead, as +name=value+ lines.
+     */
+    @GET
+    @Path("stats")
+    public String getStats() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Bulkhead bulkhead = bulkhead();
+        return "threads=" + threads.getThreadCount() + "\n"
+            + "peakThreads=" + threads.getPeakThreadCount() + "\n"
+            + "inFlight=" + bulkhead.getInFlight() + "\n"
+            + "running=" + bulkhead.getRunning() + "\n"
+            + "completed=" + bulkhead.getCompleted() + "\n"
+            + "rejected=" + bulkhead.getRejected() + "\n";
+    }
+
+    private Bulkhead bulkhead() {
+        return executor.bulkhead("fruits", MAX_CONCURRENT, MAX_QUEUED, RETRY_AFTER_SECONDS);
     }
 
     class MyCompletionCallback implements CompletionCallback {
 
         @Override
         public void onComplete(Throwable t) {
-            System.out.println("onComplete");
+            logger.fine("onComplete");
         }
 
     }
@@ -108,7 +130,7 @@ public class MyResource {
 
         @Override
         public void onDisconnect(AsyncResponse ar) {
-            System.out.println("onDisconnect");
+            logger.fine("onDisconnect");
         }
 
     }
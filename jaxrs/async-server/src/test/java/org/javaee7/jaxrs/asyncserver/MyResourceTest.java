@@ -1,14 +1,27 @@
 package org.javaee7.jaxrs.asyncserver;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
 
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit.Arquillian;
@@ -28,9 +41,21 @@ public class MyResourceTest {
     @Deployment(testable = false)
     public static WebArchive createDeployment() {
         return ShrinkWrap.create(WebArchive.class)
-            .addClasses(MyApplication.class, MyResource.class);
+            .addClasses(MyApplication.class, MyResource.class, AsyncExecutor.class, Bulkhead.class);
     }
 
+    /**
+     * Number of requests suspended at the same time by +testLoad+. It is kept small so that regular builds stay fast;
+     * run with +-Dasyncserver.load.requests=10000+ to fill the bulkhead and see the thread count stay flat.
+     */
+    private static final int LOAD_REQUESTS = Integer.getInteger("asyncserver.load.requests", 100);
+
+    /**
+     * How many threads the server may start while the load test runs. The requests are suspended, so the thread count
+     * should stay flat whatever +LOAD_REQUESTS+ is.
+     */
+    private static final int MAX_EXTRA_THREADS = 100;
+
     private WebTarget target;
 
     @ArquillianResource
@@ -51,4 +76,95 @@ public class MyResourceTest {
         assertEquals("apple", result);
     }
 
+    /**
+     * Suspends +LOAD_REQUESTS+ requests at once. Each one is either answered, or rejected with +503+ and a
+     * +Retry-After+ header once the bulkhead is full, and the number of server threads, sampled during the test,
+     * stays flat. Prints the latency percentiles and the thread counts.
+     */
+    @Test
+    public void testLoad() throws Exception {
+        final int baselineThreads = stats().get("threads");
+        final AtomicInteger maxThreads = new AtomicInteger(baselineThreads);
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                maxThreads.set(Math.max(maxThreads.get(), stats().get("threads")));
+            }
+        }, 0, 200, TimeUnit.MILLISECONDS);
+
+        final long[] latencies = new long[LOAD_REQUESTS];
+        final AtomicInteger ok = new AtomicInteger();
+        final AtomicInteger unavailable = new AtomicInteger();
+        final AtomicInteger timedOut = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(LOAD_REQUESTS);
+
+        try {
+            for (int i = 0; i < LOAD_REQUESTS; i++) {
+                final int request = i;
+                final long start = System.nanoTime();
+                target.request().async().get(new InvocationCallback<Response>() {
+
+                    @Override
+                    public void completed(Response response) {
+                        latencies[request] = System.nanoTime() - start;
+                        if (response.getStatus() == 200) {
+                            if ("apple".equals(response.readEntity(String.class))) {
+                                ok.incrementAndGet();
+                            } else {
+                                timedOut.incrementAndGet();
+                            }
+                        } else if (response.getStatus() == 503 && response.getHeaderString(HttpHeaders.RETRY_AFTER) != null) {
+                            unavailable.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                        response.close();
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void failed(Throwable throwable) {
+                        latencies[request] = System.nanoTime() - start;
+                        failed.incrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+
+            assertTrue(done.await(2, TimeUnit.MINUTES));
+        } finally {
+            sampler.shutdownNow();
+        }
+
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.format("%d requests: %d ok, %d rejected with 503, %d timed out, %d failed%n",
+            LOAD_REQUESTS, ok.get(), unavailable.get(), timedOut.get(), failed.get());
+        System.out.format("latency p50 %d ms, p99 %d ms, max %d ms%n",
+            TimeUnit.NANOSECONDS.toMillis(percentile(sorted, 0.50)),
+            TimeUnit.NANOSECONDS.toMillis(percentile(sorted, 0.99)),
+            TimeUnit.NANOSECONDS.toMillis(sorted[sorted.length - 1]));
+        System.out.format("server threads: %d before, %d at most during the test%n", baselineThreads, maxThreads.get());
+
+        assertEquals(0, failed.get());
+        assertTrue(maxThreads.get() - baselineThreads < MAX_EXTRA_THREADS);
+    }
+
+    private Map<String, Integer> stats() {
+        String stats = target.path("stats").request().get(String.class);
+        Map<String, Integer> values = new HashMap<>();
+        for (String line : stats.split("\n")) {
+            String[] nameAndValue = line.split("=");
+            values.put(nameAndValue[0], Integer.valueOf(nameAndValue[1]));
+        }
+        assertNotNull(values.get("threads"));
+        return values;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile) - 1)];
+    }
 }
@@ -18,7 +18,8 @@ import javax.xml.bind.annotation.XmlRootElement;
 @Entity
 @Table(name = "REST_DB_ACCESS")
 @NamedQueries({
-    @NamedQuery(name = "Employee.findAll", query = "SELECT e FROM Employee e")
+    @NamedQuery(name = "Employee.findAll", query = "SELECT e FROM Employee e"),
+    @NamedQuery(name = "Employee.findPage", query = "SELECT e FROM Employee e WHERE e.id > :afterId ORDER BY e.id")
 })
 @XmlRootElement
 public class Employee implements Serializable {
@@ -0,0 +1,25 @@
+package org.javaee7.jaxrs.dbaccess;
+
+import java.util.List;
+
+import javax.ejb.Stateless;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Each call runs in its own transaction, so the employees it returns are detached and can be garbage collected as
+ * soon as the caller is done with them.
+ */
+@Stateless
+public class EmployeeRepository {
+
+    @PersistenceContext
+    EntityManager em;
+
+    public List<Employee> findPage(int afterId, int maxResults) {
+        return em.createNamedQuery("Employee.findPage", Employee.class)
+            .setParameter("afterId", afterId)
+            .setMaxResults(maxResults)
+            .getResultList();
+    }
+}
@@ -1,6 +1,10 @@
 package org.javaee7.jaxrs.dbaccess;
 
+import java.util.List;
+
+import javax.ejb.EJB;
 import javax.ejb.Stateless;
+import javax.json.stream.JsonGenerator;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.ws.rs.GET;
@@ -14,12 +18,44 @@ import javax.ws.rs.Produces;
 @Stateless
 public class EmployeeResource {
 
+    static final int PAGE_SIZE = 500;
+
     @PersistenceContext
     EntityManager em;
 
+    @EJB
+    EmployeeRepository repository;
+
     @GET
-    @Produces("application/xml")
+    @Produces("application/xml;qs=1")
     public Employee[] get() {
         return em.createNamedQuery("Employee.findAll", Employee.class).getResultList().toArray(new Employee[0]);
     }
+
+    /**
+     * Streams all the employees as a JSON array, or as NDJSON, fetching them +PAGE_SIZE+ at a time while the
+     * response is written. NDJSON ranks below the array, so it is only sent to clients that ask for it.
+     */
+    @GET
+    @Produces({ "application/json;qs=0.5", JsonStream.NDJSON + ";qs=0.4" })
+    public JsonStream<Employee> stream() {
+        final EmployeeRepository pages = repository;
+        return new JsonStream<>(new KeysetIterator<Employee>(PAGE_SIZE) {
+
+            @Override
+            protected List<Employee> fetch(Employee last, int maxResults) {
+                return pages.findPage(last == null ? Integer.MIN_VALUE : last.getId(), maxResults);
+            }
+        }, new JsonStream.ItemWriter<Employee>() {
+
+            @Override
+            public void write(Employee employee, JsonGenerator generator) {
+                generator.writeStartObject().write("id", employee.getId());
+                if (employee.getName() != null) {
+                    generator.write("name", employee.getName());
+                }
+                generator.writeEnd();
+            }
+        });
+    }
 }
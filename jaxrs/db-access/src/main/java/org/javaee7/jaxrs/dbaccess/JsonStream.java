@@ -0,0 +1,38 @@
+package org.javaee7.jaxrs.dbaccess;
+
+import java.util.Iterator;
+
+import javax.json.stream.JsonGenerator;
+
+/**
+ * A collection to be written as it is iterated: +JsonStreamWriter+ writes each item as soon as the iterator hands
+ * it out, so neither the whole collection nor the whole document is ever held in memory.
+ */
+public class JsonStream<T> {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * Writes one item as a JSON value.
+     */
+    public interface ItemWriter<T> {
+
+        void write(T item, JsonGenerator generator);
+    }
+
+    private final Iterator<T> items;
+    private final ItemWriter<T> writer;
+
+    public JsonStream(Iterator<T> items, ItemWriter<T> writer) {
+        this.items = items;
+        this.writer = writer;
+    }
+
+    public Iterator<T> getItems() {
+        return items;
+    }
+
+    public ItemWriter<T> getWriter() {
+        return writer;
+    }
+}
@@ -0,0 +1,109 @@
+package org.javaee7.jaxrs.dbaccess;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Writes a +JsonStream+ through +JsonGenerator+, either as one JSON array or as newline delimited JSON, one value per
+ * line. Output is flushed every +FLUSH_EVERY+ items, so that the client gets the first items while the rest are still
+ * being fetched.
+ */
+@Provider
+@Produces({ MediaType.APPLICATION_JSON, JsonStream.NDJSON })
+public class JsonStreamWriter implements MessageBodyWriter<JsonStream<?>> {
+
+    private static final int FLUSH_EVERY = 100;
+
+    private static final JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(Collections.<String, Object> emptyMap());
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type type1, Annotation[] antns, MediaType mt) {
+        return JsonStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(JsonStream<?> t, Class<?> type, Type type1, Annotation[] antns, MediaType mt) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(JsonStream<?> t,
+        Class<?> type,
+        Type type1,
+        Annotation[] antns,
+        MediaType mt,
+        MultivaluedMap<String, Object> mm,
+        OutputStream out) throws IOException, WebApplicationException {
+        if (mt.isCompatible(MediaType.valueOf(JsonStream.NDJSON))) {
+            writeLines(t, out);
+        } else {
+            writeArray(t, out);
+        }
+    }
+
+    private static <T> void writeArray(JsonStream<T> stream, OutputStream out) {
+        JsonGenerator generator = GENERATORS.createGenerator(out, StandardCharsets.UTF_8);
+        generator.writeStartArray();
+        int count = 0;
+        Iterator<T> items = stream.getItems();
+        while (items.hasNext()) {
+            stream.getWriter().write(items.next(), generator);
+            if (++count % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        }
+        generator.writeEnd();
+        // Flush but don't close, the container owns the entity stream
+        generator.flush();
+    }
+
+    private static <T> void writeLines(JsonStream<T> stream, OutputStream out) throws IOException {
+        Writer writer = new NonClosingWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        int count = 0;
+        Iterator<T> items = stream.getItems();
+        while (items.hasNext()) {
+            // A generator writes a single root value, so each line gets its own
+            JsonGenerator generator = GENERATORS.createGenerator(writer);
+            stream.getWriter().write(items.next(), generator);
+            generator.close();
+            writer.write('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Lets each line's generator be closed, which writes out what it has buffered, without closing or flushing the
+     * entity stream. Only +writeLines+ flushes, every +FLUSH_EVERY+ items.
+     */
+    private static final class NonClosingWriter extends FilterWriter {
+
+        NonClosingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
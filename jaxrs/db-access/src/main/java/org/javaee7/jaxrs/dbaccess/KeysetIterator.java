@@ -0,0 +1,52 @@
+package org.javaee7.jaxrs.dbaccess;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over a result one page at a time: the next page is fetched only when the current one is exhausted, and
+ * starts right after the last item seen, so that only one page is ever held in memory and no page is slower than the
+ * first one (as it would be with an offset).
+ */
+public abstract class KeysetIterator<T> implements Iterator<T> {
+
+    private final int pageSize;
+    private Iterator<T> page = Collections.emptyIterator();
+    private T last;
+    private boolean exhausted;
+
+    protected KeysetIterator(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns at most +maxResults+ items following +last+, in key order; +last+ is +null+ for the first page.
+     */
+    protected abstract List<T> fetch(T last, int maxResults);
+
+    @Override
+    public boolean hasNext() {
+        if (!page.hasNext() && !exhausted) {
+            List<T> items = fetch(last, pageSize);
+            exhausted = items.size() < pageSize;
+            page = items.iterator();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        last = page.next();
+        return last;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -1,8 +1,11 @@
 package org.javaee7.jaxrs.dbaccess;
 
+import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import javax.json.Json;
+import javax.json.JsonArray;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
@@ -30,6 +33,10 @@ public class EmployeeResourceTest {
         return ShrinkWrap.create(WebArchive.class)
             .addClasses(Employee.class,
                 EmployeeResource.class,
+                EmployeeRepository.class,
+                KeysetIterator.class,
+                JsonStream.class,
+                JsonStreamWriter.class,
                 MyApplication.class)
             .addAsResource("META-INF/persistence.xml")
             .addAsResource("META-INF/load.sql");
@@ -62,4 +69,27 @@ public class EmployeeResourceTest {
         assertFalse(list[7].equals(new Employee("Priya")));
     }
 
+    @Test
+    public void testStreamJsonArray() {
+        String json = target
+            .request(MediaType.APPLICATION_JSON)
+            .get(String.class);
+        JsonArray array = Json.createReader(new StringReader(json)).readArray();
+        assertEquals(8, array.size());
+        assertEquals("Penny", array.getJsonObject(0).getString("name"));
+        assertEquals("Priya", array.getJsonObject(7).getString("name"));
+        for (int i = 1; i < array.size(); i++) {
+            assertTrue(array.getJsonObject(i - 1).getInt("id") < array.getJsonObject(i).getInt("id"));
+        }
+    }
+
+    @Test
+    public void testStreamNdjson() {
+        String ndjson = target
+            .request(JsonStream.NDJSON)
+            .get(String.class);
+        String[] lines = ndjson.split("\n");
+        assertEquals(8, lines.length);
+        assertEquals("Sheldon", Json.createReader(new StringReader(lines[1])).readObject().getString("name"));
+    }
 }
@@ -0,0 +1,59 @@
+package org.javaee7.jaxrs.fileupload;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The +Content-Range: bytes first-last/total+ header of a part of a resumable upload.
+ */
+public class ContentRange {
+
+    private static final Pattern PATTERN = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    private final long first;
+    private final long last;
+    private final long total;
+
+    private ContentRange(long first, long last, long total) {
+        this.first = first;
+        this.last = last;
+        this.total = total;
+    }
+
+    /**
+     * Returns +null+ if +header+ is +null+.
+     *
+     * @throws IllegalArgumentException if the header is malformed or the range is not within the total
+     */
+    public static ContentRange parse(String header) {
+        if (header == null) {
+            return null;
+        }
+        Matcher matcher = PATTERN.matcher(header.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Malformed Content-Range: " + header);
+        }
+        ContentRange range = new ContentRange(
+            Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3)));
+        if (range.first > range.last || range.last >= range.total) {
+            throw new IllegalArgumentException("Invalid Content-Range: " + header);
+        }
+        return range;
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    public long getLast() {
+        return last;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getLength() {
+        return last - first + 1;
+    }
+}
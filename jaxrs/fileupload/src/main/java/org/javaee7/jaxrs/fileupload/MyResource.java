@@ -6,10 +6,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.regex.Pattern;
 
+import javax.inject.Inject;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.HEAD;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -20,6 +27,17 @@ import javax.ws.rs.core.Response;
 @Path("/endpoint")
 public class MyResource {
 
+    /**
+     * Status returned for a part of a resumable upload that does not complete it, as in the resumable upload
+     * protocols that use +Content-Range+.
+     */
+    static final int RESUME_INCOMPLETE = 308;
+
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    @Inject
+    UploadStore store;
+
     @POST
     @Path("/upload")
     @Consumes(MediaType.APPLICATION_OCTET_STREAM)
@@ -58,4 +76,90 @@ public class MyResource {
         }
     }
 
+    /**
+     * Stores the body as the file +name+, counting bytes and computing its SHA-256 digest while it streams in.
+     *
+     * Without +Content-Range+ the body replaces the whole file. With +Content-Range: bytes first-last/total+ it is one
+     * part of a resumable upload: +first+ must be the length stored so far. The response is +308+ with
+     * +Range: bytes=0-last+ until +total+ bytes are stored, then +201+. The +Digest+ header always holds the digest of
+     * what is stored.
+     */
+    @PUT
+    @Path("/files/{name}")
+    @Consumes({ MediaType.APPLICATION_OCTET_STREAM, "image/png" })
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response putFile(@PathParam("name") String name,
+        @HeaderParam("Content-Range") String contentRange,
+        InputStream content) {
+        if (!FILE_NAME.matcher(name).matches()) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        try {
+            ContentRange range = ContentRange.parse(contentRange);
+            UploadStore.Status status = range == null
+                ? store.write(name, content, null, Long.MAX_VALUE)
+                : store.write(name, content, range.getFirst(), range.getLength());
+
+            Response.ResponseBuilder response = range == null || status.getLength() == range.getTotal()
+                ? Response.status(Response.Status.CREATED)
+                : Response.status(RESUME_INCOMPLETE).header("Range", "bytes=0-" + (status.getLength() - 1));
+            return response
+                .header("Digest", "SHA-256=" + status.getChecksum())
+                .entity(status.getLength())
+                .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (UploadConflictException e) {
+            Response.ResponseBuilder response = Response.status(Response.Status.CONFLICT).entity(e.getMessage());
+            if (e.getStoredLength() > 0) {
+                response.header("Range", "bytes=0-" + (e.getStoredLength() - 1));
+            }
+            return response.build();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Response.serverError().build();
+        }
+    }
+
+    /**
+     * Tells a client where to resume: +Range: bytes=0-last+ and the +Digest+ of what is stored, +404+ if nothing is.
+     */
+    @HEAD
+    @Path("/files/{name}")
+    public Response headFile(@PathParam("name") String name) {
+        if (!FILE_NAME.matcher(name).matches()) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        try {
+            UploadStore.Status status = store.status(name);
+            if (status == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            Response.ResponseBuilder response = Response.ok().header("Digest", "SHA-256=" + status.getChecksum());
+            if (status.getLength() > 0) {
+                response.header("Range", "bytes=0-" + (status.getLength() - 1));
+            }
+            return response.build();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Response.serverError().build();
+        }
+    }
+
+    @DELETE
+    @Path("/files/{name}")
+    public Response deleteFile(@PathParam("name") String name) {
+        if (!FILE_NAME.matcher(name).matches()) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        try {
+            return store.delete(name) ? Response.noContent().build() : Response.status(Response.Status.NOT_FOUND).build();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Response.serverError().build();
+        }
+    }
 }
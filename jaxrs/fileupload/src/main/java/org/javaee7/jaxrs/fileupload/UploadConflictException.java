@@ -0,0 +1,23 @@
+package org.javaee7.jaxrs.fileupload;
+
+/**
+ * A part of an upload did not start where the stored file ends, or the upload was busy with another request.
+ */
+public class UploadConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long storedLength;
+
+    public UploadConflictException(long storedLength) {
+        super(storedLength < 0 ? "Upload in progress" : "Upload continues at byte " + storedLength);
+        this.storedLength = storedLength;
+    }
+
+    /**
+     * Length stored so far, -1 if unknown because another request holds the upload.
+     */
+    public long getStoredLength() {
+        return storedLength;
+    }
+}
@@ -0,0 +1,238 @@
+package org.javaee7.jaxrs.fileupload;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Stores uploads in a directory, byte for byte, and keeps a SHA-256 digest of each one up to date as the bytes
+ * arrive, so that a file is never read again to compute its checksum.
+ *
+ * An upload can be sent in several parts; each part must start where the stored file ends. The digest state lives in
+ * memory: after a restart it is rebuilt from the stored bytes the first time the upload is resumed.
+ *
+ * The content is copied through pooled buffers into a +FileChannel+. JAX-RS hands the body over as an
+ * +InputStream+, so there is no channel to +transferFrom+, and the bytes have to pass through the digest anyway.
+ */
+@ApplicationScoped
+public class UploadStore {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int POOLED_BUFFERS = 32;
+
+    private final ConcurrentMap<String, Upload> uploads = new ConcurrentHashMap<>();
+    private final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+    private Path directory;
+
+    @PostConstruct
+    void createDirectory() {
+        try {
+            directory = Files.createDirectories(Paths.get(System.getProperty("java.io.tmpdir"), "javaee7-fileupload"));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes +content+ at +offset+, or replaces the whole upload when +offset+ is +null+. At most +maxBytes+ are
+     * read; a body longer than that is rejected.
+     *
+     * @throws UploadConflictException if +offset+ is not the current length of the upload, or another request is
+     * writing to it
+     */
+    public Status write(String name, InputStream content, Long offset, long maxBytes) throws IOException {
+        Upload upload = upload(name);
+        if (!upload.lock.tryLock()) {
+            throw new UploadConflictException(-1);
+        }
+        try {
+            if (offset == null) {
+                upload.digest = sha256();
+                upload.length = 0;
+                Files.deleteIfExists(upload.file);
+            } else {
+                recover(upload);
+                if (offset != upload.length) {
+                    throw new UploadConflictException(upload.length);
+                }
+            }
+
+            byte[] buffer = acquire();
+            try (FileChannel channel = FileChannel.open(upload.file, CREATE, WRITE)) {
+                channel.position(upload.length);
+                long remaining = maxBytes;
+                int read;
+                while (remaining > 0 && (read = content.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                    ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes);
+                    }
+                    upload.digest.update(buffer, 0, read);
+                    upload.length += read;
+                    remaining -= read;
+                }
+                if (remaining == 0 && content.read() != -1) {
+                    throw new IllegalArgumentException("Body is longer than the declared range");
+                }
+            } catch (IOException | RuntimeException e) {
+                // What was written may not match the digest any more, start again from the file next time
+                upload.digest = null;
+                throw e;
+            } finally {
+                release(buffer);
+            }
+
+            return new Status(upload.length, checksum(upload.digest));
+        } finally {
+            upload.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how far the upload got, or +null+ if there is none.
+     */
+    public Status status(String name) throws IOException {
+        Upload upload = upload(name);
+        upload.lock.lock();
+        try {
+            if (!Files.exists(upload.file)) {
+                return null;
+            }
+            recover(upload);
+            return new Status(upload.length, checksum(upload.digest));
+        } finally {
+            upload.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the upload, returns +false+ if there was none.
+     */
+    public boolean delete(String name) throws IOException {
+        Upload upload = upload(name);
+        upload.lock.lock();
+        try {
+            uploads.remove(name, upload);
+            return Files.deleteIfExists(upload.file);
+        } finally {
+            upload.lock.unlock();
+        }
+    }
+
+    private Upload upload(String name) {
+        Upload upload = uploads.get(name);
+        if (upload == null) {
+            Upload created = new Upload(directory.resolve(name));
+            upload = uploads.putIfAbsent(name, created);
+            if (upload == null) {
+                upload = created;
+            }
+        }
+        return upload;
+    }
+
+    private void recover(Upload upload) throws IOException {
+        if (upload.digest != null) {
+            return;
+        }
+
+        MessageDigest digest = sha256();
+        long length = 0;
+        if (Files.exists(upload.file)) {
+            byte[] buffer = acquire();
+            try (FileChannel channel = FileChannel.open(upload.file, READ)) {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer);
+                int read;
+                while ((read = channel.read(bytes)) != -1) {
+                    digest.update(buffer, 0, read);
+                    length += read;
+                    bytes.clear();
+                }
+            } finally {
+                release(buffer);
+            }
+        }
+        upload.digest = digest;
+        upload.length = length;
+    }
+
+    private byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    private void release(byte[] buffer) {
+        buffers.offer(buffer);
+    }
+
+    private static String checksum(MessageDigest digest) {
+        try {
+            return DatatypeConverter.printBase64Binary(((MessageDigest) digest.clone()).digest());
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Length and SHA-256 digest, base64 encoded, of what is stored so far.
+     */
+    public static class Status {
+
+        private final long length;
+        private final String checksum;
+
+        Status(long length, String checksum) {
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+    }
+
+    private static final class Upload {
+
+        private final Path file;
+        private final ReentrantLock lock = new ReentrantLock();
+        private MessageDigest digest;
+        private long length;
+
+        Upload(Path file) {
+            this.file = file;
+        }
+    }
+}
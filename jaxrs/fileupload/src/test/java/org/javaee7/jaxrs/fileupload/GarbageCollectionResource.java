@@ -0,0 +1,31 @@
+package org.javaee7.jaxrs.fileupload;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Diagnostics resource only deployed by the tests, so that they can compare the GC pressure of the upload paths.
+ */
+@Path("/gc")
+public class GarbageCollectionResource {
+
+    /**
+     * Number and total time in milliseconds of the garbage collections so far, as +collections time+.
+     */
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public String getGarbageCollections() {
+        long collections = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(collector.getCollectionCount(), 0);
+            time += Math.max(collector.getCollectionTime(), 0);
+        }
+        return collections + " " + time;
+    }
+}
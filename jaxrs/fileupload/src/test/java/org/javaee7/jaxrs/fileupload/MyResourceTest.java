@@ -5,9 +5,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.UUID;
+
+import javax.xml.bind.DatatypeConverter;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
@@ -35,9 +44,16 @@ import org.junit.runner.RunWith;
 @RunWith(Arquillian.class)
 public class MyResourceTest {
 
+    /**
+     * Size of the benchmark uploads. It is kept small so that regular builds stay fast; run with
+     * +-Dfileupload.benchmark.megabytes=1024+ for a meaningful comparison.
+     */
+    private static final int BENCHMARK_MEGABYTES = Integer.getInteger("fileupload.benchmark.megabytes", 4);
+
     @Deployment(testable = false)
     public static WebArchive createDeployment() {
-        return ShrinkWrap.create(WebArchive.class).addClasses(MyApplication.class, MyResource.class);
+        return ShrinkWrap.create(WebArchive.class).addClasses(MyApplication.class, MyResource.class,
+            UploadStore.class, UploadConflictException.class, ContentRange.class, GarbageCollectionResource.class);
     }
 
     private static WebTarget target;
@@ -105,4 +121,113 @@ public class MyResourceTest {
         assertThat(uploadedFileSize).isEqualTo(1000);
     }
 
+    @Test
+    public void shouldStoreFileWithDigest() throws Exception {
+        // when
+        Response response = target.path("/files/{name}").resolveTemplate("name", uniqueName()).request()
+            .put(Entity.entity(tempFile, MediaType.APPLICATION_OCTET_STREAM));
+        // then
+        assertThat(response.getStatus()).isEqualTo(Status.CREATED.getStatusCode());
+        assertThat(response.readEntity(Long.class)).isEqualTo(1000);
+        assertThat(response.getHeaderString("Digest")).isEqualTo("SHA-256=" + sha256(Files.readAllBytes(tempFile.toPath())));
+    }
+
+    @Test
+    public void shouldResumeUploadWithContentRange() throws Exception {
+        byte[] content = Files.readAllBytes(tempFile.toPath());
+        String name = uniqueName();
+
+        // when the first part is sent
+        Response response = target.path("/files/{name}").resolveTemplate("name", name).request()
+            .header("Content-Range", "bytes 0-399/1000")
+            .put(Entity.entity(Arrays.copyOfRange(content, 0, 400), MediaType.APPLICATION_OCTET_STREAM));
+        // then the upload is incomplete
+        assertThat(response.getStatus()).isEqualTo(MyResource.RESUME_INCOMPLETE);
+        assertThat(response.getHeaderString("Range")).isEqualTo("bytes=0-399");
+
+        // and the client can ask where to resume
+        response = target.path("/files/{name}").resolveTemplate("name", name).request().head();
+        assertThat(response.getHeaderString("Range")).isEqualTo("bytes=0-399");
+
+        // when the rest is sent
+        response = target.path("/files/{name}").resolveTemplate("name", name).request()
+            .header("Content-Range", "bytes 400-999/1000")
+            .put(Entity.entity(Arrays.copyOfRange(content, 400, 1000), MediaType.APPLICATION_OCTET_STREAM));
+        // then the digest covers the whole file
+        assertThat(response.getStatus()).isEqualTo(Status.CREATED.getStatusCode());
+        assertThat(response.getHeaderString("Digest")).isEqualTo("SHA-256=" + sha256(content));
+    }
+
+    @Test
+    public void shouldNotAcceptPartOutOfOrder() {
+        // when
+        Response response = target.path("/files/{name}").resolveTemplate("name", uniqueName()).request()
+            .header("Content-Range", "bytes 500-999/1000")
+            .put(Entity.entity(new byte[500], MediaType.APPLICATION_OCTET_STREAM));
+        // then
+        assertThat(response.getStatus()).isEqualTo(Status.CONFLICT.getStatusCode());
+    }
+
+    /**
+     * Sends +BENCHMARK_MEGABYTES+ to the reader-based +/upload+ and to +/files+, streamed from the client, and prints
+     * the throughput and the garbage collections the server went through for each.
+     */
+    @Test
+    public void benchmarkUploads() throws Exception {
+        // Warm up both paths before measuring
+        String name = uniqueName();
+        upload("upload", "POST", 16);
+        upload("files/" + name, "PUT", 16);
+
+        report("Reader /upload", "upload", "POST");
+        report("Byte   /files ", "files/" + name, "PUT");
+
+        target.path("/files/{name}").resolveTemplate("name", name).request().delete();
+    }
+
+    private void report(String label, String path, String method) throws Exception {
+        long[] gcBefore = garbageCollections();
+        long start = System.nanoTime();
+        upload(path, method, BENCHMARK_MEGABYTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long[] gcAfter = garbageCollections();
+
+        System.out.format("%s: %.1f MB/s, %d collections, %d ms in GC on the server%n",
+            label, BENCHMARK_MEGABYTES / seconds, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    private void upload(String path, String method, int megabytes) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(base, "webresources/endpoint/" + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Content-Type", MediaType.APPLICATION_OCTET_STREAM);
+        connection.setChunkedStreamingMode(64 * 1024);
+        connection.setDoOutput(true);
+
+        byte[] chunk = new byte[1024 * 1024];
+        try (OutputStream output = connection.getOutputStream()) {
+            for (int i = 0; i < megabytes; i++) {
+                output.write(chunk);
+            }
+        }
+        assertThat(connection.getResponseCode()).isLessThan(300);
+        try (InputStream input = connection.getInputStream()) {
+            while (input.read(chunk) != -1) {
+                // drain the response
+            }
+        }
+    }
+
+    private long[] garbageCollections() throws MalformedURLException {
+        String[] values = ClientBuilder.newClient().target(URI.create(new URL(base, "webresources/gc").toExternalForm()))
+            .request().get(String.class).trim().split(" ");
+        return new long[] { Long.parseLong(values[0]), Long.parseLong(values[1]) };
+    }
+
+    private static String uniqueName() {
+        return "upload-" + UUID.randomUUID();
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return DatatypeConverter.printBase64Binary(MessageDigest.getInstance("SHA-256").digest(content));
+    }
 }
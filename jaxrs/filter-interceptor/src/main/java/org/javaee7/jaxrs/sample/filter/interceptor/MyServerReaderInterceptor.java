@@ -39,34 +39,49 @@
  */
 package org.javaee7.jaxrs.sample.filter.interceptor;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.ext.Provider;
 import javax.ws.rs.ext.ReaderInterceptor;
 import javax.ws.rs.ext.ReaderInterceptorContext;
 
 /**
+ * Logs the start of each request body at +FINE+. Only the first +LOG_LIMIT+ bytes are read ahead, then the stream
+ * is reset so that the reader gets the whole body.
+ *
  * @author Arun Gupta
  */
 @Provider
 public class MyServerReaderInterceptor implements ReaderInterceptor {
 
+    static final int LOG_LIMIT = 1024;
+
+    private static final Logger logger = Logger.getLogger(MyServerReaderInterceptor.class.getName());
+
     @Override
     public Object aroundReadFrom(ReaderInterceptorContext ric) throws IOException, WebApplicationException {
-        System.out.println("MyServerReaderInterceptor");
-        final InputStream old = ric.getInputStream();
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        int c;
-        while ((c = old.read()) != -1) {
-            baos.write(c);
+        if (!logger.isLoggable(Level.FINE)) {
+            return ric.proceed();
         }
-        System.out.println("MyClientReaderInterceptor --> " + baos.toString());
 
-        ric.setInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        InputStream in = new BufferedInputStream(ric.getInputStream(), LOG_LIMIT);
+        byte[] start = new byte[LOG_LIMIT];
+        in.mark(LOG_LIMIT);
+        int length = 0;
+        int n;
+        while (length < LOG_LIMIT && (n = in.read(start, length, LOG_LIMIT - length)) != -1) {
+            length += n;
+        }
+        in.reset();
+        logger.log(Level.FINE, "MyServerReaderInterceptor --> {0}",
+            new String(start, 0, length, StandardCharsets.UTF_8));
 
+        ric.setInputStream(in);
         return ric.proceed();
     }
 
@@ -39,41 +39,41 @@
  */
 package org.javaee7.jaxrs.sample.filter.interceptor;
 
-import java.io.ByteArrayOutputStream;
-import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.ext.Provider;
 import javax.ws.rs.ext.WriterInterceptor;
 import javax.ws.rs.ext.WriterInterceptorContext;
 
 /**
+ * Logs the size and the start of each response body at +FINE+. The body goes through to the container as it is
+ * written, and only its first +LOG_LIMIT+ bytes are kept for the log.
+ *
  * @author Arun Gupta
  */
 @Provider
 public class MyServerWriterInterceptor implements WriterInterceptor {
 
-    @Override
-    public void aroundWriteTo(WriterInterceptorContext wic) throws IOException, WebApplicationException {
-        System.out.println("MyServerWriterInterceptor");
-        wic.setOutputStream(new FilterOutputStream(wic.getOutputStream()) {
-
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    static final int LOG_LIMIT = 1024;
 
-            @Override
-            public void write(int b) throws IOException {
-                baos.write(b);
-                super.write(b);
-            }
+    private static final Logger logger = Logger.getLogger(MyServerWriterInterceptor.class.getName());
 
-            @Override
-            public void close() throws IOException {
-                System.out.println("MyServerWriterInterceptor --> " + baos.toString());
-                super.close();
-            }
-        });
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext wic) throws IOException, WebApplicationException {
+        if (!logger.isLoggable(Level.FINE)) {
+            wic.proceed();
+            return;
+        }
 
+        CountingOutputStream out = new CountingOutputStream(wic.getOutputStream(), LOG_LIMIT);
+        wic.setOutputStream(out);
         wic.proceed();
+
+        logger.log(Level.FINE, "MyServerWriterInterceptor --> {0} bytes: {1}",
+            new Object[] { out.getCount(), new String(out.getCaptured(), StandardCharsets.UTF_8) });
     }
 
 }
@@ -0,0 +1,100 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.jaxrs.filter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Counts the bytes written through it and optionally keeps a copy of the first ones. Unlike a plain
+ * +FilterOutputStream+ it passes arrays on to the wrapped stream as they are, instead of one byte at a time.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    private final byte[] capture;
+    private int captured;
+    private long count;
+
+    /**
+     * @param out the stream to write to
+     * @param captureLimit how many of the first bytes to keep, 0 to keep none
+     */
+    public CountingOutputStream(OutputStream out, int captureLimit) {
+        super(out);
+        capture = captureLimit > 0 ? new byte[captureLimit] : null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (capture != null && captured == count && captured < capture.length) {
+            capture[captured++] = (byte) b;
+        }
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        capture(b, off, len);
+        out.write(b, off, len);
+        count += len;
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        if (capture != null && captured == count && captured < capture.length) {
+            int n = Math.min(len, capture.length - captured);
+            System.arraycopy(b, off, capture, captured, n);
+            captured += n;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the bytes kept, at most the capture limit, or +null+ if nothing was to be kept
+     */
+    public byte[] getCaptured() {
+        return capture == null ? null : Arrays.copyOf(capture, captured);
+    }
+}
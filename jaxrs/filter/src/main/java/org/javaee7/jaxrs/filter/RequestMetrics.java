@@ -0,0 +1,230 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.jaxrs.filter;
+
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+
+/**
+ * Metrics of all the requests seen by +RequestMetricsFilter+, kept per resource method, plus the last few sampled
+ * requests with their headers and the start of their bodies.
+ */
+public class RequestMetrics {
+
+    private static final RequestMetrics instance = new RequestMetrics(
+        Integer.getInteger("jaxrs.metrics.sampleEvery", 100), 32);
+
+    private final ConcurrentMap<Method, Resource> resources = new ConcurrentHashMap<>();
+    private final Resource unmatched = new Resource("unmatched");
+
+    private final int sampleEvery;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicReferenceArray<Sample> samples;
+    private final AtomicLong samplesTaken = new AtomicLong();
+
+    RequestMetrics(int sampleEvery, int samplesKept) {
+        this.sampleEvery = Math.max(sampleEvery, 1);
+        this.samples = new AtomicReferenceArray<>(samplesKept);
+    }
+
+    public static RequestMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param method the resource method that handled the request, +null+ if none matched
+     */
+    public Resource resource(Method method) {
+        if (method == null) {
+            return unmatched;
+        }
+        Resource resource = resources.get(method);
+        if (resource == null) {
+            Resource created = new Resource(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+            resource = resources.putIfAbsent(method, created);
+            if (resource == null) {
+                resource = created;
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * @return +true+ for one request out of +sampleEvery+
+     */
+    public boolean shouldSample() {
+        return requests.getAndIncrement() % sampleEvery == 0;
+    }
+
+    public void addSample(Sample sample) {
+        samples.set((int) (samplesTaken.getAndIncrement() % samples.length()), sample);
+    }
+
+    public void writeJson(Writer writer) {
+        try (JsonGenerator generator = Json.createGenerator(writer)) {
+            generator.writeStartObject()
+                .write("sampleEvery", sampleEvery)
+                .writeStartObject("resources");
+            for (Resource resource : resources.values()) {
+                resource.writeJson(generator);
+            }
+            if (unmatched.latency.getCount() > 0) {
+                unmatched.writeJson(generator);
+            }
+            generator.writeEnd();
+
+            generator.writeStartArray("samples");
+            long taken = samplesTaken.get();
+            for (long i = Math.max(taken - samples.length(), 0); i < taken; i++) {
+                Sample sample = samples.get((int) (i % samples.length()));
+                if (sample != null) {
+                    sample.writeJson(generator);
+                }
+            }
+            generator.writeEnd()
+                .writeEnd();
+        }
+    }
+
+    /**
+     * Counters of one resource method.
+     */
+    public static class Resource {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong bytesIn = new AtomicLong();
+        private final AtomicLong bytesOut = new AtomicLong();
+
+        Resource(String name) {
+            this.name = name;
+        }
+
+        public void record(int status, long nanos, long requestBytes, long responseBytes) {
+            latency.record(nanos);
+            if (status >= 400) {
+                errors.incrementAndGet();
+            }
+            bytesIn.addAndGet(requestBytes);
+            bytesOut.addAndGet(responseBytes);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        private void writeJson(JsonGenerator generator) {
+            generator.writeStartObject(name)
+                .write("count", latency.getCount())
+                .write("errors", errors.get())
+                .write("bytesIn", bytesIn.get())
+                .write("bytesOut", bytesOut.get())
+                .writeStartObject("latencyMicros")
+                .write("mean", latency.getMeanMicros())
+                .write("p50", latency.getPercentileMicros(50))
+                .write("p99", latency.getPercentileMicros(99))
+                .write("max", latency.getMaxMicros())
+                .writeEnd()
+                .writeEnd();
+        }
+    }
+
+    /**
+     * One sampled request. Only a bounded number of headers is kept, each cut to a bounded length, and the bodies
+     * are cut to the capture limit of the filter.
+     */
+    public static class Sample {
+        static final int MAX_HEADERS = 16;
+        static final int MAX_HEADER_LENGTH = 256;
+
+        private final String method;
+        private final String uri;
+        private final Map<String, String> headers;
+        private int status;
+        private long micros;
+        private byte[] requestBody;
+        private byte[] responseBody;
+
+        Sample(String method, String uri, Map<String, String> headers) {
+            this.method = method;
+            this.uri = uri;
+            this.headers = headers;
+        }
+
+        void complete(int status, long micros, byte[] requestBody, byte[] responseBody) {
+            this.status = status;
+            this.micros = micros;
+            this.requestBody = requestBody;
+            this.responseBody = responseBody;
+        }
+
+        private void writeJson(JsonGenerator generator) {
+            generator.writeStartObject()
+                .write("method", method)
+                .write("uri", uri)
+                .write("status", status)
+                .write("micros", micros)
+                .writeStartObject("headers");
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                generator.write(header.getKey(), header.getValue());
+            }
+            generator.writeEnd();
+            if (requestBody != null) {
+                generator.write("requestBody", new String(requestBody, StandardCharsets.UTF_8));
+            }
+            if (responseBody != null) {
+                generator.write("responseBody", new String(responseBody, StandardCharsets.UTF_8));
+            }
+            generator.writeEnd();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.jaxrs.filter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Priority;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Records the latency, status and body sizes of every request in +RequestMetrics+, per resource method. Nothing is
+ * printed, and headers and bodies are only copied for the requests picked by +RequestMetrics#shouldSample+, up to
+ * +CAPTURE_LIMIT+ bytes of body.
+ *
+ * The lowest priority makes it the first request filter and the last response filter, so the latency covers the
+ * other filters too. When the response has a body, the request is recorded once the body is written.
+ */
+@Provider
+@Priority(1)
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    static final int CAPTURE_LIMIT = 1024;
+
+    private static final String EXCHANGE = RequestMetricsFilter.class.getName() + ".exchange";
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    private final RequestMetrics metrics = RequestMetrics.getInstance();
+
+    @Override
+    public void filter(ContainerRequestContext crc) throws IOException {
+        Exchange exchange = new Exchange(System.nanoTime(), metrics.resource(resourceInfo.getResourceMethod()));
+
+        if (metrics.shouldSample()) {
+            exchange.sample = new RequestMetrics.Sample(crc.getMethod(),
+                crc.getUriInfo().getRequestUri().toString(), capture(crc.getHeaders()));
+        }
+        if (crc.hasEntity()) {
+            exchange.in = new CountingInputStream(crc.getEntityStream(), exchange.sample != null ? CAPTURE_LIMIT : 0);
+            crc.setEntityStream(exchange.in);
+        }
+        crc.setProperty(EXCHANGE, exchange);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext crc, ContainerResponseContext crc1) throws IOException {
+        Exchange exchange = (Exchange) crc.getProperty(EXCHANGE);
+        if (exchange == null) {
+            return;
+        }
+        exchange.status = crc1.getStatus();
+        if (!crc1.hasEntity()) {
+            exchange.complete(metrics);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext wic) throws IOException, WebApplicationException {
+        Exchange exchange = (Exchange) wic.getProperty(EXCHANGE);
+        if (exchange == null) {
+            wic.proceed();
+            return;
+        }
+
+        exchange.out = new CountingOutputStream(wic.getOutputStream(), exchange.sample != null ? CAPTURE_LIMIT : 0);
+        wic.setOutputStream(exchange.out);
+        try {
+            wic.proceed();
+        } finally {
+            exchange.complete(metrics);
+        }
+    }
+
+    private static Map<String, String> capture(Map<String, List<String>> headers) {
+        Map<String, String> captured = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (captured.size() == RequestMetrics.Sample.MAX_HEADERS) {
+                break;
+            }
+            String value = header.getValue().size() == 1 ? header.getValue().get(0) : header.getValue().toString();
+            if (value.length() > RequestMetrics.Sample.MAX_HEADER_LENGTH) {
+                value = value.substring(0, RequestMetrics.Sample.MAX_HEADER_LENGTH);
+            }
+            captured.put(header.getKey(), value);
+        }
+        return captured;
+    }
+
+    /**
+     * What is known about a request between the filters and the interceptor.
+     */
+    private static class Exchange {
+        final long start;
+        final RequestMetrics.Resource resource;
+        RequestMetrics.Sample sample;
+        CountingInputStream in;
+        CountingOutputStream out;
+        int status;
+
+        Exchange(long start, RequestMetrics.Resource resource) {
+            this.start = start;
+            this.resource = resource;
+        }
+
+        void complete(RequestMetrics metrics) {
+            long nanos = System.nanoTime() - start;
+            resource.record(status, nanos, in == null ? 0 : in.getCount(), out == null ? 0 : out.getCount());
+            if (sample != null) {
+                sample.complete(status, TimeUnit.NANOSECONDS.toMicros(nanos),
+                    in == null ? null : in.getCaptured(), out == null ? null : out.getCaptured());
+                metrics.addSample(sample);
+            }
+        }
+    }
+}
@@ -40,6 +40,8 @@
 package org.javaee7.jaxrs.filter;
 
 import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.annotation.Priority;
 import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
@@ -51,6 +53,9 @@ import javax.ws.rs.ext.Provider;
 /**
  * By default, a filter is globally bound. That means it is applied
  * to all resources and all methods within that resource.
+ *
+ * The request and the response are logged as one line each, at +FINE+ so that nothing is built when the level is
+ * not enabled. +RequestMetricsFilter+ keeps the numbers, and samples of the headers and bodies.
  * 
  * @author Arun Gupta
  */
@@ -59,23 +64,22 @@ import javax.ws.rs.ext.Provider;
 // default value
 public class ServerLoggingFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
+    private static final Logger logger = Logger.getLogger(ServerLoggingFilter.class.getName());
+
     @Override
     public void filter(ContainerRequestContext crc) throws IOException {
-        System.out.println("<start>ContainerRequestFilter");
-        System.out.println(crc.getMethod() + " " + crc.getUriInfo().getAbsolutePath());
-        for (String key : crc.getHeaders().keySet()) {
-            System.out.println(key + ": " + crc.getHeaders().get(key));
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "ContainerRequestFilter {0} {1} {2}",
+                new Object[] { crc.getMethod(), crc.getUriInfo().getAbsolutePath(), crc.getHeaders() });
         }
         crc.getHeaders().add("serverHeader", "serverHeaderValue");
-        System.out.println("<end>ContainerRequestFilter");
     }
 
     @Override
     public void filter(ContainerRequestContext crc, ContainerResponseContext crc1) throws IOException {
-        System.out.println("<start>ContainerResponseFilter");
-        for (String key : crc1.getHeaders().keySet()) {
-            System.out.println(key + ": " + crc1.getHeaders().get(key));
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "ContainerResponseFilter {0} {1}",
+                new Object[] { crc1.getStatus(), crc1.getHeaders() });
         }
-        System.out.println("<end>ContainerResponseFilter");
     }
 }
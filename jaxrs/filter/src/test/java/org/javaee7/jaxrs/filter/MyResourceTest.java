@@ -1,6 +1,7 @@
 package org.javaee7.jaxrs.filter;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -29,10 +30,13 @@ public class MyResourceTest {
     @Deployment(testable = false)
     public static WebArchive createDeployment() {
         return ShrinkWrap.create(WebArchive.class)
-            .addClasses(MyApplication.class, MyResource.class, ServerLoggingFilter.class);
+            .addClasses(MyApplication.class, MyResource.class, ServerLoggingFilter.class)
+            .addClasses(RequestMetricsFilter.class, RequestMetrics.class, LatencyHistogram.class,
+                CountingInputStream.class, CountingOutputStream.class, MetricsResource.class);
     }
 
     private WebTarget target;
+    private WebTarget metrics;
 
     @ArquillianResource
     private URL base;
@@ -42,6 +46,7 @@ public class MyResourceTest {
         Client client = ClientBuilder.newClient();
         client.register(ClientLoggingFilter.class);
         target = client.target(URI.create(new URL(base, "webresources/fruits").toExternalForm()));
+        metrics = ClientBuilder.newClient().target(URI.create(new URL(base, "webresources/metrics").toExternalForm()));
     }
 
     /**
@@ -66,4 +71,22 @@ public class MyResourceTest {
             result);
     }
 
+    /**
+     * The metrics endpoint counts the requests per resource method and the bytes of their bodies, and keeps a
+     * sample of the first request with its headers.
+     */
+    @Test
+    public void testMetrics() {
+        for (int i = 0; i < 10; i++) {
+            target.request().post(Entity.text("apple"), String.class);
+        }
+
+        String result = metrics.request().get(String.class);
+
+        assertTrue(result, result.contains("\"MyResource.echoFruit\":{\"count\":"));
+        assertTrue(result, result.contains("\"bytesIn\":"));
+        assertTrue(result, result.contains("\"p99\":"));
+        assertTrue(result, result.contains("\"samples\":[{"));
+        assertTrue(result, result.toLowerCase().contains("\"clientheader\":\"clientheadervalue\""));
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.jaxrs.client;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Writes a +JsonStream+ through +JsonGenerator+, either as one JSON array or as newline delimited JSON, one value per
+ * line. Output is flushed every +FLUSH_EVERY+ items, so that the client gets the first items while the rest are still
+ * being fetched.
+ */
+@Provider
+@Produces({ MediaType.APPLICATION_JSON, JsonStream.NDJSON })
+public class JsonStreamWriter implements MessageBodyWriter<JsonStream<?>> {
+
+    private static final int FLUSH_EVERY = 100;
+
+    private static final JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(Collections.<String, Object> emptyMap());
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type type1, Annotation[] antns, MediaType mt) {
+        return JsonStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(JsonStream<?> t, Class<?> type, Type type1, Annotation[] antns, MediaType mt) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(JsonStream<?> t,
+        Class<?> type,
+        Type type1,
+        Annotation[] antns,
+        MediaType mt,
+        MultivaluedMap<String, Object> mm,
+        OutputStream out) throws IOException, WebApplicationException {
+        if (mt.isCompatible(MediaType.valueOf(JsonStream.NDJSON))) {
+            writeLines(t, out);
+        } else {
+            writeArray(t, out);
+        }
+    }
+
+    private static <T> void writeArray(JsonStream<T> stream, OutputStream out) {
+        JsonGenerator generator = GENERATORS.createGenerator(out, StandardCharsets.UTF_8);
+        generator.writeStartArray();
+        int count = 0;
+        Iterator<T> items = stream.getItems();
+        while (items.hasNext()) {
+            stream.getWriter().write(items.next(), generator);
+            if (++count % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        }
+        generator.writeEnd();
+        // Flush but don't close, the container owns the entity stream
+        generator.flush();
+    }
+
+    private static <T> void writeLines(JsonStream<T> stream, OutputStream out) throws IOException {
+        Writer writer = new NonClosingWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        int count = 0;
+        Iterator<T> items = stream.getItems();
+        while (items.hasNext()) {
+            // A generator writes a single root value, so each line gets its own
+            JsonGenerator generator = GENERATORS.createGenerator(writer);
+            stream.getWriter().write(items.next(), generator);
+            generator.close();
+            writer.write('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Lets each line's generator be closed, which writes out what it has buffered, without closing or flushing the
+     * entity stream. Only +writeLines+ flushes, every +FLUSH_EVERY+ items.
+     */
+    private static final class NonClosingWriter extends FilterWriter {
+
+        NonClosingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -53,6 +53,7 @@ public class MyApplication extends Application {
     public Set<Class<?>> getClasses() {
         Set<Class<?>> resources = new java.util.HashSet<>();
         resources.add(MyResource.class);
+        resources.add(JsonStreamWriter.class);
         return resources;
     }
 
@@ -39,8 +39,11 @@
  */
 package org.javaee7.jaxrs.client;
 
+import java.util.List;
+
 import javax.ejb.EJB;
 import javax.enterprise.context.RequestScoped;
+import javax.json.stream.JsonGenerator;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.FormParam;
@@ -63,17 +66,41 @@ public class MyResource {
     PersonSessionBean bean;
 
     @GET
-    @Produces({ "application/xml", "application/json" })
+    @Produces("application/xml;qs=1")
     public Person[] getList() {
         return bean.getPersons().toArray(new Person[0]);
     }
 
+    /**
+     * Same list in JSON, written by +JsonStreamWriter+ one person at a time instead of being bound by JAXB as a
+     * whole. Clients asking for +application/json+ still get a JSON array; NDJSON is only sent when asked for
+     * explicitly, and ranks below the array when a client accepts both.
+     */
+    @GET
+    @Produces({ "application/json;qs=0.5", JsonStream.NDJSON + ";qs=0.4" })
+    public JsonStream<Person> streamList() {
+        // The list never changes once returned, so additions and deletions don't disturb the iteration
+        return new JsonStream<>(bean.getPersons().iterator(), new JsonStream.ItemWriter<Person>() {
+
+            @Override
+            public void write(Person person, JsonGenerator generator) {
+                generator.writeStartObject();
+                if (person.getName() != null) {
+                    generator.write("name", person.getName());
+                }
+                generator.write("age", person.getAge())
+                    .writeEnd();
+            }
+        });
+    }
+
     @GET
     @Produces({ "application/json", "application/xml" })
     @Path("{id}")
     public Person getPerson(@PathParam("id") int id) {
-        if (id < bean.getPersons().size())
-            return bean.getPersons().get(id);
+        List<Person> persons = bean.getPersons();
+        if (id < persons.size())
+            return persons.get(id);
         else
             return null;
     }
@@ -40,39 +40,65 @@
 package org.javaee7.jaxrs.client;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import javax.ejb.ConcurrencyManagement;
 import javax.ejb.Singleton;
 
+import static javax.ejb.ConcurrencyManagementType.BEAN;
+
 /**
+ * Readers get the current list without going through the container lock: every change builds a new, unmodifiable
+ * list and publishes it together with an index of the first person with each name.
+ *
  * @author Arun Gupta
  */
 @Singleton
+@ConcurrencyManagement(BEAN)
 public class PersonSessionBean {
-    private final List<Person> list;
+    private volatile List<Person> list;
+    private volatile Map<String, Person> byName;
 
     public PersonSessionBean() {
-        list = new ArrayList<>();
+        list = Collections.emptyList();
+        byName = Collections.emptyMap();
     }
 
-    public void addPerson(Person p) {
-        list.add(p);
+    public synchronized void addPerson(Person p) {
+        List<Person> persons = new ArrayList<>(list);
+        persons.add(p);
+        publish(persons);
     }
 
-    public void deletePerson(String name) {
+    public synchronized void deletePerson(String name) {
         Person p = findPersonByName(name);
-        if (p != null)
-            list.remove(p);
+        if (p != null) {
+            List<Person> persons = new ArrayList<>(list);
+            persons.remove(p);
+            publish(persons);
+        }
     }
 
     private Person findPersonByName(String name) {
-        for (Person p : list) {
-            if (name.equals(p.getName()))
-                return p;
+        return byName.get(name);
+    }
+
+    private void publish(List<Person> persons) {
+        Map<String, Person> index = new HashMap<>();
+        for (Person p : persons) {
+            if (p.getName() != null && !index.containsKey(p.getName()))
+                index.put(p.getName(), p);
         }
-        return null;
+        byName = index;
+        list = Collections.unmodifiableList(persons);
     }
 
+    /**
+     * The list as it was at the time of the call, later changes don't show in it.
+     */
     public List<Person> getPersons() {
         return list;
     }
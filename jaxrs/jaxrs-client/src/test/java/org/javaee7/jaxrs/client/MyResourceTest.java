@@ -43,7 +43,8 @@ public class MyResourceTest {
         return ShrinkWrap.create(WebArchive.class)
             .addClasses(
                 MyApplication.class, MyResource.class, People.class,
-                Person.class, PersonSessionBean.class);
+                Person.class, PersonSessionBean.class,
+                JsonStream.class, JsonStreamWriter.class);
     }
 
     @ArquillianResource
@@ -149,7 +150,16 @@ public class MyResourceTest {
     }
 
     @Test
-    public void test6DeleteAll() {
+    public void test6StreamNdjson() {
+        String ndjson = target.request().accept(JsonStream.NDJSON).get(String.class);
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("Leonard", Json.createReader(new StringReader(lines[1])).readObject().getString("name"));
+    }
+
+    @Test
+    public void test7DeleteAll() {
         Person[] list = target.request().get(Person[].class);
         for (Person p : list) {
             target
@@ -41,27 +41,96 @@
 package org.javaee7.jaxrs.endpoint;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
+ * Fruits in the order they were added, duplicates included.
+ *
+ * Readers never lock: they read the current +Snapshot+, which is immutable and indexed by name. Writers build the
+ * next snapshot under a lock and publish it, which also throws away the rendered list of the previous one.
+ *
  * @author Arun Gupta
  */
 public class Database {
-    private static final List<String> list = new ArrayList<>();
+    private static final Object lock = new Object();
+    private static final String instance = Long.toHexString(System.currentTimeMillis());
+
+    private static volatile Snapshot snapshot = new Snapshot(Collections.<String> emptyList(), 0);
 
     static public String getAll() {
-        return list.toString();
+        return snapshot.toString();
     }
 
     static public String get(String fruit) {
-        return list.contains(fruit) ? fruit : "";
+        return snapshot.contains(fruit) ? fruit : "";
     }
 
     static public void add(String fruit) {
-        list.add(fruit);
+        synchronized (lock) {
+            List<String> list = new ArrayList<>(snapshot.list);
+            list.add(fruit);
+            snapshot = new Snapshot(list, snapshot.version + 1);
+        }
     }
 
     static public void delete(String fruit) {
-        list.remove(fruit);
+        synchronized (lock) {
+            if (!snapshot.contains(fruit)) {
+                return;
+            }
+            List<String> list = new ArrayList<>(snapshot.list);
+            list.remove(fruit);
+            snapshot = new Snapshot(list, snapshot.version + 1);
+        }
+    }
+
+    static public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * The content of the database at one point in time.
+     */
+    public static final class Snapshot {
+        private final List<String> list;
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final long version;
+        private volatile String rendered;
+
+        Snapshot(List<String> list, long version) {
+            this.list = Collections.unmodifiableList(list);
+            this.version = version;
+            for (String fruit : list) {
+                Integer count = counts.get(fruit);
+                counts.put(fruit, count == null ? 1 : count + 1);
+            }
+        }
+
+        public boolean contains(String fruit) {
+            return counts.containsKey(fruit);
+        }
+
+        /**
+         * Changes with every write, and differs between two runs of the application.
+         */
+        public String getTag() {
+            return instance + "-" + version;
+        }
+
+        /**
+         * The list as +[apple, banana]+, rendered the first time it is asked for.
+         */
+        @Override
+        public String toString() {
+            String result = rendered;
+            if (result == null) {
+                result = list.toString();
+                rendered = result;
+            }
+            return result;
+        }
     }
 }
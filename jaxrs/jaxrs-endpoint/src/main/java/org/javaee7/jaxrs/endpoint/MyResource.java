@@ -45,6 +45,10 @@ import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 
 /**
  * @author Arun Gupta
@@ -52,10 +56,21 @@ import javax.ws.rs.PathParam;
 @Path("/fruit")
 public class MyResource {
 
+    /**
+     * The list is tagged with the version of the database, so a client sending back the tag in +If-None-Match+ gets a
+     * +304 Not Modified+ until something is added or deleted.
+     */
     @GET
-    public String get() {
+    public Response get(@Context Request request) {
         System.out.println("GET");
-        return Database.getAll();
+        Database.Snapshot snapshot = Database.snapshot();
+        EntityTag tag = new EntityTag(snapshot.getTag());
+
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(snapshot.toString()).tag(tag).build();
     }
 
     @GET
@@ -1,15 +1,30 @@
 package org.javaee7.jaxrs.endpoint;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
 
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit.Arquillian;
@@ -108,4 +123,108 @@ public class MyResourceTest {
         r = target.request().get(String.class);
         assertEquals("[]", r);
     }
+
+    /**
+     * A GET with the tag of the previous response gets a 304 until the list changes.
+     */
+    @Test
+    public void test6NotModified() {
+        Response first = target.request().get();
+        String tag = first.getHeaderString(HttpHeaders.ETAG);
+        first.close();
+        assertNotNull(tag);
+
+        Response second = target.request().header(HttpHeaders.IF_NONE_MATCH, tag).get();
+        assertEquals(304, second.getStatus());
+        second.close();
+
+        target.request().post(Entity.text("cherry"));
+
+        Response third = target.request().header(HttpHeaders.IF_NONE_MATCH, tag).get();
+        assertEquals(200, third.getStatus());
+        assertEquals("[cherry]", third.readEntity(String.class));
+        assertNotEquals(tag, third.getHeaderString(HttpHeaders.ETAG));
+
+        target.path("cherry").request().delete();
+    }
+
+    /**
+     * Writers add and delete fruits while readers poll the list with +If-None-Match+. Every fruit added and not
+     * deleted must be in the list at the end, and the reads should mostly be answered with a 304.
+     */
+    @Test
+    public void test7ConcurrentReadsAndWrites() throws Exception {
+        final int writers = 4;
+        final int readers = 16;
+        final int writesPerWriter = 200;
+        final int readsPerReader = 1000;
+        final AtomicLong notModified = new AtomicLong();
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = 0; i < writesPerWriter; i++) {
+                        target.request().post(Entity.text("fruit-" + writer + "-" + i));
+                        if (i % 2 == 1) {
+                            target.path("fruit-" + writer + "-" + i).request().delete();
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        for (int r = 0; r < readers; r++) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    String tag = null;
+                    for (int i = 0; i < readsPerReader; i++) {
+                        Response response = tag == null
+                            ? target.request().get()
+                            : target.request().header(HttpHeaders.IF_NONE_MATCH, tag).get();
+                        if (response.getStatus() == 304) {
+                            notModified.incrementAndGet();
+                        } else {
+                            tag = response.getHeaderString(HttpHeaders.ETAG);
+                        }
+                        response.close();
+                    }
+                    return null;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        String list = target.request().get(String.class);
+        Set<String> fruits = new HashSet<>(Arrays.asList(list.substring(1, list.length() - 1).split(", ")));
+        assertEquals(writers * writesPerWriter / 2, fruits.size());
+        for (int w = 0; w < writers; w++) {
+            for (int i = 0; i < writesPerWriter; i += 2) {
+                assertTrue(fruits.contains("fruit-" + w + "-" + i));
+            }
+        }
+
+        long requests = writers * writesPerWriter * 3 / 2 + readers * readsPerReader;
+        System.out.format("%d requests in %d ms (%d req/sec), %d of %d reads not modified%n",
+            requests, elapsed / 1000000, requests * 1000000000L / elapsed,
+            notModified.get(), readers * readsPerReader);
+
+        for (String fruit : fruits) {
+            target.path(fruit).request().delete();
+        }
+        assertEquals("[]", target.request().get(String.class));
+    }
 }
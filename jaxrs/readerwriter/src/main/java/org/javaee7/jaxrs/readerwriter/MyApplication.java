@@ -54,6 +54,8 @@ public class MyApplication extends Application {
         resources.add(MyResource.class);
         resources.add(MyReader.class);
         resources.add(MyWriter.class);
+        resources.add(MyBinaryReader.class);
+        resources.add(MyBinaryWriter.class);
         return resources;
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.jaxrs.readerwriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Reads what +MyBinaryWriter+ wrote. A frame larger than +MAX_FRAME_SIZE+ or not matching the schema is rejected with
+ * +400 Bad Request+.
+ */
+@Provider
+@Consumes(MyObject.BINARY_MIME_TYPE)
+public class MyBinaryReader implements MessageBodyReader<Object> {
+
+    static final int MAX_FRAME_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<BinaryInput> INPUT = new ThreadLocal<BinaryInput>() {
+        @Override
+        protected BinaryInput initialValue() {
+            return new BinaryInput(256, MAX_FRAME_SIZE);
+        }
+    };
+
+    @Override
+    public boolean isReadable(Class<?> type, Type type1, Annotation[] antns, MediaType mt) {
+        return BinaryCodecs.forType(type) != null;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type,
+        Type type1,
+        Annotation[] antns,
+        MediaType mt, MultivaluedMap<String, String> mm,
+        InputStream in) throws IOException, WebApplicationException {
+        BinaryCodec<Object> codec = BinaryCodecs.forType(type);
+        BinaryInput input = INPUT.get();
+        try {
+            input.readFrame(in);
+            return codec.decode(input, input.readVarInt());
+        } catch (IOException ex) {
+            throw new BadRequestException(ex);
+        }
+    }
+}
@@ -46,6 +46,7 @@ import java.io.Serializable;
  */
 public class MyObject implements Serializable {
     public static final String MIME_TYPE = "application/myType";
+    public static final String BINARY_MIME_TYPE = "application/myType+binary";
 
     private int index;
 
@@ -58,6 +58,12 @@ public class MyResource {
         return response[Integer.valueOf(mo.getIndex()) % 3];
     }
 
+    @POST
+    @Consumes(MyObject.BINARY_MIME_TYPE)
+    public String postWithBinaryMimeType(MyObject mo) {
+        return response[mo.getIndex() % 3];
+    }
+
     @POST
     @Path("index")
     @Consumes("text/plain")
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.javaee7.jca.filewatch.adapter;
+
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The files and directories below a watched directory, with their size and modification time.
+ *
+ * In polling mode a fresh snapshot is taken on every poll and compared with the previous one to find out what
+ * changed. In watch mode the snapshot is kept up to date from the watch events, and only rescanned when the
+ * +WatchService+ reports that it lost events, or the endpoint dropped some.
+ *
+ * A change is only recorded once the listener took its event, so that a change whose event was dropped is reported again
+ * by the next rescan.
+ */
+final class DirectorySnapshot {
+
+    interface Listener {
+        /**
+         * @return +false+ if the event was dropped
+         */
+        boolean onEvent(Kind<?> kind, Path path);
+    }
+
+    private final Path root;
+    private final boolean recursive;
+    private final Map<Path, FileState> entries = new HashMap<>();
+
+    private DirectorySnapshot(Path root, boolean recursive) {
+        this.root = root;
+        this.recursive = recursive;
+    }
+
+    static DirectorySnapshot scan(Path root, boolean recursive) throws IOException {
+        DirectorySnapshot snapshot = new DirectorySnapshot(root, recursive);
+        snapshot.walk(root, null);
+        return snapshot;
+    }
+
+    /**
+     * Reports everything that differs between this snapshot and +newer+ to the listener, and takes over the state of
+     * +newer+ for everything the listener took.
+     */
+    void replaceWith(DirectorySnapshot newer, Listener listener) {
+        List<Path> deleted = new ArrayList<>();
+        for (Path path : entries.keySet()) {
+            if (!newer.entries.containsKey(path)) {
+                deleted.add(path);
+            }
+        }
+
+        for (Entry<Path, FileState> entry : newer.entries.entrySet()) {
+            FileState previous = entries.get(entry.getKey());
+            if (previous == null) {
+                if (listener.onEvent(ENTRY_CREATE, entry.getKey())) {
+                    entries.put(entry.getKey(), entry.getValue());
+                }
+            } else if (!entry.getValue().directory && !previous.equals(entry.getValue())) {
+                if (listener.onEvent(ENTRY_MODIFY, entry.getKey())) {
+                    entries.put(entry.getKey(), entry.getValue());
+                }
+            } else {
+                entries.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (Path path : deleted) {
+            if (listener.onEvent(ENTRY_DELETE, path)) {
+                entries.remove(path);
+            }
+        }
+    }
+
+    /**
+     * Records a change reported by the +WatchService+.
+     */
+    void update(Kind<?> kind, Path path) {
+        if (ENTRY_DELETE.equals(kind)) {
+            Iterator<Path> paths = entries.keySet().iterator();
+            while (paths.hasNext()) {
+                if (paths.next().startsWith(path)) {
+                    paths.remove();
+                }
+            }
+            return;
+        }
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, NOFOLLOW_LINKS);
+            entries.put(path, new FileState(attributes));
+        } catch (IOException e) {
+            // Already gone again, the delete event will follow
+        }
+    }
+
+    /**
+     * Adds whatever is below a newly created directory, reporting every entry that was not known yet as created.
+     * Files created before the directory could be registered with the +WatchService+ are found this way.
+     */
+    void addTree(Path dir, Listener listener) throws IOException {
+        walk(dir, listener);
+    }
+
+    private void walk(Path dir, final Listener listener) throws IOException {
+        int maxDepth = recursive ? Integer.MAX_VALUE : 1;
+
+        Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), maxDepth, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attributes) {
+                return add(path, attributes);
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                return add(path, attributes);
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException e) {
+                // Deleted while walking the tree
+                return FileVisitResult.CONTINUE;
+            }
+
+            private FileVisitResult add(Path path, BasicFileAttributes attributes) {
+                if (path.equals(root)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (listener == null || entries.containsKey(path) || listener.onEvent(ENTRY_CREATE, path)) {
+                    entries.put(path, new FileState(attributes));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static final class FileState {
+
+        private final boolean directory;
+        private final long size;
+        private final long lastModified;
+
+        FileState(BasicFileAttributes attributes) {
+            this.directory = attributes.isDirectory();
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FileState)) {
+                return false;
+            }
+            FileState other = (FileState) o;
+            return directory == other.directory && size == other.size && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (31 * size + lastModified);
+        }
+    }
+}
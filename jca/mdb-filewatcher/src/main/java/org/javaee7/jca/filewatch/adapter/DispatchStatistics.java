@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.javaee7.jca.filewatch.adapter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the events of one endpoint: how many were queued, dropped because the queue was full, coalesced and
+ * delivered, how many per second, and
+ * how long they waited between being queued and being delivered to the MDB.
+ */
+final class DispatchStatistics {
+
+    private final String mode;
+    private final long started = System.nanoTime();
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    DispatchStatistics(String mode) {
+        this.mode = mode;
+    }
+
+    void queued() {
+        queued.incrementAndGet();
+    }
+
+    void dropped() {
+        dropped.incrementAndGet();
+    }
+
+    void coalesced(int count) {
+        coalesced.addAndGet(count);
+    }
+
+    void delivered(long queuedAt) {
+        long latency = System.nanoTime() - queuedAt;
+
+        delivered.incrementAndGet();
+        totalLatencyNanos.addAndGet(latency);
+
+        long max = maxLatencyNanos.get();
+        while (latency > max && !maxLatencyNanos.compareAndSet(max, latency)) {
+            max = maxLatencyNanos.get();
+        }
+    }
+
+    long getEventsPerSecond() {
+        long elapsed = System.nanoTime() - started;
+        return elapsed == 0 ? 0 : delivered.get() * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    long getAverageLatencyMillis() {
+        long count = delivered.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get() / count);
+    }
+
+    long getMaxLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "[" + mode + "] " + queued.get() + " queued, " + dropped.get() + " dropped, " + coalesced.get() + " coalesced, " + delivered.get()
+            + " delivered, " + getEventsPerSecond() + " events/sec, dispatch latency avg " + getAverageLatencyMillis()
+            + "ms max " + getMaxLatencyMillis() + "ms";
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.javaee7.jca.filewatch.adapter;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent.Kind;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import javax.resource.spi.endpoint.MessageEndpoint;
+import javax.resource.spi.endpoint.MessageEndpointFactory;
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
+import javax.resource.spi.work.WorkManager;
+
+/**
+ * Delivers file events to the MDB of a single endpoint.
+ *
+ * The watching thread only offers events to a bounded queue, so that a slow MDB neither piles up +Work+ instances in
+ * the +WorkManager+ nor holds up the thread, which serves other endpoints as well. When the queue is full the event is
+ * dropped and the endpoint is marked as overflowed; once the queue has drained to half its capacity, the directory of
+ * the endpoint is rescanned to recover the dropped events (see +readyToRecover+). At most one +Work+ per endpoint
+ * drains the queue at a time, taking up to +maxBatchSize+ events at once. Identical events in a batch (same kind,
+ * same file) are coalesced, and the whole batch is delivered through a single +MessageEndpoint+.
+ */
+final class EndpointDispatcher {
+
+    private static final Logger logger = Logger.getLogger(EndpointDispatcher.class.getName());
+
+    private final MessageEndpointFactory endpointFactory;
+    private final EndpointMethods methods;
+    private final WorkManager workManager;
+    private final BlockingQueue<PendingEvent> queue;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private final DispatchStatistics statistics;
+
+    EndpointDispatcher(MessageEndpointFactory endpointFactory, WorkManager workManager, int queueCapacity, int maxBatchSize, String mode) {
+        this.endpointFactory = endpointFactory;
+        this.statistics = new DispatchStatistics(mode);
+        this.methods = new EndpointMethods(endpointFactory.getEndpointClass());
+        this.workManager = workManager;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    MessageEndpointFactory getEndpointFactory() {
+        return endpointFactory;
+    }
+
+    DispatchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Queues an event without ever blocking.
+     *
+     * @param kind the kind of event
+     * @param file the absolute path of the file
+     * @param relativePath the path of the file relative to the watched directory, matched against the patterns
+     * @return +false+ if the queue is full and the event was dropped, in which case the endpoint is overflowed
+     */
+    boolean enqueue(Kind<?> kind, Path file, String relativePath) {
+        if (!methods.handles(kind)) {
+            return true;
+        }
+
+        boolean queued = queue.offer(new PendingEvent(kind, file, relativePath));
+        if (queued) {
+            statistics.queued();
+        } else {
+            overflowed.set(true);
+            statistics.dropped();
+        }
+
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                workManager.scheduleWork(new DispatchWork());
+            } catch (WorkException e) {
+                scheduled.set(false);
+                e.printStackTrace();
+            }
+        }
+        return queued;
+    }
+
+    boolean isOverflowed() {
+        return overflowed.get();
+    }
+
+    /**
+     * Tells the thread watching the directory of an overflowed endpoint when to rescan it: once the queue has drained to
+     * half its capacity. Clears the overflow, so it returns +true+ only once per overflow.
+     */
+    boolean readyToRecover() {
+        return overflowed.get() && queue.remainingCapacity() >= (queueCapacity + 1) / 2 && overflowed.compareAndSet(true, false);
+    }
+
+    private void drainQueue() {
+        List<PendingEvent> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            batch.clear();
+            queue.drainTo(batch, maxBatchSize);
+
+            if (batch.isEmpty()) {
+                scheduled.set(false);
+
+                // An event may have been queued after the drain but before the flag was cleared
+                if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            Set<PendingEvent> events = coalesce(batch);
+            statistics.coalesced(batch.size() - events.size());
+            deliver(events);
+        }
+    }
+
+    /**
+     * Drops repeated events for the same file, keeping each one at the position of its last occurrence, so that
+     * e.g. created, deleted, created is delivered as deleted, created.
+     */
+    private static Set<PendingEvent> coalesce(List<PendingEvent> batch) {
+        Set<PendingEvent> events = new LinkedHashSet<>();
+        for (PendingEvent event : batch) {
+            events.remove(event);
+            events.add(event);
+        }
+        return events;
+    }
+
+    private void deliver(Set<PendingEvent> events) {
+        MessageEndpoint endpoint;
+        try {
+            endpoint = endpointFactory.createEndpoint(null);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            for (PendingEvent event : events) {
+                for (Method method : methods.methodsFor(event.kind, event.relativePath)) {
+                    try {
+                        try {
+                            endpoint.beforeDelivery(method);
+
+                            method.invoke(endpoint, event.file.toFile());
+
+                        } finally {
+                            endpoint.afterDelivery();
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+                statistics.delivered(event.queuedAt);
+            }
+        } finally {
+            endpoint.release();
+        }
+
+        logger.fine("Dispatched " + events.size() + " file events to " + endpointFactory.getEndpointClass().getSimpleName() + " " + statistics);
+    }
+
+    private final class DispatchWork implements Work {
+
+        @Override
+        public void run() {
+            drainQueue();
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    private static final class PendingEvent {
+
+        private final Kind<?> kind;
+        private final Path file;
+        private final String relativePath;
+        private final long queuedAt = System.nanoTime();
+
+        PendingEvent(Kind<?> kind, Path file, String relativePath) {
+            this.kind = kind;
+            this.file = file;
+            this.relativePath = relativePath;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PendingEvent)) {
+                return false;
+            }
+            PendingEvent other = (PendingEvent) o;
+            return kind.equals(other.kind) && file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * kind.hashCode() + file.hashCode();
+        }
+    }
+}
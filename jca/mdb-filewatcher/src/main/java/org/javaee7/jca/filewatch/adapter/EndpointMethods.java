@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.javaee7.jca.filewatch.adapter;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.lang.reflect.Method;
+import java.nio.file.WatchEvent.Kind;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.javaee7.jca.filewatch.event.Created;
+import org.javaee7.jca.filewatch.event.Deleted;
+import org.javaee7.jca.filewatch.event.Modified;
+
+/**
+ * The +@Created+, +@Deleted+ and +@Modified+ methods of a bean class, with their patterns compiled once when the
+ * endpoint is activated instead of on every event.
+ */
+final class EndpointMethods {
+
+    private final List<Binding> created = new ArrayList<>();
+    private final List<Binding> deleted = new ArrayList<>();
+    private final List<Binding> modified = new ArrayList<>();
+
+    EndpointMethods(Class<?> beanClass) {
+        for (Method method : beanClass.getMethods()) {
+            if (method.isAnnotationPresent(Created.class)) {
+                created.add(new Binding(method, method.getAnnotation(Created.class).value()));
+            }
+            if (method.isAnnotationPresent(Deleted.class)) {
+                deleted.add(new Binding(method, method.getAnnotation(Deleted.class).value()));
+            }
+            if (method.isAnnotationPresent(Modified.class)) {
+                modified.add(new Binding(method, method.getAnnotation(Modified.class).value()));
+            }
+        }
+    }
+
+    /**
+     * @return the methods to call for an event of the given kind on a file whose path, relative to the watched
+     * directory, is +path+.
+     */
+    List<Method> methodsFor(Kind<?> kind, String path) {
+        List<Binding> bindings = bindingsFor(kind);
+        if (bindings.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Method> methods = new ArrayList<>(bindings.size());
+        for (Binding binding : bindings) {
+            if (binding.pattern.matcher(path).matches()) {
+                methods.add(binding.method);
+            }
+        }
+        return methods;
+    }
+
+    boolean handles(Kind<?> kind) {
+        return !bindingsFor(kind).isEmpty();
+    }
+
+    private List<Binding> bindingsFor(Kind<?> kind) {
+        if (ENTRY_CREATE.equals(kind)) {
+            return created;
+        }
+        if (ENTRY_DELETE.equals(kind)) {
+            return deleted;
+        }
+        if (ENTRY_MODIFY.equals(kind)) {
+            return modified;
+        }
+        return Collections.emptyList();
+    }
+
+    private static final class Binding {
+
+        private final Method method;
+        private final Pattern pattern;
+
+        Binding(Method method, String regex) {
+            this.method = method;
+            this.pattern = Pattern.compile(regex);
+        }
+    }
+}
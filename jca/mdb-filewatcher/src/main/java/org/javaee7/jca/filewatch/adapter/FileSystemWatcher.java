@@ -17,6 +17,10 @@
 package org.javaee7.jca.filewatch.adapter;
 
 /**
+ * Marks the MDBs the resource adapter delivers file events to, through their +@Created+, +@Deleted+ and +@Modified+
+ * methods. The pattern of each annotation is matched against the path of the file relative to the watched directory,
+ * and the method is passed the absolute path of the file.
+ *
  * @author Robert Panzer (robert.panzer@me.com)
  */
 public interface FileSystemWatcher {
@@ -32,6 +32,16 @@ public class FileSystemWatcherActivationSpec implements ActivationSpec {
 
     private String dir;
 
+    private Integer queueCapacity = 10000;
+
+    private Integer maxBatchSize = 500;
+
+    private Boolean recursive = false;
+
+    private String mode = "watch";
+
+    private Long pollInterval = 1000L;
+
     @Override
     public ResourceAdapter getResourceAdapter() {
         return resourceAdapter;
@@ -44,7 +54,18 @@ public class FileSystemWatcherActivationSpec implements ActivationSpec {
 
     @Override
     public void validate() throws InvalidPropertyException {
-
+        if (queueCapacity == null || queueCapacity < 1) {
+            throw new InvalidPropertyException("queueCapacity must be at least 1");
+        }
+        if (maxBatchSize == null || maxBatchSize < 1) {
+            throw new InvalidPropertyException("maxBatchSize must be at least 1");
+        }
+        if (!"watch".equals(mode) && !"poll".equals(mode)) {
+            throw new InvalidPropertyException("mode must be either watch or poll");
+        }
+        if (pollInterval == null || pollInterval < 1) {
+            throw new InvalidPropertyException("pollInterval must be at least 1");
+        }
     }
 
     public String getDir() {
@@ -55,4 +76,58 @@ public class FileSystemWatcherActivationSpec implements ActivationSpec {
         this.dir = dir;
     }
 
+    /**
+     * @return how many events can be waiting for the MDB. Once the queue is full, further events are dropped and the
+     *         directory is rescanned when the queue has drained, instead of blocking the watching thread.
+     */
+    public Integer getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(Integer queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return the maximum number of events delivered through one +MessageEndpoint+.
+     */
+    public Integer getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(Integer maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return whether subdirectories of +dir+ are watched as well.
+     */
+    public Boolean getRecursive() {
+        return recursive;
+    }
+
+    public void setRecursive(Boolean recursive) {
+        this.recursive = recursive;
+    }
+
+    /**
+     * @return +watch+ to be notified through a +WatchService+, or +poll+ to scan the directory every
+     * +pollInterval+ milliseconds.
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public Long getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
 }
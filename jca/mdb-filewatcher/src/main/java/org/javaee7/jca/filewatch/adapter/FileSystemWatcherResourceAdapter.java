@@ -17,40 +17,52 @@
 package org.javaee7.jca.filewatch.adapter;
 
 import static java.lang.System.out;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 
 import java.io.IOException;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Timer;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.resource.ResourceException;
 import javax.resource.spi.ActivationSpec;
 import javax.resource.spi.BootstrapContext;
+import javax.resource.spi.ConfigProperty;
 import javax.resource.spi.Connector;
 import javax.resource.spi.ResourceAdapter;
 import javax.resource.spi.ResourceAdapterInternalException;
+import javax.resource.spi.UnavailableException;
 import javax.resource.spi.endpoint.MessageEndpointFactory;
 import javax.transaction.xa.XAResource;
 
 /**
+ * Watches directories for MDBs implementing +FileSystemWatcher+.
+ *
+ * In the default +watch+ mode, directories are spread over +watcherThreads+ shards, each with its own
+ * +WatchService+ and thread, so that one busy directory does not delay the events of the others. In +poll+ mode the
+ * directory is scanned on a timer instead.
+ *
  * @author Robert Panzer (robert.panzer@me.com)
  * @author Bartosz Majsak (bartosz.majsak@gmail.com)
  */
 @Connector
 public class FileSystemWatcherResourceAdapter implements ResourceAdapter {
 
+    @ConfigProperty(defaultValue = "1", description = "Number of WatchService threads the watched directories are spread over")
+    private Integer watcherThreads = 1;
+
     private BootstrapContext bootstrapContext;
     
     private FileSystem fileSystem;
-    private WatchService watchService;
-    private Map<WatchKey, MessageEndpointFactory> listeners = new ConcurrentHashMap<>();
-    private Map<MessageEndpointFactory, Class<?>> endpointFactoryToBeanClass = new ConcurrentHashMap<>();
+    private List<WatchingThread> shards = new ArrayList<>();
+    private AtomicInteger nextShard = new AtomicInteger();
+    private Timer pollingTimer;
+    private Map<MessageEndpointFactory, EndpointDispatcher> dispatchers = new ConcurrentHashMap<>();
+    private Map<MessageEndpointFactory, PollingWatcher> pollers = new ConcurrentHashMap<>();
     
     @Override
     public void start(BootstrapContext bootstrapContext) throws ResourceAdapterInternalException {
@@ -61,12 +73,15 @@ public class FileSystemWatcherResourceAdapter implements ResourceAdapter {
 
         try {
             fileSystem = FileSystems.getDefault();
-            watchService = fileSystem.newWatchService();
-        } catch (IOException e) {
+            for (int i = 0; i < Math.max(1, watcherThreads); i++) {
+                WatchingThread shard = new WatchingThread(fileSystem.newWatchService(), "FileSystemWatcher-" + i);
+                shards.add(shard);
+                shard.start();
+            }
+            pollingTimer = bootstrapContext.createTimer();
+        } catch (IOException | UnavailableException e) {
             throw new ResourceAdapterInternalException(e);
         }
-
-        new WatchingThread(watchService, this).start();
     }
 
     @Override
@@ -76,14 +91,28 @@ public class FileSystemWatcherResourceAdapter implements ResourceAdapter {
         
         FileSystemWatcherActivationSpec fsWatcherAS = (FileSystemWatcherActivationSpec) activationSpec;
 
-        try {
-            WatchKey watchKey = 
-                fileSystem.getPath(fsWatcherAS.getDir())
-                          .register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        EndpointDispatcher dispatcher = new EndpointDispatcher(
+            endpointFactory,
+            bootstrapContext.getWorkManager(),
+            fsWatcherAS.getQueueCapacity(),
+            fsWatcherAS.getMaxBatchSize(),
+            fsWatcherAS.getMode());
 
-            listeners.put(watchKey, endpointFactory);
+        WatchedDirectory directory = new WatchedDirectory(
+            fileSystem.getPath(fsWatcherAS.getDir()).toAbsolutePath(),
+            fsWatcherAS.getRecursive(),
+            dispatcher);
 
-            endpointFactoryToBeanClass.put(endpointFactory, endpointFactory.getEndpointClass());
+        try {
+            if ("poll".equals(fsWatcherAS.getMode())) {
+                PollingWatcher poller = new PollingWatcher(directory);
+                pollers.put(endpointFactory, poller);
+                pollingTimer.schedule(poller, fsWatcherAS.getPollInterval(), fsWatcherAS.getPollInterval());
+            } else {
+                shards.get(Math.abs(nextShard.getAndIncrement() % shards.size())).register(directory);
+            }
+
+            dispatchers.put(endpointFactory, dispatcher);
         } catch (IOException e) {
             throw new ResourceException(e);
         }
@@ -94,13 +123,20 @@ public class FileSystemWatcherResourceAdapter implements ResourceAdapter {
         
         out.println(this.getClass().getSimpleName() + " resource adapater endpoint deactivated for " + endpointFactory.getEndpointClass());
         
-        for (WatchKey watchKey : listeners.keySet()) {
-            if (listeners.get(watchKey) == endpointFactory) {
-                listeners.remove(watchKey);
-                break;
-            }
+        EndpointDispatcher dispatcher = dispatchers.remove(endpointFactory);
+        if (dispatcher == null) {
+            return;
         }
-        endpointFactoryToBeanClass.remove(endpointFactory);
+
+        PollingWatcher poller = pollers.remove(endpointFactory);
+        if (poller != null) {
+            poller.cancel();
+        }
+        for (WatchingThread shard : shards) {
+            shard.unregister(dispatcher);
+        }
+
+        out.println(endpointFactory.getEndpointClass().getSimpleName() + " " + dispatcher.getStatistics());
     }
 
     @Override
@@ -113,23 +149,28 @@ public class FileSystemWatcherResourceAdapter implements ResourceAdapter {
         
         out.println(this.getClass().getSimpleName() + " resource adapater stopping");
         
+        if (pollingTimer != null) {
+            pollingTimer.cancel();
+        }
         try {
-            watchService.close();
+            for (WatchingThread shard : shards) {
+                shard.close();
+            }
         } catch (IOException e) {
             throw new RuntimeException("Failed stopping file watcher.", e);
         }
     }
 
-    public MessageEndpointFactory getListener(WatchKey watchKey) {
-        return listeners.get(watchKey);
-    }
-
     public BootstrapContext getBootstrapContext() {
         return bootstrapContext;
     }
 
-    public Class<?> getBeanClass(MessageEndpointFactory endpointFactory) {
-        return endpointFactoryToBeanClass.get(endpointFactory);
+    public Integer getWatcherThreads() {
+        return watcherThreads;
+    }
+
+    public void setWatcherThreads(Integer watcherThreads) {
+        this.watcherThreads = watcherThreads;
     }
 
     @Override
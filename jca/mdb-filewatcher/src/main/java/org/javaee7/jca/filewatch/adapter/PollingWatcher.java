@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.javaee7.jca.filewatch.adapter;
+
+import java.io.IOException;
+import java.util.TimerTask;
+
+/**
+ * The polling mode: scans the directory at a fixed interval and compares it with the previous scan. Slower to notice
+ * changes than a +WatchService+, but works on mounts (network file systems in particular) where the +WatchService+
+ * misses events or falls back to slow polling of its own.
+ *
+ * Events the endpoint could not take because its queue was full are not recorded in the snapshot, so they are reported
+ * again by a later poll. Polls are skipped while the queue is still draining.
+ */
+final class PollingWatcher extends TimerTask {
+
+    private final WatchedDirectory directory;
+
+    PollingWatcher(WatchedDirectory directory) throws IOException {
+        this.directory = directory;
+        directory.setSnapshot(DirectorySnapshot.scan(directory.getRoot(), directory.isRecursive()));
+    }
+
+    EndpointDispatcher getDispatcher() {
+        return directory.getDispatcher();
+    }
+
+    @Override
+    public void run() {
+        EndpointDispatcher dispatcher = directory.getDispatcher();
+        if (dispatcher.isOverflowed() && !dispatcher.readyToRecover()) {
+            return;
+        }
+
+        try {
+            directory.getSnapshot().replaceWith(
+                DirectorySnapshot.scan(directory.getRoot(), directory.isRecursive()), directory);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
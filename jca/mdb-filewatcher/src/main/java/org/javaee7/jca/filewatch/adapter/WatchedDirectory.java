@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.javaee7.jca.filewatch.adapter;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent.Kind;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A directory watched for one endpoint, either through a +WatchService+ or by polling. Keeps the snapshot of its
+ * contents and, in watch mode, the directories registered with the +WatchService+.
+ */
+final class WatchedDirectory implements DirectorySnapshot.Listener {
+
+    private final Path root;
+    private final boolean recursive;
+    private final EndpointDispatcher dispatcher;
+    private final Set<Path> registeredDirs = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+
+    private DirectorySnapshot snapshot;
+
+    WatchedDirectory(Path root, boolean recursive, EndpointDispatcher dispatcher) {
+        this.root = root;
+        this.recursive = recursive;
+        this.dispatcher = dispatcher;
+    }
+
+    Path getRoot() {
+        return root;
+    }
+
+    boolean isRecursive() {
+        return recursive;
+    }
+
+    EndpointDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    DirectorySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    void setSnapshot(DirectorySnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @return +true+ if the directory was not registered yet.
+     */
+    boolean markRegistered(Path dir) {
+        return registeredDirs.add(dir);
+    }
+
+    void markUnregistered(Path dir) {
+        registeredDirs.remove(dir);
+    }
+
+    @Override
+    public boolean onEvent(Kind<?> kind, Path path) {
+        return dispatcher.enqueue(kind, path, root.relativize(path).toString());
+    }
+}
@@ -16,133 +16,222 @@
  */
 package org.javaee7.jca.filewatch.adapter;
 
-import static java.lang.System.out;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
 import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.WatchEvent;
-import java.nio.file.WatchEvent.Kind;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-
-import javax.resource.spi.endpoint.MessageEndpoint;
-import javax.resource.spi.endpoint.MessageEndpointFactory;
-import javax.resource.spi.work.Work;
-import javax.resource.spi.work.WorkException;
-
-import org.javaee7.jca.filewatch.event.Created;
-import org.javaee7.jca.filewatch.event.Deleted;
-import org.javaee7.jca.filewatch.event.Modified;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
+ * One shard of the watch mode: a +WatchService+ and the thread taking events from it. Every directory watched by an
+ * endpoint is served by exactly one shard.
+ *
+ * In recursive mode every subdirectory is registered as well, including the ones created later on. When the
+ * +WatchService+ reports an +OVERFLOW+, the whole directory is rescanned and compared with its snapshot, so no
+ * event is lost even if the +WatchService+ dropped some. The same is done for an endpoint whose queue overflowed,
+ * once the queue has drained; until then the thread checks every +RECOVERY_INTERVAL_MILLIS+ instead of waiting for
+ * the next event.
+ *
  * @author Robert Panzer (robert.panzer@me.com)
  * @author Bartosz Majsak (bartosz.majsak@gmail.com)
  */
 final class WatchingThread extends Thread {
 
-    private WatchService watchService;
+    private static final Logger logger = Logger.getLogger(WatchingThread.class.getName());
+
+    static final long RECOVERY_INTERVAL_MILLIS = 100;
+
+    private final WatchService watchService;
+
+    private final Map<WatchKey, WatchedDirectory> keys = new ConcurrentHashMap<>();
 
-    private FileSystemWatcherResourceAdapter resourceAdapter;
+    /**
+     * Held while a directory is registered and its key recorded, and while the thread looks a key up, so that events
+     * for a directory registered from another thread are never taken for those of an unknown key.
+     */
+    private final Object registration = new Object();
 
-    WatchingThread(WatchService watchService, FileSystemWatcherResourceAdapter ra) {
+    private final Set<WatchedDirectory> directories = Collections.newSetFromMap(new ConcurrentHashMap<WatchedDirectory, Boolean>());
+
+    WatchingThread(WatchService watchService, String name) {
+        super(name);
         this.watchService = watchService;
-        this.resourceAdapter = ra;
+    }
+
+    void register(WatchedDirectory directory) throws IOException {
+        directory.setSnapshot(DirectorySnapshot.scan(directory.getRoot(), directory.isRecursive()));
+        registerTree(directory, directory.getRoot());
+        directories.add(directory);
+    }
+
+    void unregister(EndpointDispatcher dispatcher) {
+        Iterator<WatchedDirectory> watched = directories.iterator();
+        while (watched.hasNext()) {
+            if (watched.next().getDispatcher() == dispatcher) {
+                watched.remove();
+            }
+        }
+
+        Iterator<Map.Entry<WatchKey, WatchedDirectory>> entries = keys.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<WatchKey, WatchedDirectory> entry = entries.next();
+            if (entry.getValue().getDispatcher() == dispatcher) {
+                entry.getKey().cancel();
+                entries.remove();
+            }
+        }
+    }
+
+    void close() throws IOException {
+        watchService.close();
     }
 
     public void run() {
         while (true) {
             try {
-                WatchKey watchKey = watchService.take();
+                WatchKey watchKey = isRecovering()
+                    ? watchService.poll(RECOVERY_INTERVAL_MILLIS, MILLISECONDS)
+                    : watchService.take();
+
                 if (watchKey != null) {
-                    dispatchEvents(watchKey.pollEvents(), resourceAdapter.getListener(watchKey));
-                    watchKey.reset();
+                    WatchedDirectory directory;
+                    synchronized (registration) {
+                        directory = keys.get(watchKey);
+                    }
+                    List<WatchEvent<?>> events = watchKey.pollEvents();
+                    Path dir = (Path) watchKey.watchable();
+
+                    if (directory != null) {
+                        dispatchEvents(events, dir, directory);
+                    }
+
+                    if (!watchKey.reset()) {
+                        keys.remove(watchKey);
+                        if (directory != null) {
+                            directory.markUnregistered(dir);
+                        }
+                    }
                 }
+
+                recoverOverflowedEndpoints();
             } catch (ClosedWatchServiceException e) {
                 return;
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    private boolean isRecovering() {
+        for (WatchedDirectory directory : directories) {
+            if (directory.getDispatcher().isOverflowed()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rescans the directories of the endpoints that dropped events, once their queue has room again. The other
+     * endpoints served by this thread are not affected.
+     */
+    private void recoverOverflowedEndpoints() {
+        for (WatchedDirectory directory : directories) {
+            if (directory.getDispatcher().readyToRecover()) {
+                logger.info("Queue of " + directory.getRoot() + " overflowed, rescanning");
+                rescan(directory);
             }
         }
     }
 
-    private void dispatchEvents(List<WatchEvent<?>> events, MessageEndpointFactory messageEndpointFactory) {
+    private void dispatchEvents(List<WatchEvent<?>> events, Path dir, WatchedDirectory directory) {
         for (WatchEvent<?> event : events) {
-            Path path = (Path) event.context();
-            
-            out.println("Watch thread received event of kind: " + event.kind() + " for " + path.getFileName());
+            if (OVERFLOW.equals(event.kind())) {
+                logger.warning("Watch thread lost events for " + directory.getRoot() + ", rescanning");
+                rescan(directory);
+                continue;
+            }
 
-            try {
-                MessageEndpoint endpoint = messageEndpointFactory.createEndpoint(null);
-                Class<?> beanClass = resourceAdapter.getBeanClass(messageEndpointFactory);
-                
-                for (Method beanClassMethod : beanClass.getMethods()) {
-                    if (methodIsForEvent(path.toString(), beanClassMethod, event.kind())) {
-                        invoke(endpoint, beanClassMethod, path);
-                    }
+            Path path = dir.resolve((Path) event.context());
+
+            if (directory.onEvent(event.kind(), path)) {
+                directory.getSnapshot().update(event.kind(), path);
+            }
+
+            if (directory.isRecursive() && ENTRY_CREATE.equals(event.kind()) && Files.isDirectory(path, NOFOLLOW_LINKS)) {
+                try {
+                    registerTree(directory, path);
+                    directory.getSnapshot().addTree(path, directory);
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Could not watch " + path, e);
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
             }
         }
     }
 
-    private void invoke(final MessageEndpoint endpoint, final Method beanClassMethod, final Path path) throws WorkException {
-        
-        out.println("Watch thread scheduling endpoint call via workmanager for method: " + beanClassMethod.getName() + " and file" + path.getFileName());
-        
-        resourceAdapter.getBootstrapContext().getWorkManager().scheduleWork(new Work() {
+    private void rescan(WatchedDirectory directory) {
+        try {
+            if (directory.isRecursive()) {
+                registerTree(directory, directory.getRoot());
+            }
+            directory.getSnapshot().replaceWith(
+                DirectorySnapshot.scan(directory.getRoot(), directory.isRecursive()), directory);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not rescan " + directory.getRoot(), e);
+        }
+    }
+
+    private void registerTree(final WatchedDirectory directory, Path dir) throws IOException {
+        if (!directory.isRecursive()) {
+            registerDir(directory, dir);
+            return;
+        }
+
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
 
             @Override
-            public void run() {
-                try {
-                    try {
-                        endpoint.beforeDelivery(beanClassMethod);
-    
-                        beanClassMethod.invoke(endpoint, path.toFile());
-                    
-                    } finally {
-                        endpoint.afterDelivery();
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attributes) throws IOException {
+                registerDir(directory, path);
+                return FileVisitResult.CONTINUE;
             }
 
             @Override
-            public void release() {
+            public FileVisitResult visitFileFailed(Path path, IOException e) {
+                return FileVisitResult.CONTINUE;
             }
         });
     }
-    
-    private boolean methodIsForEvent(String path, Method method, Kind<?> eventKind) {
-        return
-            (
-                ENTRY_CREATE.equals(eventKind) && 
-                method.isAnnotationPresent(Created.class) && 
-                path.matches(method.getAnnotation(Created.class).value())
-            ) 
-            
-            ||
-            
-            (
-                ENTRY_DELETE.equals(eventKind) && 
-                method.isAnnotationPresent(Deleted.class) && 
-                path.matches(method.getAnnotation(Deleted.class).value())
-            )
-            
-            ||
-            
-            (
-                ENTRY_MODIFY.equals(eventKind) && 
-                method.isAnnotationPresent(Modified.class) && 
-                path.matches(method.getAnnotation(Modified.class).value())
-            )
-            
-            ;
+
+    private void registerDir(WatchedDirectory directory, Path dir) throws IOException {
+        if (directory.markRegistered(dir)) {
+            try {
+                synchronized (registration) {
+                    keys.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), directory);
+                }
+            } catch (IOException e) {
+                directory.markUnregistered(dir);
+                throw e;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -38,6 +38,7 @@ import org.javaee7.jca.filewatch.mdb.FileWatchingMDB;
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit.Arquillian;
 import org.jboss.arquillian.junit.InSequence;
+import org.jboss.shrinkwrap.api.Filters;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
@@ -63,6 +64,7 @@ public class FileWatcherTest {
                     .addAsLibrary(
                         create(JavaArchive.class, "rar.jar")
                             .addPackages(true, 
+                                Filters.exclude(".*Test.*"), // the unit tests of the adapter share its package
                                 Created.class.getPackage(), 
                                 FileSystemWatcher.class.getPackage())),
                     
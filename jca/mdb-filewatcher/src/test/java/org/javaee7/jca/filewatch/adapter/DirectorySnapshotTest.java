@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.javaee7.jca.filewatch.adapter;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The rescan that recovers lost events: comparing a snapshot with a newer one reports every change once, and a change
+ * whose event was dropped is reported again by the next rescan.
+ */
+public class DirectorySnapshotTest {
+
+    private Path root;
+
+    @Before
+    public void createDirectory() throws IOException {
+        root = Files.createTempDirectory("snapshot");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void should_report_changes_since_last_scan() throws Exception {
+        Files.createFile(root.resolve("modified.txt"));
+        Files.createFile(root.resolve("deleted.txt"));
+        Files.createFile(root.resolve("unchanged.txt"));
+        DirectorySnapshot snapshot = DirectorySnapshot.scan(root, false);
+
+        Files.createFile(root.resolve("created.txt"));
+        modify(root.resolve("modified.txt"));
+        Files.delete(root.resolve("deleted.txt"));
+
+        RecordingListener listener = new RecordingListener();
+        snapshot.replaceWith(DirectorySnapshot.scan(root, false), listener);
+        assertThat(listener.events).containsOnly("CREATE created.txt", "MODIFY modified.txt", "DELETE deleted.txt");
+
+        listener.events.clear();
+        snapshot.replaceWith(DirectorySnapshot.scan(root, false), listener);
+        assertThat(listener.events).isEmpty();
+    }
+
+    @Test
+    public void should_report_dropped_events_again() throws Exception {
+        Files.createFile(root.resolve("modified.txt"));
+        Files.createFile(root.resolve("deleted.txt"));
+        DirectorySnapshot snapshot = DirectorySnapshot.scan(root, false);
+
+        Files.createFile(root.resolve("created.txt"));
+        Files.createFile(root.resolve("taken.txt"));
+        modify(root.resolve("modified.txt"));
+        Files.delete(root.resolve("deleted.txt"));
+
+        RecordingListener listener = new RecordingListener();
+        listener.dropAllBut = "taken.txt";
+        snapshot.replaceWith(DirectorySnapshot.scan(root, false), listener);
+        assertThat(listener.events).containsOnly("CREATE taken.txt");
+
+        listener.events.clear();
+        listener.dropAllBut = null;
+        snapshot.replaceWith(DirectorySnapshot.scan(root, false), listener);
+        assertThat(listener.events).containsOnly("CREATE created.txt", "MODIFY modified.txt", "DELETE deleted.txt");
+    }
+
+    @Test
+    public void should_report_subdirectories_when_recursive() throws Exception {
+        DirectorySnapshot snapshot = DirectorySnapshot.scan(root, true);
+
+        Files.createDirectories(root.resolve("sub/dir"));
+        Files.createFile(root.resolve("sub/dir/a.txt"));
+
+        RecordingListener listener = new RecordingListener();
+        snapshot.replaceWith(DirectorySnapshot.scan(root, true), listener);
+        assertThat(listener.events).containsOnly("CREATE sub", "CREATE sub/dir", "CREATE sub/dir/a.txt");
+
+        listener.events.clear();
+        Files.delete(root.resolve("sub/dir/a.txt"));
+        Files.delete(root.resolve("sub/dir"));
+        snapshot.replaceWith(DirectorySnapshot.scan(root, true), listener);
+        assertThat(listener.events).containsOnly("DELETE sub/dir", "DELETE sub/dir/a.txt");
+    }
+
+    private static void modify(Path file) throws IOException {
+        Files.write(file, new byte[] { 1 });
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+    }
+
+    private final class RecordingListener implements DirectorySnapshot.Listener {
+
+        private final List<String> events = new ArrayList<>();
+        private String dropAllBut;
+
+        @Override
+        public boolean onEvent(Kind<?> kind, Path path) {
+            String relativePath = root.relativize(path).toString();
+            if (dropAllBut != null && !dropAllBut.equals(relativePath)) {
+                return false;
+            }
+            events.add(name(kind) + " " + relativePath);
+            return true;
+        }
+
+        private String name(Kind<?> kind) {
+            return ENTRY_CREATE.equals(kind) ? "CREATE" : ENTRY_DELETE.equals(kind) ? "DELETE" : ENTRY_MODIFY.equals(kind) ? "MODIFY" : kind.name();
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.javaee7.jca.filewatch.adapter;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent.Kind;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.resource.spi.endpoint.MessageEndpoint;
+import javax.resource.spi.endpoint.MessageEndpointFactory;
+import javax.resource.spi.work.ExecutionContext;
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkListener;
+import javax.resource.spi.work.WorkManager;
+import javax.transaction.xa.XAResource;
+
+import org.javaee7.jca.filewatch.event.Created;
+import org.javaee7.jca.filewatch.event.Deleted;
+import org.javaee7.jca.filewatch.event.Modified;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Delivery of queued events to an endpoint, without a container: the +WorkManager+ only collects the +Work+ it is
+ * given, and the test runs it when the events of a burst have been queued.
+ */
+public class EndpointDispatcherTest {
+
+    private static final Path DIR = Paths.get("/watched").toAbsolutePath();
+
+    private ManualWorkManager workManager;
+    private RecordingEndpointFactory endpointFactory;
+
+    @Before
+    public void init() {
+        workManager = new ManualWorkManager();
+        endpointFactory = new RecordingEndpointFactory(DIR);
+    }
+
+    @Test
+    public void should_coalesce_repeated_events_of_a_burst() throws Exception {
+        EndpointDispatcher dispatcher = dispatcher(100, 100);
+
+        enqueue(dispatcher, ENTRY_CREATE, "a.txt");
+        enqueue(dispatcher, ENTRY_MODIFY, "a.txt");
+        enqueue(dispatcher, ENTRY_MODIFY, "a.txt");
+        enqueue(dispatcher, ENTRY_MODIFY, "a.txt");
+        enqueue(dispatcher, ENTRY_MODIFY, "b.txt");
+        enqueue(dispatcher, ENTRY_MODIFY, "a.txt");
+        enqueue(dispatcher, ENTRY_DELETE, "b.txt");
+        workManager.runAll();
+
+        assertThat(endpointFactory.events).containsExactly("CREATE a.txt", "MODIFY b.txt", "MODIFY a.txt", "DELETE b.txt");
+        assertThat(endpointFactory.endpoints).isEqualTo(1);
+        assertThat(dispatcher.getStatistics().toString()).contains("7 queued, 0 dropped, 3 coalesced, 4 delivered");
+    }
+
+    /**
+     * Only the last of the repeated events of a file is kept, at its own position, so that the last event delivered
+     * for a file always matches its final state.
+     */
+    @Test
+    public void should_deliver_created_deleted_created_as_deleted_created() throws Exception {
+        EndpointDispatcher dispatcher = dispatcher(100, 100);
+
+        enqueue(dispatcher, ENTRY_CREATE, "a.txt");
+        enqueue(dispatcher, ENTRY_DELETE, "a.txt");
+        enqueue(dispatcher, ENTRY_CREATE, "a.txt");
+        workManager.runAll();
+
+        assertThat(endpointFactory.events).containsExactly("DELETE a.txt", "CREATE a.txt");
+    }
+
+    @Test
+    public void should_deliver_in_batches_of_max_batch_size() throws Exception {
+        EndpointDispatcher dispatcher = dispatcher(100, 2);
+
+        for (int i = 0; i < 5; i++) {
+            enqueue(dispatcher, ENTRY_CREATE, i + ".txt");
+        }
+        workManager.runAll();
+
+        assertThat(endpointFactory.events).containsExactly(
+            "CREATE 0.txt", "CREATE 1.txt", "CREATE 2.txt", "CREATE 3.txt", "CREATE 4.txt");
+        assertThat(endpointFactory.endpoints).isEqualTo(3);
+    }
+
+    @Test
+    public void should_schedule_one_work_at_a_time() throws Exception {
+        EndpointDispatcher dispatcher = dispatcher(100, 100);
+
+        enqueue(dispatcher, ENTRY_CREATE, "a.txt");
+        enqueue(dispatcher, ENTRY_CREATE, "b.txt");
+        assertThat(workManager.scheduled).isEqualTo(1);
+
+        workManager.runAll();
+        enqueue(dispatcher, ENTRY_CREATE, "c.txt");
+        assertThat(workManager.scheduled).isEqualTo(2);
+    }
+
+    /**
+     * Patterns are matched against the path relative to the watched directory, while the MDB gets the absolute path
+     * of the file.
+     */
+    @Test
+    public void should_match_relative_path_and_deliver_absolute_file() throws Exception {
+        EndpointDispatcher dispatcher = dispatcher(100, 100);
+
+        enqueue(dispatcher, ENTRY_CREATE, "sub/a.txt");
+        enqueue(dispatcher, ENTRY_CREATE, "a.pdf");
+        workManager.runAll();
+
+        assertThat(endpointFactory.events).containsExactly("CREATE sub/a.txt");
+        assertThat(endpointFactory.files).containsExactly(DIR.resolve("sub/a.txt").toFile());
+        assertThat(endpointFactory.files.get(0).isAbsolute()).isTrue();
+    }
+
+    @Test
+    public void should_drop_events_instead_of_blocking_when_queue_is_full() throws Exception {
+        EndpointDispatcher dispatcher = dispatcher(4, 100);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(enqueue(dispatcher, ENTRY_CREATE, i + ".txt")).isTrue();
+        }
+        assertThat(dispatcher.isOverflowed()).isFalse();
+
+        assertThat(enqueue(dispatcher, ENTRY_CREATE, "4.txt")).isFalse();
+        assertThat(dispatcher.isOverflowed()).isTrue();
+        assertThat(dispatcher.readyToRecover()).isFalse();
+
+        workManager.runAll();
+        assertThat(endpointFactory.events).containsExactly("CREATE 0.txt", "CREATE 1.txt", "CREATE 2.txt", "CREATE 3.txt");
+        assertThat(dispatcher.getStatistics().toString()).contains("4 queued, 1 dropped");
+
+        // The queue has drained, the overflow is reported once
+        assertThat(dispatcher.readyToRecover()).isTrue();
+        assertThat(dispatcher.readyToRecover()).isFalse();
+        assertThat(dispatcher.isOverflowed()).isFalse();
+    }
+
+    @Test
+    public void should_accept_events_nobody_listens_to() throws Exception {
+        EndpointDispatcher dispatcher = dispatcher(1, 100);
+
+        assertThat(enqueue(dispatcher, ENTRY_CREATE, "a.txt")).isTrue();
+        assertThat(enqueue(dispatcher, OVERFLOW, "b.txt")).isTrue();
+        assertThat(dispatcher.isOverflowed()).isFalse();
+    }
+
+    private EndpointDispatcher dispatcher(int queueCapacity, int maxBatchSize) {
+        return new EndpointDispatcher(endpointFactory, workManager, queueCapacity, maxBatchSize, "watch");
+    }
+
+    private static boolean enqueue(EndpointDispatcher dispatcher, Kind<?> kind, String relativePath) {
+        return dispatcher.enqueue(kind, DIR.resolve(relativePath), relativePath);
+    }
+
+    /**
+     * The bean class of the endpoint, recording the events delivered to it in its factory, with the path relative to
+     * the watched directory.
+     */
+    public static class RecordingEndpoint implements FileSystemWatcher, MessageEndpoint {
+
+        private final RecordingEndpointFactory factory;
+
+        RecordingEndpoint(RecordingEndpointFactory factory) {
+            this.factory = factory;
+        }
+
+        @Created(".*\\.txt")
+        public void onCreated(File file) {
+            factory.record("CREATE", file);
+        }
+
+        @Modified(".*\\.txt")
+        public void onModified(File file) {
+            factory.record("MODIFY", file);
+        }
+
+        @Deleted(".*\\.txt")
+        public void onDeleted(File file) {
+            factory.record("DELETE", file);
+        }
+
+        @Override
+        public void beforeDelivery(Method method) {
+        }
+
+        @Override
+        public void afterDelivery() {
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    static class RecordingEndpointFactory implements MessageEndpointFactory {
+
+        private final Path root;
+        final List<String> events = new ArrayList<>();
+        final List<File> files = new ArrayList<>();
+        int endpoints;
+
+        RecordingEndpointFactory(Path root) {
+            this.root = root;
+        }
+
+        synchronized void record(String kind, File file) {
+            events.add(kind + " " + root.relativize(file.toPath()));
+            files.add(file);
+        }
+
+        @Override
+        public synchronized MessageEndpoint createEndpoint(XAResource xaResource) {
+            endpoints++;
+            return new RecordingEndpoint(this);
+        }
+
+        @Override
+        public MessageEndpoint createEndpoint(XAResource xaResource, long timeout) {
+            return createEndpoint(xaResource);
+        }
+
+        @Override
+        public boolean isDeliveryTransacted(Method method) {
+            return false;
+        }
+
+        @Override
+        public String getActivationName() {
+            return RecordingEndpoint.class.getName();
+        }
+
+        @Override
+        public Class<?> getEndpointClass() {
+            return RecordingEndpoint.class;
+        }
+    }
+
+    /**
+     * Keeps the scheduled +Work+ until the test runs it.
+     */
+    static class ManualWorkManager implements WorkManager {
+
+        private final List<Work> works = new ArrayList<>();
+        int scheduled;
+
+        synchronized void runAll() {
+            while (!works.isEmpty()) {
+                works.remove(0).run();
+            }
+        }
+
+        @Override
+        public synchronized void scheduleWork(Work work) {
+            scheduled++;
+            works.add(work);
+        }
+
+        @Override
+        public void scheduleWork(Work work, long startTimeout, ExecutionContext context, WorkListener listener) {
+            scheduleWork(work);
+        }
+
+        @Override
+        public void doWork(Work work) {
+            work.run();
+        }
+
+        @Override
+        public void doWork(Work work, long startTimeout, ExecutionContext context, WorkListener listener) {
+            work.run();
+        }
+
+        @Override
+        public long startWork(Work work) {
+            scheduleWork(work);
+            return UNKNOWN;
+        }
+
+        @Override
+        public long startWork(Work work, long startTimeout, ExecutionContext context, WorkListener listener) {
+            return startWork(work);
+        }
+    }
+}
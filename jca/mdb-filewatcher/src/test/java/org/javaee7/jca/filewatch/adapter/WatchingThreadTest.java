@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.javaee7.jca.filewatch.adapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.javaee7.jca.filewatch.adapter.EndpointDispatcherTest.ManualWorkManager;
+import org.javaee7.jca.filewatch.adapter.EndpointDispatcherTest.RecordingEndpointFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Two endpoints served by the same shard, one of which has a queue of only +SLOW_QUEUE_CAPACITY+ events and an MDB that
+ * is not taking them: the other endpoint keeps getting its events, and once the slow one catches up, its directory is
+ * rescanned and it gets an event for every file it missed.
+ */
+public class WatchingThreadTest {
+
+    private static final int SLOW_QUEUE_CAPACITY = 4;
+    private static final int FILES = 20;
+
+    private final List<Path> roots = new ArrayList<>();
+    private WatchingThread shard;
+
+    @Before
+    public void startShard() throws IOException {
+        shard = new WatchingThread(FileSystems.getDefault().newWatchService(), "FileSystemWatcher-test");
+        shard.start();
+    }
+
+    @After
+    public void stopShard() throws Exception {
+        shard.close();
+        shard.join(TimeUnit.SECONDS.toMillis(5));
+        for (Path root : roots) {
+            delete(root);
+        }
+    }
+
+    @Test
+    public void should_recover_overflowed_endpoint_without_stalling_others() throws Exception {
+        Path slowRoot = directory("slow");
+        final ManualWorkManager slowWorkManager = new ManualWorkManager();
+        final RecordingEndpointFactory slowEndpoint = new RecordingEndpointFactory(slowRoot);
+        final EndpointDispatcher slow = new EndpointDispatcher(slowEndpoint, slowWorkManager, SLOW_QUEUE_CAPACITY, 100, "watch");
+        shard.register(new WatchedDirectory(slowRoot, false, slow));
+
+        Path fastRoot = directory("fast");
+        final ManualWorkManager fastWorkManager = new ManualWorkManager();
+        final RecordingEndpointFactory fastEndpoint = new RecordingEndpointFactory(fastRoot);
+        EndpointDispatcher fast = new EndpointDispatcher(fastEndpoint, fastWorkManager, 100, 100, "watch");
+        shard.register(new WatchedDirectory(fastRoot, false, fast));
+
+        // The slow MDB takes nothing while its directory fills up
+        for (int i = 0; i < FILES; i++) {
+            Files.createFile(slowRoot.resolve(i + ".txt"));
+        }
+        await(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return slow.isOverflowed();
+            }
+        });
+
+        // The shard still delivers the events of the other endpoint
+        Files.createFile(fastRoot.resolve("fast.txt"));
+        await(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                fastWorkManager.runAll();
+                synchronized (fastEndpoint) {
+                    return fastEndpoint.events.contains("CREATE fast.txt");
+                }
+            }
+        });
+        assertThat(slow.isOverflowed()).isTrue();
+
+        // Once the slow MDB catches up, every file it missed is delivered
+        await(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                slowWorkManager.runAll();
+                synchronized (slowEndpoint) {
+                    for (int i = 0; i < FILES; i++) {
+                        if (!slowEndpoint.events.contains("CREATE " + i + ".txt")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+        });
+    }
+
+    private Path directory(String prefix) throws IOException {
+        Path root = Files.createTempDirectory(prefix).toAbsolutePath();
+        roots.add(root);
+        return root;
+    }
+
+    private static void await(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.call()) {
+            assertThat(System.nanoTime() < deadline).isTrue();
+            Thread.sleep(50);
+        }
+    }
+
+    private static void delete(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package org.javaee7.jms.batch;
+
+import javax.annotation.Resource;
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.AbstractItemReader;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSConsumer;
+import javax.jms.JMSContext;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Topic;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reads the subscription a chunk at a time instead of one message per +readItem+ call.
+ *
+ * When its buffer is empty, the reader waits at most +maxWaitMillis+ for the first message and then takes whatever
+ * else is already available, up to what is left of the current chunk. The buffer is therefore always empty when the
+ * chunk ends. +batchSize+ has to match the +item-count+ of the chunk.
+ *
+ * The subscription is consumed through a +JMSContext+ opened for each chunk from its first +readItem+ call, which runs
+ * within the chunk transaction, so the context takes part in it: the messages of a chunk are acknowledged when the
+ * chunk commits, together with the work of the writer, and are redelivered if the chunk is rolled back.
+ */
+@Named
+public class BatchedJmsItemReader extends AbstractItemReader {
+
+    @Resource(lookup = Resources.CONNECTION_FACTORY)
+    ConnectionFactory factory;
+
+    @Resource(lookup = Resources.TOPIC)
+    Topic topic;
+
+    @Inject
+    @BatchProperty(name = "batchSize")
+    String batchSizeProp;
+
+    @Inject
+    @BatchProperty(name = "maxWaitMillis")
+    String maxWaitMillisProp;
+
+    private JMSContext jms;
+    private JMSConsumer subscription;
+
+    private int batchSize;
+    private long maxWaitMillis;
+    private final Deque<Integer> buffer = new ArrayDeque<>();
+    private int chunkItems;
+
+    @Override
+    public void open(Serializable checkpoint) throws Exception {
+        batchSize = Integer.parseInt(batchSizeProp);
+        maxWaitMillis = Long.parseLong(maxWaitMillisProp);
+        buffer.clear(); // <1> After a rollback the buffered messages are redelivered, so they must not be read twice
+    }
+
+    @Override
+    public Object readItem() throws Exception {
+        if (jms == null) {
+            jms = factory.createContext(); // <2> Called within the chunk transaction, so the context is enlisted in it
+            subscription = jms.createDurableConsumer(topic, Resources.SUBSCRIPTION);
+            chunkItems = 0;
+        }
+        if (buffer.isEmpty()) {
+            fill(batchSize - chunkItems);
+        }
+        return buffer.poll(); // <3> +null+ once nothing arrived within +maxWaitMillis+, ending the step
+    }
+
+    @Override
+    public Serializable checkpointInfo() throws Exception {
+        closeChunk(); // <4> Still within the chunk transaction, the messages are acknowledged when it commits
+        return null;
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeChunk();
+    }
+
+    private void fill(int count) throws JMSException {
+        if (count <= 0) {
+            return;
+        }
+
+        Message message = subscription.receive(maxWaitMillis);
+        while (message != null) {
+            buffer.add(message.getBody(Integer.class));
+            if (++chunkItems >= batchSize) {
+                break;
+            }
+            message = subscription.receiveNoWait();
+        }
+    }
+
+    private void closeChunk() {
+        if (jms != null) {
+            subscription.close();
+            jms.close();
+            jms = null;
+            subscription = null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.javaee7.jms.batch;
+
+import javax.annotation.Resource;
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.jms.JMSContext;
+import javax.jms.JMSProducer;
+import javax.jms.Queue;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Publishes every item of a chunk to the result queue.
+ *
+ * The writer is called within the chunk transaction, so the container managed +JMSContext+ takes part in it: the
+ * messages of a chunk are only sent when the chunk commits, all in one transaction, and none of them is sent if the
+ * chunk is rolled back.
+ */
+@Named
+public class JmsItemWriter extends AbstractItemWriter {
+
+    @Inject
+    JMSContext jms;
+
+    @Resource(lookup = Resources.RESULT_QUEUE)
+    Queue queue;
+
+    @Override
+    public void writeItems(List<Object> items) throws Exception {
+        JMSProducer producer = jms.createProducer();
+        for (Object item : items) {
+            producer.send(queue, (Serializable) item);
+        }
+    }
+}
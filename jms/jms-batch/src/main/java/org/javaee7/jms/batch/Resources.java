@@ -2,16 +2,25 @@ package org.javaee7.jms.batch;
 
 import javax.jms.JMSConnectionFactoryDefinition;
 import javax.jms.JMSDestinationDefinition;
+import javax.jms.JMSDestinationDefinitions;
 
 /**
  * @author Patrik Dudits
  */
-@JMSDestinationDefinition(
-    name = Resources.TOPIC,
-    resourceAdapter = "jmsra",
-    interfaceName = "javax.jms.Topic",
-    destinationName = "batch.topic",
-    description = "Batch processing topic")
+@JMSDestinationDefinitions({
+    @JMSDestinationDefinition(
+        name = Resources.TOPIC,
+        resourceAdapter = "jmsra",
+        interfaceName = "javax.jms.Topic",
+        destinationName = "batch.topic",
+        description = "Batch processing topic"),
+    @JMSDestinationDefinition(
+        name = Resources.RESULT_QUEUE,
+        resourceAdapter = "jmsra",
+        interfaceName = "javax.jms.Queue",
+        destinationName = "batch.results",
+        description = "Queue the items of the batched job are published to")
+})
 @JMSConnectionFactoryDefinition( // <1> WildFly appears to require user and password to be set for connection factories
     name = Resources.CONNECTION_FACTORY,
     resourceAdapter = "jmsra",
@@ -20,5 +29,6 @@ import javax.jms.JMSDestinationDefinition;
 public class Resources {
     public static final String SUBSCRIPTION = "BatchJob"; // <3> Durable consumer is uniquely identified with its +clientId+ and +subscriptionName+.
     public static final String TOPIC = "java:app/batch/topic";
+    public static final String RESULT_QUEUE = "java:app/batch/results";
     public static final String CONNECTION_FACTORY = "java:app/batch/factory";
 }
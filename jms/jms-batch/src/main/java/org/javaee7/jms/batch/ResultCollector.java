@@ -1,32 +1,56 @@
 package org.javaee7.jms.batch;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
 import javax.ejb.Singleton;
 
 /**
+ * The item count and sum of the last job are published together as one immutable +Result+, so a caller that reads
+ * both from the same +getLastResult()+ never sees the count of one job with the sum of another, and neither readers
+ * nor the writer wait on the container lock.
+ *
  * @author Patrik Dudits
  */
 @Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 public class ResultCollector {
 
-    private int numberOfJobs;
-    private int lastItemCount;
-    private int lastSum;
+    private final AtomicInteger numberOfJobs = new AtomicInteger();
+    private volatile Result last = new Result(0, 0);
 
     public void postResult(int sum, int numItems) {
-        numberOfJobs++;
-        lastItemCount = numItems;
-        lastSum = sum;
+        last = new Result(sum, numItems);
+        numberOfJobs.incrementAndGet();
     }
 
     public int getNumberOfJobs() {
-        return numberOfJobs;
+        return numberOfJobs.get();
     }
 
-    public int getLastItemCount() {
-        return lastItemCount;
+    /**
+     * @return the item count and sum of the last job, read together
+     */
+    public Result getLastResult() {
+        return last;
     }
 
-    public int getLastSum() {
-        return lastSum;
+    public static final class Result {
+        private final int sum;
+        private final int itemCount;
+
+        Result(int sum, int itemCount) {
+            this.sum = sum;
+            this.itemCount = itemCount;
+        }
+
+        public int getSum() {
+            return sum;
+        }
+
+        public int getItemCount() {
+            return itemCount;
+        }
     }
 }
@@ -33,6 +33,13 @@ import static org.junit.Assert.*;
  *
  * include::SummingItemWriter[]
  *
+ * The +jms-batched-job+ reads the same subscription a whole chunk at a time within the chunk transaction, and
+ * publishes every chunk to a queue within that same transaction.
+ *
+ * include::BatchedJmsItemReader#readItem[]
+ *
+ * include::JmsItemWriter[]
+ *
  * @author Patrik Dudits
  */
 @RunWith(Arquillian.class)
@@ -57,7 +64,8 @@ public class JmsItemReaderTest {
             .addAsWebInfResource(EmptyAsset.INSTANCE, ArchivePaths.create("beans.xml"))
             .addClass(BatchTestHelper.class)
             .addPackage(JmsItemReader.class.getPackage())
-            .addAsResource("META-INF/batch-jobs/jms-job.xml");
+            .addAsResource("META-INF/batch-jobs/jms-job.xml")
+            .addAsResource("META-INF/batch-jobs/jms-batched-job.xml");
     }
 
     @Resource(lookup = "java:comp/DefaultJMSConnectionFactory")
@@ -66,6 +74,9 @@ public class JmsItemReaderTest {
     @Resource(lookup = Resources.TOPIC)
     Topic topic;
 
+    @Resource(lookup = Resources.RESULT_QUEUE)
+    Queue resultQueue;
+
     @EJB
     ResultCollector collector;
 
@@ -90,8 +101,9 @@ public class JmsItemReaderTest {
     public void worksAfterDeployment() throws InterruptedException {
         int sum = sendMessages(10);
         runJob();
-        assertEquals(10, collector.getLastItemCount());
-        assertEquals(sum, collector.getLastSum());
+        ResultCollector.Result result = collector.getLastResult();
+        assertEquals(10, result.getItemCount());
+        assertEquals(sum, result.getSum());
         assertEquals(1, collector.getNumberOfJobs());
     }
 
@@ -104,23 +116,83 @@ public class JmsItemReaderTest {
     public void worksInMultipleRuns() throws InterruptedException {
         int sum = sendMessages(14);
         runJob();
-        assertEquals(14, collector.getLastItemCount());
-        assertEquals(sum, collector.getLastSum());
+        ResultCollector.Result result = collector.getLastResult();
+        assertEquals(14, result.getItemCount());
+        assertEquals(sum, result.getSum());
         assertEquals(2, collector.getNumberOfJobs());
         sum = sendMessages(8); // <1> Sending messages from separate connections makes no difference
         sum += sendMessages(4);
         runJob();
-        assertEquals(12, collector.getLastItemCount());
-        assertEquals(sum, collector.getLastSum());
+        result = collector.getLastResult();
+        assertEquals(12, result.getItemCount());
+        assertEquals(sum, result.getSum());
         assertEquals(3, collector.getNumberOfJobs());
     }
 
+    /**
+     * The batched job reads the messages in chunks of 10, so 25 messages take two full chunks and a partial one.
+     * Every message read ends up on the result queue.
+     */
+    @InSequence(3)
+    @Test
+    public void batchedJobPublishesEveryChunk() throws InterruptedException {
+        int sum = sendMessages(25);
+        Properties parameters = new Properties();
+        parameters.setProperty("chunkSize", "10");
+        runJob("jms-batched-job", parameters);
+
+        int[] received = receiveResults();
+        assertEquals(25, received[0]);
+        assertEquals(sum, received[1]);
+    }
+
+    /**
+     * Compares the messages per second of the one-message-per-call reader with the batched reader over the same
+     * number of messages.
+     */
+    @InSequence(4)
+    @Test
+    public void batchedReaderThroughput() throws InterruptedException {
+        int messages = 2000;
+
+        sendMessages(messages);
+        long singleMillis = runJob("jms-job", new Properties());
+        assertEquals(messages, collector.getLastResult().getItemCount());
+
+        sendMessages(messages);
+        long batchedMillis = runJob("jms-batched-job", new Properties());
+        assertEquals(messages, receiveResults()[0]);
+
+        System.out.println("JmsItemReader: " + messages * 1000L / Math.max(singleMillis, 1) + " messages/sec");
+        System.out.println("BatchedJmsItemReader: " + messages * 1000L / Math.max(batchedMillis, 1) + " messages/sec");
+    }
+
     private void runJob() throws InterruptedException {
+        runJob("jms-job", new Properties());
+    }
+
+    private long runJob(String jobName, Properties parameters) throws InterruptedException {
         JobOperator jobOperator = BatchRuntime.getJobOperator();
-        Long executionId = jobOperator.start("jms-job", new Properties());
+        Long executionId = jobOperator.start(jobName, parameters);
         JobExecution jobExecution = jobOperator.getJobExecution(executionId);
 
-        BatchTestHelper.keepTestAlive(jobExecution);
+        jobExecution = BatchTestHelper.keepTestAlive(jobExecution);
+
+        return jobExecution.getEndTime().getTime() - jobExecution.getStartTime().getTime();
+    }
+
+    private int[] receiveResults() {
+        int count = 0;
+        int sum = 0;
+        try (JMSContext jms = factory.createContext(Session.AUTO_ACKNOWLEDGE)) {
+            JMSConsumer consumer = jms.createConsumer(resultQueue);
+            Integer payload;
+            while ((payload = consumer.receiveBody(Integer.class, 1000)) != null) {
+                count++;
+                sum += payload;
+            }
+        }
+        return new int[] { count, sum };
     }
 
     private int sendMessages(int count) {
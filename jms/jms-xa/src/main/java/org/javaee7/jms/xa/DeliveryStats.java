@@ -1,25 +1,36 @@
 package org.javaee7.jms.xa;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
 
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
 import javax.ejb.Singleton;
 
+/**
+ * Counts deliveries without the container lock: concurrent listeners add to a +LongAdder+ instead of queueing for
+ * the singleton.
+ */
 @Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 public class DeliveryStats {
 	
 	public static CountDownLatch countDownLatch = new CountDownLatch(1);
 
-    private long deliveredMessagesCount;
+    private final LongAdder deliveredMessagesCount = new LongAdder();
 
     public long getDeliveredMessagesCount() {
-        return deliveredMessagesCount;
+        return deliveredMessagesCount.sum();
     }
 
     public void messageDelivered() {
-        deliveredMessagesCount++;
+        deliveredMessagesCount.increment();
     }
 
+    /**
+     * Only exact when no message is being delivered at the same time.
+     */
     public void reset() {
-        deliveredMessagesCount = 0L;
+        deliveredMessagesCount.reset();
     }
 }
@@ -0,0 +1,71 @@
+package org.javaee7.jms.xa;
+
+import static org.jboss.shrinkwrap.api.ShrinkWrap.create;
+import static org.jboss.shrinkwrap.api.asset.EmptyAsset.INSTANCE;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import javax.annotation.Resource;
+import javax.ejb.EJB;
+import javax.enterprise.concurrent.ManagedExecutorService;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Checks the delivery counter shared by the XA and non-XA tests, on its own and without any JMS involved.
+ */
+@RunWith(Arquillian.class)
+public class DeliveryStatsTest {
+
+    private static final int THREADS = 8;
+    private static final int DELIVERIES = 10000;
+
+    @EJB
+    private DeliveryStats deliveryStats;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Deployment
+    public static WebArchive createDeployment() {
+        return create(WebArchive.class)
+                .addAsWebInfResource(INSTANCE, "beans.xml")
+                .addClass(DeliveryStats.class);
+    }
+
+    @Before
+    public void reset() {
+        deliveryStats.reset();
+    }
+
+    @Test
+    public void concurrentDeliveriesAreCounted() throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int j = 0; j < DELIVERIES; j++) {
+                        deliveryStats.messageDelivered();
+                    }
+                    return null;
+                }
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+
+        assertEquals((long) THREADS * DELIVERIES, deliveryStats.getDeliveredMessagesCount());
+    }
+}
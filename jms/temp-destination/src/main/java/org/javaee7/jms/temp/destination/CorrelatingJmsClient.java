@@ -0,0 +1,56 @@
+package org.javaee7.jms.temp.destination;
+
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.ejb.EJB;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.inject.Inject;
+import javax.jms.JMSContext;
+import javax.jms.JMSRuntimeException;
+import javax.jms.Queue;
+
+/**
+ * Client sending requests with a single, long-lived reply queue per node instead of a temporary queue per request.
+ * 
+ * Each request gets a unique +JMSCorrelationID+ and the response is matched back to it by +PendingReplies+. The
+ * method returns as soon as the request is sent, so no thread waits for the response; the caller gets a
+ * +CompletableFuture+ to combine or wait on as it sees fit.
+ */
+@Stateless
+public class CorrelatingJmsClient {
+
+	@Resource(lookup = Resources.REQUEST_QUEUE)
+	private Queue requestQueue;
+
+	@Inject
+	private JMSContext jms;
+
+	@EJB
+	private PendingReplies pendingReplies;
+
+	// <1> as with +JmsClient+, the request has to be sent right away, not when a transaction commits
+	@TransactionAttribute(NOT_SUPPORTED)
+	public CompletableFuture<String> process(String request) {
+		String correlationId = UUID.randomUUID().toString();
+
+		// <2> register before sending, the response may arrive before +send+ returns
+		CompletableFuture<String> response = pendingReplies.register(correlationId, 20, TimeUnit.SECONDS);
+
+		try {
+			jms.createProducer()
+			   .setJMSReplyTo(pendingReplies.getReplyQueue()) // <3> all responses to this node go to the same queue
+			   .setJMSCorrelationID(correlationId) // <4> and are told apart by their correlation ID
+			   .send(requestQueue, request);
+		} catch (JMSRuntimeException e) {
+			pendingReplies.fail(correlationId, e);
+		}
+
+		return response;
+	}
+}
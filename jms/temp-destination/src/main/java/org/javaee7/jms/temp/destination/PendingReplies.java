@@ -0,0 +1,163 @@
+package org.javaee7.jms.temp.destination;
+
+import static javax.ejb.ConcurrencyManagementType.BEAN;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSConsumer;
+import javax.jms.JMSContext;
+import javax.jms.JMSException;
+import javax.jms.JMSRuntimeException;
+import javax.jms.Message;
+import javax.jms.TemporaryQueue;
+
+/**
+ * Requests sent by this node that are still waiting for their response, keyed by +JMSCorrelationID+, and the reply
+ * queue their responses come back on.
+ * 
+ * Every node has its own reply queue, a temporary queue that lives as long as the application runs on the node, so a
+ * response is always received by the node whose request is waiting for it. A single queue shared by the whole cluster
+ * would not do: the in-memory state below only exists on one node, and a response taken by another node would be lost.
+ * If the node goes down, the responses to its pending requests are lost with its reply queue.
+ * 
+ * Nobody blocks on a pending request: the future is completed when the response arrives, or completed exceptionally
+ * as soon as its timeout elapses.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(BEAN)
+public class PendingReplies {
+
+	private static final Logger logger = Logger.getLogger(PendingReplies.class.getName());
+
+	@Resource(lookup = "java:comp/DefaultJMSConnectionFactory")
+	private ConnectionFactory connectionFactory;
+
+	@Resource
+	private ManagedThreadFactory threadFactory;
+
+	@Resource
+	private ManagedScheduledExecutorService scheduler;
+
+	private final Map<String, PendingReply> pending = new ConcurrentHashMap<>();
+
+	private JMSContext jms;
+	private TemporaryQueue replyQueue;
+	private volatile boolean running;
+
+	@PostConstruct
+	void start() {
+		jms = connectionFactory.createContext(); // <1> application managed, so the queue outlives any single request
+		replyQueue = jms.createTemporaryQueue();
+		final JMSConsumer consumer = jms.createConsumer(replyQueue);
+
+		running = true;
+		threadFactory.newThread(new Runnable() {
+
+			@Override
+			public void run() {
+				receiveReplies(consumer);
+			}
+		}).start();
+	}
+
+	@PreDestroy
+	void stop() {
+		running = false;
+		jms.close(); // <2> also ends the +receive+ the reply thread is blocked in
+
+		for (String correlationId : pending.keySet()) {
+			fail(correlationId, new CancellationException("Application stopped"));
+		}
+	}
+
+	public TemporaryQueue getReplyQueue() {
+		return replyQueue;
+	}
+
+	public CompletableFuture<String> register(final String correlationId, long timeout, TimeUnit unit) {
+		PendingReply reply = new PendingReply();
+		pending.put(correlationId, reply);
+
+		reply.timeout = scheduler.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				fail(correlationId, new TimeoutException("No response for request " + correlationId));
+			}
+		}, timeout, unit);
+
+		return reply.future;
+	}
+
+	public void complete(String correlationId, String response) {
+		PendingReply reply = pending.remove(correlationId);
+		if (reply != null) {
+			reply.cancelTimeout();
+			reply.future.complete(response);
+		}
+	}
+
+	public void fail(String correlationId, Throwable cause) {
+		PendingReply reply = pending.remove(correlationId);
+		if (reply != null) {
+			reply.cancelTimeout();
+			reply.future.completeExceptionally(cause);
+		}
+	}
+
+	public int size() {
+		return pending.size();
+	}
+
+	private void receiveReplies(JMSConsumer consumer) {
+		while (running) {
+			try {
+				Message message = consumer.receive();
+				if (message == null) {
+					continue;
+				}
+				String correlationId = message.getJMSCorrelationID();
+				if (correlationId != null) {
+					complete(correlationId, message.getBody(String.class));
+				}
+			} catch (JMSException | JMSRuntimeException e) {
+				if (running) {
+					// <3> the temporary queue does not survive a broken connection, pending requests will time out
+					logger.log(Level.SEVERE, "Stopped receiving replies", e);
+					return;
+				}
+			}
+		}
+	}
+
+	private static final class PendingReply {
+
+		private final CompletableFuture<String> future = new CompletableFuture<>();
+		private volatile ScheduledFuture<?> timeout;
+
+		void cancelTimeout() {
+			ScheduledFuture<?> scheduled = timeout;
+			if (scheduled != null) {
+				scheduled.cancel(false);
+			}
+		}
+	}
+}
@@ -35,7 +35,11 @@ public class RequestResponseOverJMS implements MessageListener {
 			System.out.println("Got request: " + payload);
 
 			String response = "Processed: " + payload; // <3> process the request
-			jms.createProducer().send(replyTo, response); // <4> send the response
+
+			String correlationId = message.getJMSCorrelationID() != null ? message.getJMSCorrelationID() : message.getJMSMessageID();
+			jms.createProducer()
+			   .setJMSCorrelationID(correlationId) // <4> let clients sharing a reply queue match the response to their request
+			   .send(replyTo, response); // <5> send the response
 		} catch (JMSException e) {
 			e.printStackTrace();
 		}
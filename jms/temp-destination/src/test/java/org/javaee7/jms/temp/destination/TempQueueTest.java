@@ -1,8 +1,22 @@
 package org.javaee7.jms.temp.destination;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import javax.annotation.Resource;
 import javax.ejb.EJB;
+import javax.enterprise.concurrent.ManagedExecutorService;
 
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit.Arquillian;
@@ -23,6 +37,8 @@ import org.junit.runner.RunWith;
 @RunWith(Arquillian.class)
 public class TempQueueTest {
 
+    private static final int LOAD_REQUESTS = 500;
+
     /**
      * In this test we created a server component +RequestResponseOverJMS+, that
      * listens on a Queue and passes the response to the destination specified in
@@ -37,16 +53,35 @@ public class TempQueueTest {
      *
      * include::JmsClient#process[]
      *
+     * +CorrelatingJmsClient+ sends all its requests with the same reply queue, and
+     * tags each of them with a +JMSCorrelationID+ instead:
+     *
+     * include::CorrelatingJmsClient#process[]
+     *
+     * Every node has its own reply queue, read by a single thread that completes
+     * the future registered for the correlation ID:
+     *
+     * include::PendingReplies#receiveReplies[]
      */
     @Deployment
     public static WebArchive deployment() {
         return ShrinkWrap.create(WebArchive.class)
-            .addClasses(RequestResponseOverJMS.class, JmsClient.class, Resources.class);
+            .addClasses(RequestResponseOverJMS.class, JmsClient.class, Resources.class,
+                CorrelatingJmsClient.class, PendingReplies.class);
     }
 
     @EJB
     private JmsClient client;
 
+    @EJB
+    private CorrelatingJmsClient correlatingClient;
+
+    @EJB
+    private PendingReplies pendingReplies;
+
+    @Resource
+    private ManagedExecutorService executor;
+
     /**
      * We invoke the client, and verify that the response is processed
      */
@@ -54,4 +89,111 @@ public class TempQueueTest {
     public void testRequestResposne() {
         assertEquals("Processed: Hello", client.process("Hello"));
     }
+
+    /**
+     * Concurrent requests over the reply queue of the node each get their own response back.
+     */
+    @Test
+    public void testCorrelatedRequestResponse() throws Exception {
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            responses.add(correlatingClient.process("Hello " + i));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("Processed: Hello " + i, responses.get(i).get(20, TimeUnit.SECONDS));
+        }
+        assertEquals(0, pendingReplies.size());
+    }
+
+    /**
+     * A request without response fails as soon as its timeout elapses, not on some later sweep.
+     */
+    @Test
+    public void testPendingReplyTimesOut() throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture<String> response = pendingReplies.register("never-answered", 200, TimeUnit.MILLISECONDS);
+        try {
+            response.get(5, TimeUnit.SECONDS);
+            fail("Expected the request to time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof java.util.concurrent.TimeoutException);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertEquals(0, pendingReplies.size());
+    }
+
+    /**
+     * Sends the same number of requests with both clients and prints throughput and
+     * p99 latency. With temporary queues every request in flight holds a thread (and
+     * a consumer) until its response arrives, so concurrency is limited to the size of
+     * the executor; the correlating client sends all of them up front.
+     */
+    @Test
+    public void testLoadComparison() throws Exception {
+        // Warm up both paths before measuring
+        runTempQueueLoad(50);
+        runCorrelatedLoad(50);
+
+        long[] tempQueue = runTempQueueLoad(LOAD_REQUESTS);
+        long[] correlated = runCorrelatedLoad(LOAD_REQUESTS);
+
+        System.out.format("Temporary queue per request: %d requests/sec, p99 %d ms%n", tempQueue[0], tempQueue[1]);
+        System.out.format("Reply queue per node:        %d requests/sec, p99 %d ms%n", correlated[0], correlated[1]);
+    }
+
+    private long[] runTempQueueLoad(int requests) throws Exception {
+        final long[] latencies = new long[requests];
+        List<Future<?>> calls = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            final int request = i;
+            calls.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    long sent = System.nanoTime();
+                    assertEquals("Processed: " + request, client.process(String.valueOf(request)));
+                    latencies[request] = System.nanoTime() - sent;
+                    return null;
+                }
+            }));
+        }
+        for (Future<?> call : calls) {
+            call.get(60, TimeUnit.SECONDS);
+        }
+
+        return summarize(latencies, System.nanoTime() - start);
+    }
+
+    private long[] runCorrelatedLoad(int requests) throws Exception {
+        final long[] latencies = new long[requests];
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            final int request = i;
+            final long sent = System.nanoTime();
+            // the stage returned by whenComplete finishes only after the latency is recorded
+            responses.add(correlatingClient.process(String.valueOf(request)).whenComplete(new BiConsumer<String, Throwable>() {
+                @Override
+                public void accept(String result, Throwable failure) {
+                    latencies[request] = System.nanoTime() - sent;
+                }
+            }));
+        }
+        for (int i = 0; i < requests; i++) {
+            assertEquals("Processed: " + i, responses.get(i).get(60, TimeUnit.SECONDS));
+        }
+
+        return summarize(latencies, System.nanoTime() - start);
+    }
+
+    private static long[] summarize(long[] latencies, long elapsed) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        long p99 = sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.99) - 1)];
+
+        return new long[] { latencies.length * 1000000000L / Math.max(elapsed, 1), TimeUnit.NANOSECONDS.toMillis(p99) };
+    }
 }
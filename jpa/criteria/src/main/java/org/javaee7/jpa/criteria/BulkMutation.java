@@ -0,0 +1,197 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.jpa.criteria;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.SingularAttribute;
+
+/**
+ * Describes a bulk +CriteriaUpdate+ or +CriteriaDelete+ in terms of the static metamodel, so that +BulkMutationBean+
+ * can run it in chunks of +chunkSize+ matching rows, each chunk restricted to a range of ids and committed in its own
+ * transaction.
+ *
+ * @param <T> the entity type
+ * @param <K> the type of the id the chunks are ranged on
+ */
+public class BulkMutation<T, K extends Comparable<? super K>> {
+
+    /**
+     * Notified after each chunk has been committed.
+     */
+    public interface Listener {
+
+        void chunkCompleted(BulkProgress progress);
+    }
+
+    private final Class<T> entityClass;
+    private final SingularAttribute<? super T, K> id;
+    private final boolean delete;
+
+    private final List<Assignment<T, ?>> assignments = new ArrayList<>();
+    private final List<Assignment<T, ?>> restrictions = new ArrayList<>();
+    private int chunkSize = 1000;
+    private int rowsPerSecond;
+    private Listener listener;
+
+    private BulkMutation(Class<T> entityClass, SingularAttribute<? super T, K> id, boolean delete) {
+        this.entityClass = entityClass;
+        this.id = id;
+        this.delete = delete;
+    }
+
+    public static <T, K extends Comparable<? super K>> BulkMutation<T, K> update(Class<T> entityClass,
+        SingularAttribute<? super T, K> id) {
+        return new BulkMutation<>(entityClass, id, false);
+    }
+
+    public static <T, K extends Comparable<? super K>> BulkMutation<T, K> delete(Class<T> entityClass,
+        SingularAttribute<? super T, K> id) {
+        return new BulkMutation<>(entityClass, id, true);
+    }
+
+    public <Y> BulkMutation<T, K> set(SingularAttribute<? super T, Y> attribute, Y value) {
+        if (delete) {
+            throw new IllegalStateException("A delete has no assignments");
+        }
+        assignments.add(new Assignment<T, Y>(attribute, value));
+        return this;
+    }
+
+    public <Y> BulkMutation<T, K> whereEqual(SingularAttribute<? super T, Y> attribute, Y value) {
+        restrictions.add(new Assignment<T, Y>(attribute, value));
+        return this;
+    }
+
+    public BulkMutation<T, K> chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Limits the mutation to about +rowsPerSecond+ rows per second by pausing between chunks; +0+, the default, runs
+     * the chunks back to back.
+     */
+    public BulkMutation<T, K> rowsPerSecond(int rowsPerSecond) {
+        this.rowsPerSecond = Math.max(0, rowsPerSecond);
+        return this;
+    }
+
+    public BulkMutation<T, K> listener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    public SingularAttribute<? super T, K> getId() {
+        return id;
+    }
+
+    public boolean isDelete() {
+        return delete;
+    }
+
+    boolean hasAssignments() {
+        return !assignments.isEmpty();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public Listener getListener() {
+        return listener;
+    }
+
+    /**
+     * The restrictions of this mutation, limited to the rows with an id greater than +after+ (unless +null+) and at
+     * most +upTo+ (unless +null+).
+     */
+    Predicate where(CriteriaBuilder builder, Root<T> root, K after, K upTo) {
+        List<Predicate> predicates = new ArrayList<>();
+        Path<K> idPath = root.get(id);
+        if (after != null) {
+            predicates.add(builder.greaterThan(idPath, after));
+        }
+        if (upTo != null) {
+            predicates.add(builder.lessThanOrEqualTo(idPath, upTo));
+        }
+        for (Assignment<T, ?> restriction : restrictions) {
+            predicates.add(builder.equal(root.get(restriction.attribute), restriction.value));
+        }
+        return builder.and(predicates.toArray(new Predicate[predicates.size()]));
+    }
+
+    void applyTo(CriteriaUpdate<T> update, Root<T> root) {
+        for (Assignment<T, ?> assignment : assignments) {
+            assignment.applyTo(update, root);
+        }
+    }
+
+    private static final class Assignment<T, Y> {
+
+        private final SingularAttribute<? super T, Y> attribute;
+        private final Y value;
+
+        Assignment(SingularAttribute<? super T, Y> attribute, Y value) {
+            this.attribute = attribute;
+            this.value = value;
+        }
+
+        void applyTo(CriteriaUpdate<T> update, Root<T> root) {
+            update.set(root.get(attribute), value);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.jpa.criteria;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+import static javax.ejb.TransactionAttributeType.REQUIRES_NEW;
+
+import java.util.List;
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+
+/**
+ * Runs a +BulkMutation+ as a sequence of short transactions instead of one statement over the whole table, so that no
+ * transaction holds its locks or undo for longer than one chunk takes.
+ * <p/>
+ * Each chunk first selects the ids of the next +chunkSize+ matching rows, then runs the +CriteriaUpdate+ or
+ * +CriteriaDelete+ restricted to that id range. Once the chunk has committed, exactly those ids are evicted from the
+ * second-level cache, leaving the other cached entities in place.
+ */
+@Stateless
+public class BulkMutationBean {
+    @PersistenceContext
+    private EntityManager em;
+
+    @Resource
+    private SessionContext context;
+
+    @TransactionAttribute(NOT_SUPPORTED)
+    public <T, K extends Comparable<? super K>> BulkProgress execute(BulkMutation<T, K> mutation) {
+        if (!mutation.isDelete() && !mutation.hasAssignments()) {
+            throw new IllegalStateException("An update needs at least one set(...)");
+        }
+        BulkMutationBean self = context.getBusinessObject(BulkMutationBean.class);
+        Cache cache = em.getEntityManagerFactory().getCache();
+
+        long start = System.nanoTime();
+        BulkProgress progress = new BulkProgress(0, 0, null, 0);
+        K after = null;
+        while (true) {
+            List<K> ids = self.executeChunk(mutation, after);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            for (K id : ids) {
+                cache.evict(mutation.getEntityClass(), id);
+            }
+
+            after = ids.get(ids.size() - 1);
+            progress = new BulkProgress(progress.getChunks() + 1, progress.getRows() + ids.size(), after,
+                NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (mutation.getListener() != null) {
+                mutation.getListener().chunkCompleted(progress);
+            }
+
+            if (ids.size() < mutation.getChunkSize() || !throttle(mutation.getRowsPerSecond(), progress.getRows(), start)) {
+                break;
+            }
+        }
+
+        return new BulkProgress(progress.getChunks(), progress.getRows(), progress.getLastId(),
+            NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Mutates the next +chunkSize+ rows matching the mutation with an id greater than +after+.
+     *
+     * @return the ids of the mutated rows, in ascending order
+     */
+    @TransactionAttribute(REQUIRES_NEW)
+    public <T, K extends Comparable<? super K>> List<K> executeChunk(BulkMutation<T, K> mutation, K after) {
+        Class<T> entityClass = mutation.getEntityClass();
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+
+        CriteriaQuery<K> idCriteria = builder.createQuery(mutation.getId().getJavaType());
+        Root<T> idRoot = idCriteria.from(entityClass);
+        Path<K> idPath = idRoot.get(mutation.getId());
+        idCriteria.select(idPath)
+                  .where(mutation.where(builder, idRoot, after, null))
+                  .orderBy(builder.asc(idPath));
+        List<K> ids = em.createQuery(idCriteria).setMaxResults(mutation.getChunkSize()).getResultList();
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        K upTo = ids.get(ids.size() - 1);
+        if (mutation.isDelete()) {
+            CriteriaDelete<T> deleteCriteria = builder.createCriteriaDelete(entityClass);
+            Root<T> deleteRoot = deleteCriteria.from(entityClass);
+            deleteCriteria.where(mutation.where(builder, deleteRoot, after, upTo));
+            em.createQuery(deleteCriteria).executeUpdate();
+        } else {
+            CriteriaUpdate<T> updateCriteria = builder.createCriteriaUpdate(entityClass);
+            Root<T> updateRoot = updateCriteria.from(entityClass);
+            mutation.applyTo(updateCriteria, updateRoot);
+            updateCriteria.where(mutation.where(builder, updateRoot, after, upTo));
+            em.createQuery(updateCriteria).executeUpdate();
+        }
+
+        return ids;
+    }
+
+    /**
+     * Pauses until +rows+ rows since +start+ are within +rowsPerSecond+.
+     *
+     * @return +false+ if the thread was interrupted, in which case no further chunks should be run
+     */
+    private static boolean throttle(int rowsPerSecond, long rows, long start) {
+        if (rowsPerSecond <= 0) {
+            return true;
+        }
+
+        long aheadNanos = rows * 1000000000L / rowsPerSecond - (System.nanoTime() - start);
+        if (aheadNanos > 0) {
+            try {
+                MILLISECONDS.sleep(NANOSECONDS.toMillis(aheadNanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.jpa.criteria;
+
+import java.io.Serializable;
+
+/**
+ * Where a +BulkMutation+ stands after a chunk: how many chunks and rows have been committed so far, the id of the last
+ * row mutated and the time spent, including the pauses made to honour the target rate.
+ */
+public class BulkProgress implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int chunks;
+    private final long rows;
+    private final Object lastId;
+    private final long elapsedMillis;
+
+    public BulkProgress(int chunks, long rows, Object lastId, long elapsedMillis) {
+        this.chunks = chunks;
+        this.rows = rows;
+        this.lastId = lastId;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public Object getLastId() {
+        return lastId;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows : rows * 1000 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return chunks + " chunks, " + rows + " rows up to id " + lastId + " in " + elapsedMillis + " ms ("
+            + getRowsPerSecond() + " rows/s)";
+    }
+}
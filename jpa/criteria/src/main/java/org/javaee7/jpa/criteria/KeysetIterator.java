@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.jpa.criteria;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over all rows of a query in key order by fetching one page at a time with a keyset (seek) predicate, so
+ * that at most one page is held in memory however large the table is.
+ * <p/>
+ * Each page is requested with the key of the last row of the previous page instead of an offset, so fetching a page
+ * costs the same near the end of the table as it does at the start, and rows inserted or deleted meanwhile don't
+ * shift the remaining pages.
+ *
+ * @param <T> the type of the rows
+ * @param <K> the type of the key the rows are ordered by
+ */
+public class KeysetIterator<T, K> implements Iterator<T> {
+
+    /**
+     * Fetches the page of at most +maxResults+ rows that follow +after+ in key order, or the first page if +after+ is
+     * +null+.
+     */
+    public interface Pager<T, K> {
+
+        List<T> page(K after, int maxResults);
+
+        K keyOf(T row);
+    }
+
+    private final Pager<T, K> pager;
+    private final int pageSize;
+
+    private K after;
+    private Iterator<T> page = Collections.<T>emptyList().iterator();
+    private boolean lastPage;
+
+    public KeysetIterator(Pager<T, K> pager, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.pager = pager;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (lastPage) {
+                return false;
+            }
+
+            List<T> rows = pager.page(after, pageSize);
+            lastPage = rows.size() < pageSize;
+            if (rows.isEmpty()) {
+                return false;
+            }
+
+            after = pager.keyOf(rows.get(rows.size() - 1));
+            page = rows.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -39,8 +39,15 @@
  */
 package org.javaee7.jpa.criteria;
 
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+
+import java.util.Iterator;
 import java.util.List;
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
@@ -59,6 +66,9 @@ public class MovieBean {
     @PersistenceContext
     private EntityManager em;
 
+    @Resource
+    private SessionContext context;
+
     public List<Movie> listMovies() {
         CriteriaBuilder builder = em.getCriteriaBuilder();
         CriteriaQuery<Movie> listCriteria = builder.createQuery(Movie.class);
@@ -68,6 +78,50 @@ public class MovieBean {
         return query.getResultList();
     }
 
+    /**
+     * Lists at most +maxResults+ movies with an id greater than +afterId+, in id order, starting from the first movie
+     * if +afterId+ is +null+. Runs outside of any transaction, so the movies are returned detached and nothing is
+     * retained by the persistence context from one page to the next.
+     */
+    @TransactionAttribute(NOT_SUPPORTED)
+    public List<Movie> listMovies(Integer afterId, int maxResults) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Movie> pageCriteria = builder.createQuery(Movie.class);
+        Root<Movie> pageRoot = pageCriteria.from(Movie.class);
+        pageCriteria.select(pageRoot);
+        if (afterId != null) {
+            pageCriteria.where(builder.greaterThan(pageRoot.get(Movie_.id), afterId));
+        }
+        pageCriteria.orderBy(builder.asc(pageRoot.get(Movie_.id)));
+        return em.createQuery(pageCriteria)
+            .setMaxResults(maxResults)
+            .setHint("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS)
+            .getResultList();
+    }
+
+    /**
+     * Streams all movies in id order, fetching +pageSize+ of them at a time through +listMovies(Integer, int)+.
+     */
+    public Iterable<Movie> streamMovies(final int pageSize) {
+        final MovieBean self = context.getBusinessObject(MovieBean.class);
+        return new Iterable<Movie>() {
+            @Override
+            public Iterator<Movie> iterator() {
+                return new KeysetIterator<Movie, Integer>(new KeysetIterator.Pager<Movie, Integer>() {
+                    @Override
+                    public List<Movie> page(Integer after, int maxResults) {
+                        return self.listMovies(after, maxResults);
+                    }
+
+                    @Override
+                    public Integer keyOf(Movie movie) {
+                        return movie.getId();
+                    }
+                }, pageSize);
+            }
+        };
+    }
+
     public void updateMovie() {
         CriteriaBuilder builder = em.getCriteriaBuilder();
         CriteriaUpdate<Movie> updateCriteria = builder.createCriteriaUpdate(Movie.class);
@@ -0,0 +1,153 @@
+package org.javaee7.jpa.criteria;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.ejb.EJBException;
+import javax.inject.Inject;
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs the same kind of +CriteriaUpdate+ and +CriteriaDelete+ as +MovieBean+, but through +BulkMutationBean+, which
+ * splits them into chunks of matching rows, each committed in its own transaction:
+ *
+ * include::BulkMutationBean#executeChunk[]
+ */
+@RunWith(Arquillian.class)
+public class BulkMutationTest {
+
+    private static final int LOADED_MAX_ID = 4;
+    private static final int DOUBLINGS = 10;
+    private static final int CHUNK_SIZE = 100;
+
+    @Inject
+    private BulkMutationBean bulkMutationBean;
+
+    @Inject
+    private MovieTableFixture fixture;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Deployment
+    public static WebArchive createDeployment() {
+        return ShrinkWrap.create(WebArchive.class)
+            .addPackage("org.javaee7.jpa.criteria")
+            .addAsResource("META-INF/persistence.xml")
+            .addAsResource("META-INF/create.sql")
+            .addAsResource("META-INF/drop.sql")
+            .addAsResource("META-INF/load.sql");
+    }
+
+    @After
+    public void afterTest() {
+        fixture.shrinkTo(LOADED_MAX_ID);
+    }
+
+    @Test
+    public void testChunkedUpdate() {
+        for (int i = 0; i < DOUBLINGS; i++) {
+            fixture.doubleRows();
+        }
+        int matching = 1 << DOUBLINGS; // one in four movies is a copy of "Inception"
+
+        // Cache one movie that is about to change and one that is not
+        Cache cache = em.getEntityManagerFactory().getCache();
+        em.find(Movie.class, 3);
+        em.find(Movie.class, 2);
+
+        final List<BulkProgress> reported = new ArrayList<>();
+        BulkProgress progress = bulkMutationBean.execute(
+            BulkMutation.update(Movie.class, Movie_.id)
+                        .set(Movie_.name, "INCEPTION")
+                        .whereEqual(Movie_.name, "Inception")
+                        .chunkSize(CHUNK_SIZE)
+                        .rowsPerSecond(5000)
+                        .listener(new BulkMutation.Listener() {
+                            @Override
+                            public void chunkCompleted(BulkProgress progress) {
+                                reported.add(progress);
+                            }
+                        }));
+
+        assertEquals(matching, progress.getRows());
+        assertEquals((matching + CHUNK_SIZE - 1) / CHUNK_SIZE, progress.getChunks());
+        assertEquals(progress.getChunks(), reported.size());
+        for (int i = 1; i < reported.size(); i++) {
+            long chunkRows = reported.get(i).getRows() - reported.get(i - 1).getRows();
+            assertTrue(chunkRows > 0 && chunkRows <= CHUNK_SIZE);
+        }
+
+        // The chunks before the last one are paced to 5000 rows/s
+        assertTrue(progress.getElapsedMillis() >= (matching - matching % CHUNK_SIZE) * 1000L / 5000);
+
+        boolean changedStillCached = cache.contains(Movie.class, 3);
+        boolean untouchedStillCached = cache.contains(Movie.class, 2);
+
+        // Portable: whatever the provider cached, the changed movie reads back fresh
+        assertEquals("INCEPTION", em.find(Movie.class, 3).getName());
+        assertEquals(0, countByName("Inception"));
+        assertEquals(matching, countByName("INCEPTION"));
+
+        System.out.println("Chunked update: " + progress);
+
+        // Evicting single ids only shows when the provider doesn't already clear the whole region on bulk updates,
+        // as Hibernate does
+        assumeTrue(isEclipseLink());
+        assertFalse(changedStillCached);
+        assertTrue(untouchedStillCached);
+    }
+
+    @Test
+    public void testUpdateWithoutAssignmentsIsRejected() {
+        try {
+            bulkMutationBean.execute(BulkMutation.update(Movie.class, Movie_.id)
+                                                 .whereEqual(Movie_.name, "Inception"));
+            fail("An update without set(...) must be rejected");
+        } catch (EJBException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testChunkedDelete() {
+        for (int i = 0; i < DOUBLINGS; i++) {
+            fixture.doubleRows();
+        }
+        long rows = fixture.count();
+
+        BulkProgress progress = bulkMutationBean.execute(
+            BulkMutation.delete(Movie.class, Movie_.id)
+                        .whereEqual(Movie_.name, "The Matrix")
+                        .chunkSize(CHUNK_SIZE));
+
+        assertEquals(rows / 4, progress.getRows());
+        assertEquals(0, countByName("The Matrix"));
+        assertEquals(rows - rows / 4, fixture.count());
+        assertNull(em.find(Movie.class, 1));
+
+        System.out.println("Chunked delete: " + progress);
+    }
+
+    private boolean isEclipseLink() {
+        return em.getEntityManagerFactory().getClass().getName().startsWith("org.eclipse.persistence.");
+    }
+
+    private long countByName(String name) {
+        return em.createQuery("SELECT COUNT(m) FROM Movie m WHERE m.name = :name", Long.class)
+            .setParameter("name", name)
+            .getSingleResult();
+    }
+}
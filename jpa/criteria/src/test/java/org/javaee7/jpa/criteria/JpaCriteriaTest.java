@@ -8,6 +8,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -89,4 +90,31 @@ public class JpaCriteriaTest {
         assertEquals(3, movies.size()); // <7> Size of movies should be 3 now.
         assertFalse(movies.contains(new Movie(1))); // <8> Check if the movie "Matrix" is not on the list.
     }
+
+    /**
+     * Pages are fetched with a seek predicate on the id instead of an offset, and +streamMovies+ walks all of them
+     * while holding a single page. Both see the same movies as +listMovies+, in id order.
+     */
+    @Test
+    public void testKeysetPagination() {
+        List<Movie> all = movieBean.listMovies();
+
+        List<Movie> firstPage = movieBean.listMovies(null, 2);
+        assertEquals(Math.min(2, all.size()), firstPage.size());
+
+        List<Movie> secondPage = movieBean.listMovies(firstPage.get(firstPage.size() - 1).getId(), 2);
+        for (Movie movie : secondPage) {
+            assertTrue(movie.getId() > firstPage.get(firstPage.size() - 1).getId());
+        }
+
+        List<Movie> streamed = new ArrayList<>();
+        Integer previousId = null;
+        for (Movie movie : movieBean.streamMovies(3)) {
+            assertTrue(previousId == null || movie.getId() > previousId);
+            previousId = movie.getId();
+            streamed.add(movie);
+        }
+        assertEquals(all.size(), streamed.size());
+        assertTrue(streamed.containsAll(all));
+    }
 }
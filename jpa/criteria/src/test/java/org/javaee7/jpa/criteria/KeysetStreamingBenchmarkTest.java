@@ -0,0 +1,159 @@
+package org.javaee7.jpa.criteria;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the heap needed to walk the movie table with +streamMovies+, which holds a single page of movies at any
+ * time, against +listMovies+, which materializes all of them at once:
+ *
+ * include::MovieBean#listMovies(Integer, int)[]
+ *
+ * The heap used by streaming stays flat as the number of rows grows, while the heap retained by the full list grows
+ * with the table.
+ *
+ * The test runs in the container, so its settings are read on the client when the deployment is built and shipped
+ * in the archive. By default the table is grown to +DEFAULT_ROWS+ rows (override with +-Dkeyset.benchmark.rows+).
+ * The comparison over a million rows only runs with +-Dkeyset.benchmark.large=true+, and needs a server heap large
+ * enough to hold the full list.
+ */
+@RunWith(Arquillian.class)
+public class KeysetStreamingBenchmarkTest {
+
+    private static final String SETTINGS = "keyset-benchmark.properties";
+    private static final String DEFAULT_ROWS = "10000";
+    private static final long LARGE_ROWS = 1000000L;
+
+    private static final int LOADED_MAX_ID = 4;
+    private static final int PAGE_SIZE = 500;
+    private static final int SAMPLES = 10;
+
+    @Inject
+    private MovieBean movieBean;
+
+    @Inject
+    private MovieTableFixture fixture;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Deployment
+    public static WebArchive createDeployment() {
+        return ShrinkWrap.create(WebArchive.class)
+            .addPackage("org.javaee7.jpa.criteria")
+            .addAsResource("META-INF/persistence.xml")
+            .addAsResource("META-INF/create.sql")
+            .addAsResource("META-INF/drop.sql")
+            .addAsResource("META-INF/load.sql")
+            .addAsResource(new StringAsset(
+                "rows=" + System.getProperty("keyset.benchmark.rows", DEFAULT_ROWS) + "\n" +
+                "large=" + Boolean.getBoolean("keyset.benchmark.large") + "\n"), SETTINGS);
+    }
+
+    @Test
+    public void testStreamingVisitsEveryRow() throws IOException {
+        long rows = growTo(Long.parseLong(settings().getProperty("rows")));
+        try {
+            long[] streaming = stream();
+            long[] list = list();
+            assertEquals(rows, streaming[0]);
+            assertEquals(rows, list[0]);
+        } finally {
+            fixture.shrinkTo(LOADED_MAX_ID);
+        }
+    }
+
+    @Test
+    public void testStreamingKeepsHeapFlat() throws IOException {
+        assumeTrue(Boolean.parseBoolean(settings().getProperty("large")));
+
+        long rows = growTo(LARGE_ROWS);
+        try {
+            long[] streaming = stream();
+            long[] list = list();
+            assertEquals(rows, streaming[0]);
+            assertEquals(rows, list[0]);
+            assertTrue(streaming[1] < list[1]);
+        } finally {
+            fixture.shrinkTo(LOADED_MAX_ID);
+        }
+    }
+
+    /**
+     * @return the number of movies streamed and the peak heap above the baseline while streaming them
+     */
+    private long[] stream() {
+        long rows = fixture.count();
+        long sampleEvery = Math.max(rows / SAMPLES, 1);
+
+        long baseline = usedHeapAfterGc();
+        long peak = 0;
+        long streamed = 0;
+        long start = System.nanoTime();
+        for (Movie movie : movieBean.streamMovies(PAGE_SIZE)) {
+            if (++streamed % sampleEvery == 0) {
+                peak = Math.max(peak, usedHeapAfterGc() - baseline);
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        System.out.format("Streaming %d movies: %d ms, peak heap above baseline %d KB%n",
+            streamed, millis, peak / 1024);
+        return new long[] { streamed, peak };
+    }
+
+    /**
+     * @return the number of movies listed and the heap retained by the list
+     */
+    private long[] list() {
+        entityManagerFactory.getCache().evictAll();
+        long baseline = usedHeapAfterGc();
+        long start = System.nanoTime();
+        List<Movie> movies = movieBean.listMovies();
+        long millis = (System.nanoTime() - start) / 1000000;
+        long retained = usedHeapAfterGc() - baseline;
+
+        System.out.format("Listing %d movies: %d ms, retained heap %d KB%n",
+            movies.size(), millis, retained / 1024);
+        return new long[] { movies.size(), retained };
+    }
+
+    private long growTo(long targetRows) {
+        while (fixture.count() < targetRows) {
+            fixture.doubleRows();
+        }
+        return fixture.count();
+    }
+
+    private Properties settings() throws IOException {
+        Properties settings = new Properties();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(SETTINGS)) {
+            settings.load(in);
+        }
+        return settings;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,32 @@
+package org.javaee7.jpa.criteria;
+
+import javax.ejb.Stateless;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Grows +MOVIE_CRITERIA+ by copying the table onto itself, so that a table of a million rows takes a handful of
+ * statements instead of one insert per row.
+ */
+@Stateless
+public class MovieTableFixture {
+    @PersistenceContext
+    private EntityManager em;
+
+    public long count() {
+        return em.createQuery("SELECT COUNT(m) FROM Movie m", Long.class).getSingleResult();
+    }
+
+    public void doubleRows() {
+        int maxId = em.createQuery("SELECT MAX(m.id) FROM Movie m", Integer.class).getSingleResult();
+        em.createNativeQuery(
+            "INSERT INTO MOVIE_CRITERIA(\"ID\", \"NAME\", \"ACTORS\") " +
+            "SELECT \"ID\" + " + maxId + ", \"NAME\", \"ACTORS\" FROM MOVIE_CRITERIA")
+          .executeUpdate();
+    }
+
+    public void shrinkTo(int maxId) {
+        em.createNativeQuery("DELETE FROM MOVIE_CRITERIA WHERE \"ID\" > " + maxId).executeUpdate();
+        em.getEntityManagerFactory().getCache().evictAll();
+    }
+}
@@ -2,10 +2,14 @@ package org.javaee7.jpa.dynamicnamedquery.entity;
 
 import static javax.persistence.GenerationType.IDENTITY;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 
+import org.javaee7.jpa.dynamicnamedquery.service.QueryCacheInvalidator;
+
 /**
  * A very simple JPA entity that will be used for testing
  * 
@@ -13,6 +17,8 @@ import javax.persistence.Id;
  *
  */
 @Entity
+@Cacheable
+@EntityListeners(QueryCacheInvalidator.class)
 public class TestEntity {
 
     @Id
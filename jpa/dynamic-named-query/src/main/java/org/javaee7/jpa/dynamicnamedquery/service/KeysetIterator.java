@@ -0,0 +1,78 @@
+package org.javaee7.jpa.dynamicnamedquery.service;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over all rows of a query in key order by fetching one page at a time with a keyset (seek) predicate, so
+ * that at most one page is held in memory however large the table is.
+ * <p/>
+ * Each page is requested with the key of the last row of the previous page instead of an offset, so fetching a page
+ * costs the same near the end of the table as it does at the start, and rows inserted or deleted meanwhile don't
+ * shift the remaining pages.
+ *
+ * @param <T> the type of the rows
+ * @param <K> the type of the key the rows are ordered by
+ */
+public class KeysetIterator<T, K> implements Iterator<T> {
+
+    /**
+     * Fetches the page of at most +maxResults+ rows that follow +after+ in key order, or the first page if +after+ is
+     * +null+.
+     */
+    public interface Pager<T, K> {
+
+        List<T> page(K after, int maxResults);
+
+        K keyOf(T row);
+    }
+
+    private final Pager<T, K> pager;
+    private final int pageSize;
+
+    private K after;
+    private Iterator<T> page = Collections.<T>emptyList().iterator();
+    private boolean lastPage;
+
+    public KeysetIterator(Pager<T, K> pager, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.pager = pager;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (lastPage) {
+                return false;
+            }
+
+            List<T> rows = pager.page(after, pageSize);
+            lastPage = rows.size() < pageSize;
+            if (rows.isEmpty()) {
+                return false;
+            }
+
+            after = pager.keyOf(rows.get(rows.size() - 1));
+            page = rows.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,264 @@
+package org.javaee7.jpa.dynamicnamedquery.service;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+import javax.enterprise.context.ApplicationScoped;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Caches the results of named queries, keyed by query name and parameters, next to the entities themselves which are
+ * kept in the persistence unit's shared cache.
+ * <p/>
+ * The cache holds at most +maxEntries+ results, evicting the least recently used one when full, and drops a result
+ * once it is older than +ttl+. Every result records the entity classes it was read from; a write to one of those
+ * classes, reported through +QueryCacheInvalidator+, drops the result immediately and again once the writing
+ * transaction has completed. A result read while an invalidation was in progress is not cached, so a load that raced
+ * with a write can't put stale data back.
+ * <p/>
+ * Bulk JPQL updates and deletes bypass entity listeners, so code running them has to call +invalidate+ itself.
+ */
+@ApplicationScoped
+public class QueryCache {
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile boolean enabled = true;
+    private volatile int maxEntries = Integer.getInteger("jpa.queryCache.maxEntries", 1000);
+    private volatile long ttlNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("jpa.queryCache.ttlMillis", 60000L));
+
+    @Resource
+    private TransactionSynchronizationRegistry registry;
+
+    public static Key key(String queryName, Object... parameters) {
+        return new Key(queryName, parameters);
+    }
+
+    /**
+     * The cached result for +key+, or +null+ if there is none, it has expired or the cache is disabled.
+     */
+    public Object get(Key key) {
+        if (!enabled) {
+            return null;
+        }
+
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt > 0) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Must be taken before running the query whose result is then passed to +put+.
+     */
+    public long stamp() {
+        return generation.get();
+    }
+
+    /**
+     * Caches +value+ as the result for +key+, unless an invalidation happened since +stamp+ was taken.
+     *
+     * @param readFrom the entity classes whose writes invalidate this result
+     */
+    public void put(Key key, Object value, long stamp, Class<?>... readFrom) {
+        if (!enabled || value == null) {
+            return;
+        }
+
+        synchronized (lock) {
+            if (generation.get() != stamp) {
+                return;
+            }
+
+            entries.put(key, new Entry(value, System.nanoTime() + ttlNanos, readFrom));
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Drops every result read from +entityClass+, now and, if a transaction is active, again once it has completed.
+     */
+    public void invalidate(final Class<?> entityClass) {
+        invalidateNow(entityClass);
+
+        if (registry != null && registry.getTransactionKey() != null) {
+            try {
+                registry.registerInterposedSynchronization(new Synchronization() {
+                    @Override
+                    public void beforeCompletion() {
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        invalidateNow(entityClass);
+                    }
+                });
+            } catch (IllegalStateException e) {
+                // The transaction is already completing, the invalidation above is all that can be done
+            }
+        }
+    }
+
+    private void invalidateNow(Class<?> entityClass) {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+                if (iterator.next().isReadFrom(entityClass)) {
+                    iterator.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getTtl(TimeUnit unit) {
+        return unit.convert(ttlNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void setTtl(long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    public int getSize() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCache{size=" + getSize() + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+            + ", expirations=" + expirations + ", invalidations=" + invalidations + '}';
+    }
+
+    public static final class Key {
+
+        private final String queryName;
+        private final Object[] parameters;
+
+        private Key(String queryName, Object[] parameters) {
+            this.queryName = queryName;
+            this.parameters = parameters.clone();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return queryName.equals(key.queryName) && Arrays.equals(parameters, key.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * queryName.hashCode() + Arrays.hashCode(parameters);
+        }
+
+        @Override
+        public String toString() {
+            return queryName + Arrays.toString(parameters);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long expiresAt;
+        private final Class<?>[] readFrom;
+
+        Entry(Object value, long expiresAt, Class<?>[] readFrom) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.readFrom = readFrom;
+        }
+
+        boolean isReadFrom(Class<?> entityClass) {
+            for (Class<?> type : readFrom) {
+                if (type.isAssignableFrom(entityClass)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.javaee7.jpa.dynamicnamedquery.service;
 
 import static org.javaee7.jpa.dynamicnamedquery.service.QueryRepository.Queries.TEST_ENTITY_GET_ALL;
+import static org.javaee7.jpa.dynamicnamedquery.service.QueryRepository.Queries.TEST_ENTITY_GET_AFTER_ID;
 import static org.javaee7.jpa.dynamicnamedquery.service.QueryRepository.Queries.TEST_ENTITY_GET_BY_VALUE;
 
 import javax.annotation.PostConstruct;
@@ -34,7 +35,8 @@ public class QueryRepository {
 
     public enum Queries {
         TEST_ENTITY_GET_ALL,
-        TEST_ENTITY_GET_BY_VALUE
+        TEST_ENTITY_GET_BY_VALUE,
+        TEST_ENTITY_GET_AFTER_ID
     }
 
     @PersistenceUnit
@@ -54,6 +56,7 @@ public class QueryRepository {
 
         entityManagerFactory.addNamedQuery(TEST_ENTITY_GET_ALL.name(), buildGetAll());
         entityManagerFactory.addNamedQuery(TEST_ENTITY_GET_BY_VALUE.name(), buildGetByValue());
+        entityManagerFactory.addNamedQuery(TEST_ENTITY_GET_AFTER_ID.name(), buildGetAfterId());
     }
 
     /**
@@ -97,4 +100,29 @@ public class QueryRepository {
         return entityManager.createQuery(criteriaQuery);
     }
 
+    /**
+     * Builds a criteria query equal to the JPQL
+     * 
+     * <code>SELECT _testEntity FROM TestEntity _testEntity WHERE _testEntity.id > :id ORDER BY _testEntity.id</code>
+     * 
+     * The maximum number of results is set by the caller on every execution, which makes this a keyset (seek) page
+     * query.
+     */
+    private TypedQuery<TestEntity> buildGetAfterId() {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<TestEntity> criteriaQuery = criteriaBuilder.createQuery(TestEntity.class);
+        Root<TestEntity> root = criteriaQuery.from(TestEntity.class);
+        ParameterExpression<Long> idParameter = criteriaBuilder.parameter(Long.class, TestEntity_.id.getName());
+
+        criteriaQuery.select(root)
+            .where(
+                criteriaBuilder.greaterThan(
+                    root.get(TestEntity_.id), idParameter)
+            )
+            .orderBy(criteriaBuilder.asc(root.get(TestEntity_.id)));
+
+        return entityManager.createQuery(criteriaQuery);
+    }
+
 }
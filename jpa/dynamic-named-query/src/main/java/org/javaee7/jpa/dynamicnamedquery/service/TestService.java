@@ -1,11 +1,21 @@
 package org.javaee7.jpa.dynamicnamedquery.service;
 
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+import static org.javaee7.jpa.dynamicnamedquery.service.QueryRepository.Queries.TEST_ENTITY_GET_AFTER_ID;
 import static org.javaee7.jpa.dynamicnamedquery.service.QueryRepository.Queries.TEST_ENTITY_GET_ALL;
 import static org.javaee7.jpa.dynamicnamedquery.service.QueryRepository.Queries.TEST_ENTITY_GET_BY_VALUE;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.inject.Inject;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -23,6 +33,12 @@ public class TestService {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Resource
+    private SessionContext context;
+
+    @Inject
+    private QueryCache queryCache;
+
     public void save(TestEntity testEntity) {
         entityManager.persist(testEntity);
     }
@@ -33,7 +49,15 @@ public class TestService {
      * @return a list of all instances of {@link TestEntity} that were persisted
      */
     public List<TestEntity> getAll() {
-        return entityManager.createNamedQuery(TEST_ENTITY_GET_ALL.name(), TestEntity.class).getResultList();
+        QueryCache.Key key = QueryCache.key(TEST_ENTITY_GET_ALL.name());
+        List<TestEntity> cached = fromCache(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long stamp = queryCache.stamp();
+        return toCache(key, stamp,
+            entityManager.createNamedQuery(TEST_ENTITY_GET_ALL.name(), TestEntity.class).getResultList());
     }
 
     /**
@@ -44,8 +68,91 @@ public class TestService {
      * @return list of {@link TestEntity} instances matching <code>value</code>
      */
     public List<TestEntity> getByValue(String value) {
-        return entityManager.createNamedQuery(TEST_ENTITY_GET_BY_VALUE.name(), TestEntity.class)
-            .setParameter(TestEntity_.value.getName(), value).getResultList();
+        QueryCache.Key key = QueryCache.key(TEST_ENTITY_GET_BY_VALUE.name(), value);
+        List<TestEntity> cached = fromCache(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long stamp = queryCache.stamp();
+        return toCache(key, stamp, entityManager.createNamedQuery(TEST_ENTITY_GET_BY_VALUE.name(), TestEntity.class)
+            .setParameter(TestEntity_.value.getName(), value).getResultList());
+    }
+
+    /**
+     * Gets a page of instances of {@link TestEntity}, ordered by id, that follow the instance with id
+     * <code>afterId</code>. The page is read outside of any transaction, so the instances are returned detached.
+     * 
+     * @param afterId the id of the last instance of the previous page, or <code>null</code> for the first page
+     * @param maxResults the maximum number of instances in the page
+     * @return at most <code>maxResults</code> instances of {@link TestEntity} with an id greater than <code>afterId</code>
+     */
+    @TransactionAttribute(NOT_SUPPORTED)
+    public List<TestEntity> getAll(Long afterId, int maxResults) {
+        return entityManager.createNamedQuery(TEST_ENTITY_GET_AFTER_ID.name(), TestEntity.class)
+            .setParameter(TestEntity_.id.getName(), afterId == null ? Long.MIN_VALUE : afterId)
+            .setMaxResults(maxResults)
+            .setHint("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS)
+            .getResultList();
+    }
+
+    /**
+     * Streams all instances of {@link TestEntity} in id order, holding at most one page of them in memory.
+     * 
+     * @param pageSize the number of instances fetched at a time through {@link #getAll(Long, int)}
+     * @return an {@link Iterable} over all instances of {@link TestEntity}
+     */
+    public Iterable<TestEntity> streamAll(final int pageSize) {
+        final TestService self = context.getBusinessObject(TestService.class);
+        return new Iterable<TestEntity>() {
+            @Override
+            public Iterator<TestEntity> iterator() {
+                return new KeysetIterator<TestEntity, Long>(new KeysetIterator.Pager<TestEntity, Long>() {
+                    @Override
+                    public List<TestEntity> page(Long after, int maxResults) {
+                        return self.getAll(after, maxResults);
+                    }
+
+                    @Override
+                    public Long keyOf(TestEntity testEntity) {
+                        return testEntity.getId();
+                    }
+                }, pageSize);
+            }
+        };
+    }
+
+    /**
+     * Resolves the ids cached for a query through the persistence context, which is backed by the shared cache.
+     * 
+     * @return the instances of {@link TestEntity} the query returned when cached, or <code>null</code> if the query
+     * has to be run
+     */
+    private List<TestEntity> fromCache(QueryCache.Key key) {
+        @SuppressWarnings("unchecked")
+        List<Long> ids = (List<Long>) queryCache.get(key);
+        if (ids == null) {
+            return null;
+        }
+
+        List<TestEntity> testEntities = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            TestEntity testEntity = entityManager.find(TestEntity.class, id);
+            if (testEntity == null) {
+                return null;
+            }
+            testEntities.add(testEntity);
+        }
+        return testEntities;
+    }
+
+    private List<TestEntity> toCache(QueryCache.Key key, long stamp, List<TestEntity> testEntities) {
+        List<Long> ids = new ArrayList<>(testEntities.size());
+        for (TestEntity testEntity : testEntities) {
+            ids.add(testEntity.getId());
+        }
+        queryCache.put(key, Collections.unmodifiableList(ids), stamp, TestEntity.class);
+        return testEntities;
     }
 
 }
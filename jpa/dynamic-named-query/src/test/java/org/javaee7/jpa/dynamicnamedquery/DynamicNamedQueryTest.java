@@ -1,9 +1,11 @@
 package org.javaee7.jpa.dynamicnamedquery;
 
 import static org.jboss.shrinkwrap.api.ShrinkWrap.create;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.List;
 
 import javax.inject.Inject;
 
@@ -54,6 +56,28 @@ public class DynamicNamedQueryTest {
         // The entity with "myValue" should be found
         // (this tests that a query with a parameter works as named query created by Criteria)
         assertTrue(testService.getByValue("myValue").size() == 1);
+
+        // Insert a few more entities
+        for (int i = 0; i < 4; i++) {
+            TestEntity otherEntity = new TestEntity();
+            otherEntity.setValue("otherValue" + i);
+            testService.save(otherEntity);
+        }
+
+        // Pages of at most 2 entities follow each other in id order
+        // (this tests a keyset query created by Criteria with the maximum results set per execution)
+        List<TestEntity> firstPage = testService.getAll(null, 2);
+        List<TestEntity> secondPage = testService.getAll(firstPage.get(1).getId(), 2);
+        assertEquals(2, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertTrue(secondPage.get(0).getId() > firstPage.get(1).getId());
+
+        // Streaming walks all the pages
+        int streamed = 0;
+        for (TestEntity entity : testService.streamAll(2)) {
+            streamed++;
+        }
+        assertEquals(5, streamed);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package org.javaee7.jpa.dynamicnamedquery;
+
+import static org.jboss.shrinkwrap.api.ShrinkWrap.create;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.inject.Inject;
+
+import org.javaee7.jpa.dynamicnamedquery.entity.TestEntity;
+import org.javaee7.jpa.dynamicnamedquery.service.QueryCache;
+import org.javaee7.jpa.dynamicnamedquery.service.TestService;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * The results of the dynamically created named queries are cached per parameter value, and saving a
+ * {@link TestEntity} invalidates them.
+ * 
+ * @see QueryCache
+ */
+@RunWith(Arquillian.class)
+public class QueryCacheTest {
+
+    private static final int ITERATIONS = 1000;
+
+    @Inject
+    private TestService testService;
+
+    @Inject
+    private QueryCache queryCache;
+
+    @Deployment
+    public static WebArchive createDeployment() {
+        return create(WebArchive.class)
+                  .addPackages(true, "org.javaee7.jpa.dynamicnamedquery")
+                  .addAsResource("META-INF/persistence.xml");
+    }
+
+    @Test
+    public void testNamedQueryResultsAreCachedAndInvalidated() {
+        save("cachedValue");
+
+        long hits = queryCache.getHits();
+        long misses = queryCache.getMisses();
+
+        // The first execution goes to the database, the next ones are served from the cache
+        for (int i = 0; i < 5; i++) {
+            assertEquals(1, testService.getByValue("cachedValue").size());
+        }
+        assertEquals(1, queryCache.getMisses() - misses);
+        assertEquals(4, queryCache.getHits() - hits);
+
+        // Saving another entity invalidates the cached results
+        long invalidations = queryCache.getInvalidations();
+        save("cachedValue");
+        assertTrue(queryCache.getInvalidations() > invalidations);
+        assertEquals(2, testService.getByValue("cachedValue").size());
+    }
+
+    /**
+     * Once a result is cached, repeating the named query by value is answered from the cache every time.
+     */
+    @Test
+    public void testRepeatedLookupsHitTheCache() {
+        for (int i = 0; i < 10; i++) {
+            save("repeatedValue");
+        }
+        queryCache.setEnabled(true);
+        testService.getByValue("repeatedValue");
+
+        long hits = queryCache.getHits();
+        long misses = queryCache.getMisses();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(10, testService.getByValue("repeatedValue").size());
+        }
+
+        assertEquals(hits + ITERATIONS, queryCache.getHits());
+        assertEquals(misses, queryCache.getMisses());
+    }
+
+    private void save(String value) {
+        TestEntity testEntity = new TestEntity();
+        testEntity.setValue(value);
+        testService.save(testEntity);
+    }
+}
@@ -0,0 +1,242 @@
+package org.javaee7.jpa.entitygraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+
+/**
+ * Records, for one query, which associations of the returned entities were already loaded when the query returned and
+ * which ones callers actually touched afterwards, and derives the +EntityGraph+ that should be used for the next
+ * executions of that query.
+ * <p/>
+ * Every +WINDOW+ executions the touch ratios of the window are turned into a new graph: associations touched on at
+ * least +INCLUDE_RATIO+ of the entities are fetched with the query, so touching them no longer causes one lazy load per
+ * entity. All the other associations are left out of the graph. An association that was loaded on nearly every entity
+ * without being asked for, but is rarely touched, is flagged as over-fetched; typically it is mapped +EAGER+.
+ * <p/>
+ * The statement count only covers what can be observed through the JPA API: one statement per execution plus one per
+ * lazy load triggered by a touch. Selects issued by the provider for eager associations while running the query are
+ * reported as unused loads instead.
+ */
+public class FetchProfile {
+
+    private static final Logger logger = Logger.getLogger(FetchProfile.class.getName());
+
+    static final int WINDOW = 16;
+    static final double INCLUDE_RATIO = 0.2;
+    static final double EAGER_RATIO = 0.9;
+
+    private final String queryName;
+    private final List<String> attributes;
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong entities = new AtomicLong();
+    private final AtomicLong lazyLoads = new AtomicLong();
+    private final AtomicLongArray touched;
+    private final AtomicLongArray loaded;
+    private final AtomicLongArray unusedLoads;
+
+    private final AtomicLong windowEntities = new AtomicLong();
+    private final AtomicLongArray windowTouched;
+    private final AtomicLongArray windowLoaded;
+
+    private volatile List<String> fetched;
+    private volatile List<String> overFetched = Collections.emptyList();
+
+    FetchProfile(String queryName, String... attributes) {
+        if (attributes.length > Integer.SIZE) {
+            throw new IllegalArgumentException("At most " + Integer.SIZE + " attributes can be profiled");
+        }
+        this.queryName = queryName;
+        this.attributes = Collections.unmodifiableList(Arrays.asList(attributes.clone()));
+        touched = new AtomicLongArray(attributes.length);
+        loaded = new AtomicLongArray(attributes.length);
+        unusedLoads = new AtomicLongArray(attributes.length);
+        windowTouched = new AtomicLongArray(attributes.length);
+        windowLoaded = new AtomicLongArray(attributes.length);
+    }
+
+    /**
+     * The graph to run the next execution with, or +null+ while the profile is still warming up and the query should
+     * run with its mapped defaults.
+     */
+    public <T> EntityGraph<T> graph(EntityManager entityManager, Class<T> entityClass) {
+        List<String> current = fetched;
+        if (current == null) {
+            return null;
+        }
+
+        EntityGraph<T> graph = entityManager.createEntityGraph(entityClass);
+        for (String attribute : current) {
+            graph.addAttributeNodes(attribute);
+        }
+        return graph;
+    }
+
+    /**
+     * Starts tracking an entity returned by the query. Must be called once the query has returned, so that eager
+     * associations are accounted as loaded.
+     */
+    Usage track(Object entity, PersistenceUnitUtil util) {
+        int mask = 0;
+        for (int i = 0; i < attributes.size(); i++) {
+            if (util.isLoaded(entity, attributes.get(i))) {
+                mask |= 1 << i;
+                loaded.incrementAndGet(i);
+                unusedLoads.incrementAndGet(i);
+                windowLoaded.incrementAndGet(i);
+            }
+        }
+        entities.incrementAndGet();
+        windowEntities.incrementAndGet();
+
+        return new Usage(this, mask);
+    }
+
+    void executed() {
+        if (executions.incrementAndGet() % WINDOW == 0) {
+            replan();
+        }
+    }
+
+    private void touched(int index, boolean wasLoaded) {
+        touched.incrementAndGet(index);
+        windowTouched.incrementAndGet(index);
+        if (wasLoaded) {
+            unusedLoads.decrementAndGet(index);
+        } else {
+            lazyLoads.incrementAndGet();
+        }
+    }
+
+    private synchronized void replan() {
+        long sampled = windowEntities.getAndSet(0);
+        if (sampled == 0) {
+            return;
+        }
+
+        List<String> include = new ArrayList<>();
+        List<String> over = new ArrayList<>();
+        for (int i = 0; i < attributes.size(); i++) {
+            double touchRatio = (double) windowTouched.getAndSet(i, 0) / sampled;
+            double loadRatio = (double) windowLoaded.getAndSet(i, 0) / sampled;
+
+            if (touchRatio >= INCLUDE_RATIO) {
+                include.add(attributes.get(i));
+            } else if (loadRatio >= EAGER_RATIO && (fetched == null || !fetched.contains(attributes.get(i)))) {
+                over.add(attributes.get(i));
+                if (!overFetched.contains(attributes.get(i))) {
+                    logger.warning(String.format(
+                        "%s: %s is loaded on %.0f%% of the entities but touched on %.0f%% of them, consider making it lazy",
+                        queryName, attributes.get(i), loadRatio * 100, touchRatio * 100));
+                }
+            }
+        }
+
+        fetched = Collections.unmodifiableList(include);
+        overFetched = Collections.unmodifiableList(over);
+    }
+
+    public String getQueryName() {
+        return queryName;
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public long getEntities() {
+        return entities.get();
+    }
+
+    public long getLazyLoads() {
+        return lazyLoads.get();
+    }
+
+    public long getStatements() {
+        return executions.get() + lazyLoads.get();
+    }
+
+    public long getTouched(String attribute) {
+        return touched.get(indexOf(attribute));
+    }
+
+    public long getUnusedLoads(String attribute) {
+        return unusedLoads.get(indexOf(attribute));
+    }
+
+    /**
+     * The associations the current graph fetches, or +null+ while no graph has been derived yet.
+     */
+    public List<String> getFetched() {
+        return fetched;
+    }
+
+    public List<String> getOverFetched() {
+        return overFetched;
+    }
+
+    private int indexOf(String attribute) {
+        int index = attributes.indexOf(attribute);
+        if (index < 0) {
+            throw new IllegalArgumentException(attribute + " is not profiled by " + queryName);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(queryName)
+            .append(": executions=").append(executions.get())
+            .append(", entities=").append(entities.get())
+            .append(", statements=").append(getStatements())
+            .append(", lazyLoads=").append(lazyLoads.get())
+            .append(", fetched=").append(fetched)
+            .append(", overFetched=").append(overFetched);
+        for (int i = 0; i < attributes.size(); i++) {
+            builder.append(", ").append(attributes.get(i))
+                   .append("[loaded=").append(loaded.get(i))
+                   .append(", touched=").append(touched.get(i))
+                   .append(", unused=").append(unusedLoads.get(i))
+                   .append(']');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * What one tracked entity had loaded when the query returned and which of its associations have been touched since.
+     * An entity is only ever used by one thread at a time, so this needs no synchronization of its own.
+     */
+    static final class Usage {
+
+        private final FetchProfile profile;
+        private final int loadedMask;
+        private int touchedMask;
+
+        private Usage(FetchProfile profile, int loadedMask) {
+            this.profile = profile;
+            this.loadedMask = loadedMask;
+        }
+
+        void touched(String attribute) {
+            int index = profile.attributes.indexOf(attribute);
+            if (index < 0) {
+                return;
+            }
+
+            int bit = 1 << index;
+            if ((touchedMask & bit) == 0) {
+                touchedMask |= bit;
+                profile.touched(index, (loadedMask & bit) != 0);
+            }
+        }
+    }
+}
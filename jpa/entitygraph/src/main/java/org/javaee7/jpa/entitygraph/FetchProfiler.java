@@ -0,0 +1,37 @@
+package org.javaee7.jpa.entitygraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Holds one +FetchProfile+ per profiled query.
+ */
+@ApplicationScoped
+public class FetchProfiler {
+
+    private final ConcurrentMap<String, FetchProfile> profiles = new ConcurrentHashMap<>();
+
+    public FetchProfile profile(String queryName, String... attributes) {
+        FetchProfile profile = profiles.get(queryName);
+        if (profile == null) {
+            FetchProfile created = new FetchProfile(queryName, attributes);
+            profile = profiles.putIfAbsent(queryName, created);
+            if (profile == null) {
+                profile = created;
+            }
+        }
+        return profile;
+    }
+
+    public List<FetchProfile> getProfiles() {
+        return new ArrayList<>(profiles.values());
+    }
+
+    public void reset() {
+        profiles.clear();
+    }
+}
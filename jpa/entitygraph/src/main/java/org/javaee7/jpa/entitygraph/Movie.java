@@ -79,6 +79,8 @@ import java.util.Set;
     )
 })
 public class Movie implements Serializable {
+    static final String[] ASSOCIATIONS = { "movieActors", "movieDirectors", "movieAwards" };
+
     @Id
     private Integer id;
 
@@ -98,14 +100,38 @@ public class Movie implements Serializable {
     @JoinColumn(name = "ID")
     private Set<MovieAward> movieAwards;
 
+    @Transient
+    private transient FetchProfile.Usage fetchUsage;
+
     public Integer getId() {
         return id;
     }
 
     public Set<MovieActor> getMovieActors() {
+        touched("movieActors");
         return movieActors;
     }
 
+    public Set<MovieDirector> getMovieDirectors() {
+        touched("movieDirectors");
+        return movieDirectors;
+    }
+
+    public Set<MovieAward> getMovieAwards() {
+        touched("movieAwards");
+        return movieAwards;
+    }
+
+    void trackFetches(FetchProfile.Usage usage) {
+        this.fetchUsage = usage;
+    }
+
+    private void touched(String association) {
+        if (fetchUsage != null) {
+            fetchUsage.touched(association);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -40,9 +40,12 @@
 package org.javaee7.jpa.entitygraph;
 
 import javax.ejb.Stateless;
+import javax.inject.Inject;
 import javax.persistence.EntityGraph;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.TypedQuery;
 import java.util.List;
 
 /**
@@ -54,6 +57,9 @@ public class MovieBean {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Inject
+    private FetchProfiler profiler;
+
     public List<Movie> listMovies() {
         return entityManager.createNamedQuery("Movie.findAll")
             .getResultList();
@@ -84,4 +90,37 @@ public class MovieBean {
             .setHint(hint, entityManager.getEntityGraph(graphName))
             .getResultList();
     }
+
+    /**
+     * Lists all movies with the graph derived from what callers of this method touched so far, instead of a graph
+     * passed by hand.
+     */
+    public List<Movie> listMoviesProfiled() {
+        return profiled("Movie.findAll", entityManager.createNamedQuery("Movie.findAll", Movie.class));
+    }
+
+    public List<Movie> listMoviesByIdsProfiled(List<Integer> movieIds) {
+        return profiled("Movie.findAllByIds",
+            entityManager.createNamedQuery("Movie.findAllByIds", Movie.class)
+                         .setParameter("movieIds", movieIds));
+    }
+
+    private List<Movie> profiled(String queryName, TypedQuery<Movie> query) {
+        FetchProfile profile = profiler.profile(queryName, Movie.ASSOCIATIONS);
+
+        EntityGraph<Movie> graph = profile.graph(entityManager, Movie.class);
+        if (graph != null) {
+            query.setHint("javax.persistence.fetchgraph", graph);
+        }
+
+        List<Movie> movies = query.getResultList();
+
+        PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (Movie movie : movies) {
+            movie.trackFetches(profile.track(movie, persistenceUnitUtil));
+        }
+        profile.executed();
+
+        return movies;
+    }
 }
@@ -0,0 +1,119 @@
+package org.javaee7.jpa.entitygraph;
+
+import static org.jboss.shrinkwrap.api.ShrinkWrap.create;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnitUtil;
+import javax.transaction.UserTransaction;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Instead of passing a graph by hand, +MovieBean.listMoviesProfiled+ lets a +FetchProfile+ learn which associations
+ * callers touch and fetch exactly those with the query:
+ *
+ * include::MovieBean#profiled[]
+ *
+ * Each list and the code touching the movies run in one transaction, so that lazy loads during the warm up work on
+ * every provider.
+ */
+@RunWith(Arquillian.class)
+public class FetchProfileTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Resource
+    private UserTransaction userTransaction;
+
+    @Inject
+    private MovieBean movieBean;
+
+    @Inject
+    private FetchProfiler profiler;
+
+    @Deployment
+    public static WebArchive createDeployment() {
+        return create(WebArchive.class)
+            .addPackage("org.javaee7.jpa.entitygraph")
+            .addAsResource("META-INF/persistence.xml")
+            .addAsResource("META-INF/create.sql")
+            .addAsResource("META-INF/drop.sql")
+            .addAsResource("META-INF/load.sql");
+    }
+
+    @Before
+    public void beforeTest() {
+        // Cached movies may come back with associations already loaded, which would blur what the queries fetched.
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+        profiler.reset();
+    }
+
+    @Test
+    public void testProfileFetchesTouchedAssociations() throws Exception {
+        FetchProfile profile = profiler.profile("Movie.findAll", Movie.ASSOCIATIONS);
+
+        // Warm up: no graph yet, every touched movieActors is a lazy load
+        for (int i = 0; i < FetchProfile.WINDOW; i++) {
+            assertNull(profile.getFetched());
+            listAndTouchActors();
+        }
+
+        assertTrue(profile.getFetched().contains("movieActors"));
+        assertFalse(profile.getFetched().contains("movieDirectors"));
+        assertFalse(profile.getFetched().contains("movieAwards"));
+        assertTrue(profile.getLazyLoads() > 0);
+
+        // movieDirectors is EAGER but never touched
+        assertTrue(profile.getOverFetched().contains("movieDirectors"));
+        assertEquals(profile.getEntities(), profile.getUnusedLoads("movieDirectors"));
+
+        // With the derived graph the same usage no longer causes lazy loads
+        long lazyLoads = profile.getLazyLoads();
+        long statements = profile.getStatements();
+
+        PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        userTransaction.begin();
+        try {
+            List<Movie> movies = movieBean.listMoviesProfiled();
+            assertFalse(movies.isEmpty());
+            for (Movie movie : movies) {
+                assertTrue(persistenceUnitUtil.isLoaded(movie, "movieActors"));
+                assertFalse(persistenceUnitUtil.isLoaded(movie, "movieAwards"));
+                movie.getMovieActors().size();
+            }
+        } finally {
+            userTransaction.commit();
+        }
+
+        assertEquals(lazyLoads, profile.getLazyLoads());
+        assertEquals(statements + 1, profile.getStatements());
+
+        System.out.println(profile);
+    }
+
+    private void listAndTouchActors() throws Exception {
+        userTransaction.begin();
+        try {
+            for (Movie movie : movieBean.listMoviesProfiled()) {
+                movie.getMovieActors().size();
+            }
+        } finally {
+            userTransaction.commit();
+        }
+    }
+}
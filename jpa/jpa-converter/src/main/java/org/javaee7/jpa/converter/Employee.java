@@ -16,7 +16,8 @@ import javax.persistence.Table;
 @Entity
 @Table(name = "EMPLOYEE_SCHEMA_CONVERTER")
 @NamedQueries({
-    @NamedQuery(name = "Employee.findAll", query = "SELECT e FROM Employee e")
+    @NamedQuery(name = "Employee.findAll", query = "SELECT e FROM Employee e"),
+    @NamedQuery(name = "Employee.findAllAfterId", query = "SELECT e FROM Employee e WHERE e.id > :afterId ORDER BY e.id")
 })
 public class Employee implements Serializable {
     
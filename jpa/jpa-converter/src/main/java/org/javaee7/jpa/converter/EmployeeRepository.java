@@ -1,7 +1,14 @@
 package org.javaee7.jpa.converter;
 
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+
+import java.util.Iterator;
 import java.util.List;
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -14,6 +21,9 @@ public class EmployeeRepository {
     @PersistenceContext
     private EntityManager em;
 
+    @Resource
+    private SessionContext context;
+
     public void persist(Employee e) {
         em.persist(e);
     }
@@ -21,4 +31,40 @@ public class EmployeeRepository {
     public List<Employee> all() {
         return em.createNamedQuery("Employee.findAll", Employee.class).getResultList();
     }
+
+    /**
+     * Returns at most +maxResults+ employees with an id greater than +afterId+, in id order, starting from the first
+     * employee if +afterId+ is +null+. Runs outside of any transaction, so the employees are returned detached.
+     */
+    @TransactionAttribute(NOT_SUPPORTED)
+    public List<Employee> all(Integer afterId, int maxResults) {
+        return em.createNamedQuery("Employee.findAllAfterId", Employee.class)
+            .setParameter("afterId", afterId == null ? Integer.MIN_VALUE : afterId)
+            .setMaxResults(maxResults)
+            .setHint("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS)
+            .getResultList();
+    }
+
+    /**
+     * Streams all employees in id order, fetching +pageSize+ of them at a time through +all(Integer, int)+.
+     */
+    public Iterable<Employee> streamEmployees(final int pageSize) {
+        final EmployeeRepository self = context.getBusinessObject(EmployeeRepository.class);
+        return new Iterable<Employee>() {
+            @Override
+            public Iterator<Employee> iterator() {
+                return new KeysetIterator<Employee, Integer>(new KeysetIterator.Pager<Employee, Integer>() {
+                    @Override
+                    public List<Employee> page(Integer after, int maxResults) {
+                        return self.all(after, maxResults);
+                    }
+
+                    @Override
+                    public Integer keyOf(Employee row) {
+                        return row.getId();
+                    }
+                }, pageSize);
+            }
+        };
+    }
 }
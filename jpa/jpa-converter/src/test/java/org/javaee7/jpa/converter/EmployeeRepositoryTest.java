@@ -4,8 +4,10 @@ import static java.util.Arrays.asList;
 import static org.jboss.shrinkwrap.api.ArchivePaths.create;
 import static org.jboss.shrinkwrap.api.ShrinkWrap.create;
 import static org.jboss.shrinkwrap.api.asset.EmptyAsset.INSTANCE;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -56,6 +58,29 @@ public class EmployeeRepositoryTest {
         }
     }
 
+    @Test
+    public void should_stream_all_employee_records_in_id_order() throws Exception {
+
+        // When
+        final List<Employee> firstPage = repository.all(null, 4);
+        final List<Employee> secondPage = repository.all(firstPage.get(firstPage.size() - 1).getId(), 4);
+
+        final List<Employee> streamedEmployees = new ArrayList<>();
+        for (Employee employee : repository.streamEmployees(4)) {
+            streamedEmployees.add(employee);
+        }
+
+        // Then
+        assertEquals(4, firstPage.size());
+        assertEquals(2, secondPage.size());
+
+        assertEquals(6, streamedEmployees.size());
+        for (int i = 1; i < streamedEmployees.size(); i++) {
+            assertTrue(streamedEmployees.get(i).getId() > streamedEmployees.get(i - 1).getId());
+        }
+        assertTrue(streamedEmployees.containsAll(repository.all()));
+    }
+
     // -- Test utility method
 
     private static Employee employee(String name, String creditCardNumber) {
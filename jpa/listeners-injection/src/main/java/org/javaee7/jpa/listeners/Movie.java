@@ -1,6 +1,7 @@
 package org.javaee7.jpa.listeners;
 
 import java.io.Serializable;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
 import javax.persistence.Id;
@@ -19,13 +20,16 @@ import javax.xml.bind.annotation.XmlRootElement;
 @Table(name = "MOVIE_LISTENER")
 @XmlRootElement
 @NamedQueries({
-    @NamedQuery(name = Movie.FIND_BY_NAME, query = "SELECT m FROM Movie m WHERE m.name = :name")
+    @NamedQuery(name = Movie.FIND_BY_NAME, query = "SELECT m FROM Movie m WHERE m.name = :name"),
+    @NamedQuery(name = Movie.FIND_ALL, query = "SELECT m FROM Movie m ORDER BY m.id")
 })
-@EntityListeners(MovieListener.class)
+@EntityListeners({MovieListener.class, QueryCacheInvalidator.class})
+@Cacheable
 public class Movie implements Serializable {
 
     private static final long serialVersionUID = 1L;
     public static final String FIND_BY_NAME = "Movie.findByName";
+    public static final String FIND_ALL = "Movie.findAll";
     @Id
     @NotNull
     private Integer id;
@@ -1,6 +1,10 @@
 package org.javaee7.jpa.listeners;
 
+import java.util.List;
+
+import javax.ejb.EJB;
 import javax.ejb.Stateless;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -12,10 +16,47 @@ public class MovieBean {
     @PersistenceContext
     private EntityManager em;
 
+    @EJB
+    private RatingEnricher enricher;
+
+    @Inject
+    private QueryCache queryCache;
+
+    /**
+     * Looks up a movie by name. The id the name resolves to is kept in the +QueryCache+, so repeated lookups become a
+     * +find+ that is served from the shared cache.
+     */
     public Movie getMovieByName(String name) {
-        return em.createNamedQuery(Movie.FIND_BY_NAME, Movie.class)
+        QueryCache.Key key = QueryCache.key(Movie.FIND_BY_NAME, name);
+        Integer id = (Integer) queryCache.get(key);
+        if (id != null) {
+            Movie movie = em.find(Movie.class, id);
+            if (movie != null) {
+                return movie;
+            }
+        }
+
+        long stamp = queryCache.stamp();
+        Movie movie = em.createNamedQuery(Movie.FIND_BY_NAME, Movie.class)
             .setParameter("name", name)
             .getSingleResult();
+        queryCache.put(key, movie.getId(), stamp, Movie.class);
+
+        return movie;
+    }
+
+    /**
+     * Lists all movies, rating them with one query per +RatingService.MAX_NAMES_PER_QUERY+ movies.
+     */
+    public List<Movie> listMovies() {
+        return enricher.list(em.createNamedQuery(Movie.FIND_ALL, Movie.class));
+    }
+
+    /**
+     * Lists all movies, letting +MovieListener+ rate each one with its own query.
+     */
+    public List<Movie> listMoviesOneByOne() {
+        return em.createNamedQuery(Movie.FIND_ALL, Movie.class).getResultList();
     }
 
 }
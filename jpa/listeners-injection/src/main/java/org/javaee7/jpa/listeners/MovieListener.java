@@ -11,8 +11,15 @@ public class MovieListener {
     @EJB
     RatingService service;
 
+    @EJB
+    RatingEnricher enricher;
+
     @PostLoad
     public void loadMovieRating(Movie movie) {
+        if (enricher.defer(movie)) {
+            return;
+        }
+
         Integer rating = service.movieRating(movie.getName());
         movie.setRating(rating);
     }
@@ -0,0 +1,22 @@
+package org.javaee7.jpa.listeners;
+
+import javax.inject.Inject;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Invalidates the cached query results read from an entity class whenever an entity of that class is written.
+ */
+public class QueryCacheInvalidator {
+
+    @Inject
+    QueryCache queryCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void entityWritten(Object entity) {
+        queryCache.invalidate(entity.getClass());
+    }
+}
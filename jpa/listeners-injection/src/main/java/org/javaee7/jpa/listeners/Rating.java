@@ -1,6 +1,8 @@
 package org.javaee7.jpa.listeners;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Id;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
@@ -14,13 +16,17 @@ import java.io.Serializable;
  */
 @Entity
 @Table(name = "MOVIE_RATINGS")
+@EntityListeners(QueryCacheInvalidator.class)
+@Cacheable
 @NamedQueries({
-    @NamedQuery(name = Rating.FIND_BY_NAME, query = "SELECT r FROM Rating r WHERE r.name = :name")
+    @NamedQuery(name = Rating.FIND_BY_NAME, query = "SELECT r FROM Rating r WHERE r.name = :name"),
+    @NamedQuery(name = Rating.FIND_BY_NAMES, query = "SELECT r FROM Rating r WHERE r.name IN :names")
 })
 public class Rating implements Serializable {
 
     private static final long serialVersionUID = 1L;
     public static final String FIND_BY_NAME = "Rating.findByName";
+    public static final String FIND_BY_NAMES = "Rating.findByNames";
 
     @Id
     @NotNull
@@ -0,0 +1,82 @@
+package org.javaee7.jpa.listeners;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Resource;
+import javax.ejb.EJB;
+import javax.ejb.Stateless;
+import javax.persistence.TypedQuery;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Resolves the ratings of all the movies loaded by a query at once, instead of one +Rating.FIND_BY_NAME+ query per
+ * +@PostLoad+.
+ *
+ * While +list+ runs, +MovieListener+ hands every loaded +Movie+ to +defer+, which parks it in a collection bound to the
+ * current transaction. Once the query has returned, the parked movies are rated from a single +IN+ list lookup. Movies
+ * loaded outside of +list+ (for example through +MovieBean.getMovieByName+) are not deferred and keep the per entity
+ * lookup.
+ */
+@Stateless
+public class RatingEnricher {
+
+    private static final Object PENDING_KEY = RatingEnricher.class.getName() + ".pending";
+
+    @Resource
+    private TransactionSynchronizationRegistry registry;
+
+    @EJB
+    private RatingService service;
+
+    public List<Movie> list(TypedQuery<Movie> query) {
+        Map<String, List<Movie>> pending = new HashMap<>();
+        registry.putResource(PENDING_KEY, pending);
+        try {
+            List<Movie> movies = query.getResultList();
+            resolve(pending);
+            return movies;
+        } finally {
+            registry.putResource(PENDING_KEY, null);
+        }
+    }
+
+    /**
+     * Parks the movie until the enclosing +list+ resolves its rating.
+     *
+     * @return +false+ if no +list+ is in progress in this transaction, in which case the caller has to rate the movie
+     * itself
+     */
+    @SuppressWarnings("unchecked")
+    public boolean defer(Movie movie) {
+        Map<String, List<Movie>> pending = (Map<String, List<Movie>>) registry.getResource(PENDING_KEY);
+        if (pending == null) {
+            return false;
+        }
+
+        List<Movie> sameName = pending.get(movie.getName());
+        if (sameName == null) {
+            sameName = new ArrayList<>(1);
+            pending.put(movie.getName(), sameName);
+        }
+        sameName.add(movie);
+
+        return true;
+    }
+
+    private void resolve(Map<String, List<Movie>> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> ratings = service.movieRatings(pending.keySet());
+        for (Map.Entry<String, List<Movie>> entry : pending.entrySet()) {
+            Integer rating = ratings.get(entry.getKey());
+            for (Movie movie : entry.getValue()) {
+                movie.setRating(rating);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.javaee7.jpa.listeners;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Counts the +MOVIE_RATINGS+ queries issued by +RatingService+, so the number of statements behind a listing can be
+ * observed without relying on provider specific profiling.
+ */
+@ApplicationScoped
+public class RatingQueryCounter {
+
+    private final AtomicLong queries = new AtomicLong();
+
+    public void increment() {
+        queries.incrementAndGet();
+    }
+
+    public long get() {
+        return queries.get();
+    }
+
+    public void reset() {
+        queries.set(0);
+    }
+}
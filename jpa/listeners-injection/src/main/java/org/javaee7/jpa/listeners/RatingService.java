@@ -1,6 +1,13 @@
 package org.javaee7.jpa.listeners;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.ejb.Stateless;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -10,14 +17,80 @@ import javax.persistence.PersistenceContext;
 
 @Stateless
 public class RatingService {
+
+    /**
+     * Upper bound on the number of names bound to a single +IN+ list; larger lookups are split into several queries
+     * to stay clear of database limits on the number of parameters.
+     */
+    static final int MAX_NAMES_PER_QUERY = 500;
+
     @PersistenceContext
     private EntityManager em;
 
+    @Inject
+    private RatingQueryCounter counter;
+
+    @Inject
+    private QueryCache queryCache;
+
     public Integer movieRating(String name) {
-        return em.createNamedQuery(Rating.FIND_BY_NAME, Rating.class)
+        QueryCache.Key key = QueryCache.key(Rating.FIND_BY_NAME, name);
+        Integer rating = (Integer) queryCache.get(key);
+        if (rating != null) {
+            return rating;
+        }
+
+        long stamp = queryCache.stamp();
+        counter.increment();
+        rating = em.createNamedQuery(Rating.FIND_BY_NAME, Rating.class)
             .setParameter("name", name)
             .getSingleResult()
             .getRating();
+        queryCache.put(key, rating, stamp, Rating.class);
+
+        return rating;
+    }
+
+    /**
+     * Looks up the ratings of all the given movies, taking the ones that are cached from the +QueryCache+ and the
+     * others with one +IN+ query per +MAX_NAMES_PER_QUERY+ names. Names without a rating are absent from the returned
+     * map.
+     */
+    public Map<String, Integer> movieRatings(Collection<String> names) {
+        Map<String, Integer> ratings = new HashMap<>(names.size() * 2);
+        List<String> remaining = new ArrayList<>(names.size());
+        for (String name : names) {
+            Integer rating = (Integer) queryCache.get(QueryCache.key(Rating.FIND_BY_NAME, name));
+            if (rating != null) {
+                ratings.put(name, rating);
+            } else {
+                remaining.add(name);
+            }
+        }
+
+        long stamp = queryCache.stamp();
+
+        for (int from = 0; from < remaining.size(); from += MAX_NAMES_PER_QUERY) {
+            List<String> chunk = remaining.subList(from, Math.min(from + MAX_NAMES_PER_QUERY, remaining.size()));
+
+            counter.increment();
+            for (Rating rating : em.createNamedQuery(Rating.FIND_BY_NAMES, Rating.class)
+                                   .setParameter("names", chunk)
+                                   .getResultList()) {
+                ratings.put(rating.getName(), rating.getRating());
+                queryCache.put(QueryCache.key(Rating.FIND_BY_NAME, rating.getName()), rating.getRating(), stamp,
+                    Rating.class);
+            }
+        }
+
+        return ratings;
+    }
+
+    public void updateRating(String name, Integer rating) {
+        em.createNamedQuery(Rating.FIND_BY_NAME, Rating.class)
+            .setParameter("name", name)
+            .getSingleResult()
+            .setRating(rating);
     }
 
 }
@@ -0,0 +1,129 @@
+package org.javaee7.jpa.listeners;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Listing movies through +MovieBean.listMovies+ rates them with one +IN+ list query per
+ * +RatingService.MAX_NAMES_PER_QUERY+ movies, where +MovieBean.listMoviesOneByOne+ lets +MovieListener+ issue one
+ * query per movie:
+ *
+ * include::RatingEnricher#list[]
+ */
+@RunWith(Arquillian.class)
+public class BatchedRatingEnrichmentTest {
+
+    private static final int LOADED_MOVIES = 4;
+    private static final int GENERATED_FIRST_ID = 1000;
+    private static final int GENERATED_MOVIES = 2000;
+    private static final int ITERATIONS = 10;
+
+    @Deployment
+    public static WebArchive deployment() {
+        return ShrinkWrap.create(WebArchive.class)
+                .addPackage("org.javaee7.jpa.listeners")
+                .addAsResource("META-INF/persistence.xml")
+                .addAsResource("META-INF/create.sql")
+                .addAsResource("META-INF/drop.sql")
+                .addAsResource("META-INF/load.sql");
+    }
+
+    @Inject
+    private MovieBean bean;
+
+    @Inject
+    private MovieFixture fixture;
+
+    @Inject
+    private RatingQueryCounter counter;
+
+    @Inject
+    private QueryCache queryCache;
+
+    @Before
+    public void disableQueryCache() {
+        // Cached ratings would hide the statements this test counts
+        queryCache.setEnabled(false);
+    }
+
+    @After
+    public void enableQueryCache() {
+        queryCache.setEnabled(true);
+    }
+
+    @Test
+    public void should_rate_all_listed_movies_with_a_single_query() {
+        counter.reset();
+        List<Movie> movies = bean.listMovies();
+
+        assertThat(movies.size(), is(LOADED_MOVIES));
+        assertThat(counter.get(), is(1L));
+        for (Movie movie : movies) {
+            assertThat(movie.getRating(), is(equalTo(movie.getId() * 10 + 50)));
+        }
+    }
+
+    @Test
+    public void should_rate_each_movie_with_its_own_query_when_not_batched() {
+        counter.reset();
+        List<Movie> movies = bean.listMoviesOneByOne();
+
+        assertThat(movies.size(), is(LOADED_MOVIES));
+        assertThat(counter.get(), is((long) LOADED_MOVIES));
+        for (Movie movie : movies) {
+            assertThat(movie.getRating(), is(equalTo(movie.getId() * 10 + 50)));
+        }
+    }
+
+    /**
+     * Compares the latency of listing a few thousand movies with the per entity listener and with batched enrichment.
+     */
+    @Test
+    public void should_list_faster_when_batched() {
+        fixture.addMovies(GENERATED_FIRST_ID, GENERATED_MOVIES);
+        try {
+            int total = LOADED_MOVIES + GENERATED_MOVIES;
+
+            // Warm up both paths before measuring
+            bean.listMoviesOneByOne();
+            bean.listMovies();
+
+            counter.reset();
+            long oneByOne = measure(false, total);
+            assertThat(counter.get(), is((long) total * ITERATIONS));
+
+            counter.reset();
+            long batched = measure(true, total);
+            int queriesPerList = (total + RatingService.MAX_NAMES_PER_QUERY - 1) / RatingService.MAX_NAMES_PER_QUERY;
+            assertThat(counter.get(), is((long) queriesPerList * ITERATIONS));
+
+            System.out.format("Listing %d movies, one query per movie: %d us%n", total, oneByOne);
+            System.out.format("Listing %d movies, batched:             %d us%n", total, batched);
+        } finally {
+            fixture.removeMovies(GENERATED_FIRST_ID);
+        }
+    }
+
+    private long measure(boolean batched, int expected) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<Movie> movies = batched ? bean.listMovies() : bean.listMoviesOneByOne();
+            assertThat(movies.size(), is(expected));
+        }
+        return (System.nanoTime() - start) / ITERATIONS / 1000;
+    }
+}
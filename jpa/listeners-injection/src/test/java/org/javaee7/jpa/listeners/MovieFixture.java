@@ -0,0 +1,40 @@
+package org.javaee7.jpa.listeners;
+
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Adds and removes generated movies, along with their ratings, on top of the ones from +load.sql+.
+ */
+@Stateless
+public class MovieFixture {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Inject
+    private QueryCache queryCache;
+
+    public void addMovies(int firstId, int count) {
+        for (int id = firstId; id < firstId + count; id++) {
+            em.persist(new Movie(id, "Movie " + id, "Actor " + id));
+
+            Rating rating = new Rating();
+            rating.setId(id);
+            rating.setName("Movie " + id);
+            rating.setRating(id % 100);
+            em.persist(rating);
+        }
+    }
+
+    public void removeMovies(int firstId) {
+        em.createQuery("DELETE FROM Movie m WHERE m.id >= :id").setParameter("id", firstId).executeUpdate();
+        em.createQuery("DELETE FROM Rating r WHERE r.id >= :id").setParameter("id", firstId).executeUpdate();
+
+        // Bulk deletes don't go through the entity listeners
+        queryCache.invalidate(Movie.class);
+        queryCache.invalidate(Rating.class);
+    }
+}
@@ -0,0 +1,154 @@
+package org.javaee7.jpa.listeners;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Repeated lookups by name are answered by the +QueryCache+ and the shared cache instead of the database, until a
+ * write to the entity invalidates them:
+ *
+ * include::QueryCache#invalidate[]
+ */
+@RunWith(Arquillian.class)
+public class QueryCacheTest {
+
+    private static final String[] NAMES = { "The Matrix", "The Lord of The Rings", "Inception", "The Shining" };
+    private static final int ITERATIONS = 1000;
+
+    @Deployment
+    public static WebArchive deployment() {
+        return ShrinkWrap.create(WebArchive.class)
+                .addPackage("org.javaee7.jpa.listeners")
+                .addAsResource("META-INF/persistence.xml")
+                .addAsResource("META-INF/create.sql")
+                .addAsResource("META-INF/drop.sql")
+                .addAsResource("META-INF/load.sql");
+    }
+
+    @Inject
+    private MovieBean bean;
+
+    @Inject
+    private RatingService ratingService;
+
+    @Inject
+    private RatingQueryCounter counter;
+
+    @Inject
+    private QueryCache queryCache;
+
+    private int maxEntries;
+    private long ttlMillis;
+
+    @Before
+    public void resetCache() {
+        maxEntries = queryCache.getMaxEntries();
+        ttlMillis = queryCache.getTtl(TimeUnit.MILLISECONDS);
+        queryCache.setEnabled(true);
+        queryCache.clear();
+    }
+
+    @After
+    public void restoreCache() {
+        queryCache.setMaxEntries(maxEntries);
+        queryCache.setTtl(ttlMillis, TimeUnit.MILLISECONDS);
+        queryCache.setEnabled(true);
+    }
+
+    @Test
+    public void should_answer_repeated_lookups_from_the_cache() {
+        long hits = queryCache.getHits();
+        counter.reset();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bean.getMovieByName("Inception").getRating(), is(equalTo(80)));
+        }
+
+        // One rating query for the first lookup, the movie and its rating are cached from then on
+        assertThat(counter.get(), is(1L));
+        assertTrue(queryCache.getHits() - hits >= 8);
+    }
+
+    @Test
+    public void should_invalidate_cached_ratings_when_a_rating_is_written() {
+        assertThat(bean.getMovieByName("The Shining").getRating(), is(equalTo(90)));
+
+        long invalidations = queryCache.getInvalidations();
+        ratingService.updateRating("The Shining", 95);
+        try {
+            assertTrue(queryCache.getInvalidations() > invalidations);
+            assertThat(bean.getMovieByName("The Shining").getRating(), is(equalTo(95)));
+        } finally {
+            ratingService.updateRating("The Shining", 90);
+        }
+        assertThat(ratingService.movieRating("The Shining"), is(equalTo(90)));
+    }
+
+    @Test
+    public void should_evict_least_recently_used_results_when_full() {
+        queryCache.setMaxEntries(2);
+        long evictions = queryCache.getEvictions();
+
+        for (String name : NAMES) {
+            ratingService.movieRating(name);
+        }
+
+        assertThat(queryCache.getSize(), is(2));
+        assertThat(queryCache.getEvictions() - evictions, is((long) NAMES.length - 2));
+    }
+
+    @Test
+    public void should_expire_results_after_their_ttl() throws InterruptedException {
+        queryCache.setTtl(50, TimeUnit.MILLISECONDS);
+        long expirations = queryCache.getExpirations();
+        counter.reset();
+
+        ratingService.movieRating("The Matrix");
+        Thread.sleep(100);
+        ratingService.movieRating("The Matrix");
+
+        assertThat(counter.get(), is(2L));
+        assertThat(queryCache.getExpirations() - expirations, is(1L));
+    }
+
+    /**
+     * Looking movies up by name, ratings included, runs one rating query per lookup with the query cache off, and
+     * none once the cache is on and warmed up.
+     */
+    @Test
+    public void should_not_query_ratings_with_the_cache_on() {
+        queryCache.setEnabled(false);
+        counter.reset();
+        lookUpAll(ITERATIONS);
+        assertThat(counter.get(), is((long) ITERATIONS * NAMES.length));
+
+        queryCache.setEnabled(true);
+        lookUpAll(1);
+        counter.reset();
+        lookUpAll(ITERATIONS);
+        assertThat(counter.get(), is(0L));
+    }
+
+    private void lookUpAll(int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            for (String name : NAMES) {
+                bean.getMovieByName(name);
+            }
+        }
+    }
+}
@@ -51,6 +51,7 @@ import java.io.Serializable;
 @Table(name = "MOVIE_OPTIMISTIC")
 @NamedQueries({
     @NamedQuery(name = "Movie.findAll", query = "SELECT m FROM Movie m"),
+    @NamedQuery(name = "Movie.findAllAfterId", query = "SELECT m FROM Movie m WHERE m.id > :afterId ORDER BY m.id"),
 })
 public class Movie implements Serializable {
     @Id
@@ -39,13 +39,18 @@
  */
 package org.javaee7.jpa.locking.optimistic;
 
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
 import static javax.ejb.TransactionAttributeType.REQUIRED;
 import static javax.persistence.LockModeType.OPTIMISTIC;
 
+import java.util.Iterator;
 import java.util.List;
 
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
 import javax.ejb.TransactionAttribute;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -58,10 +63,52 @@ public class MovieBean {
     @PersistenceContext
     private EntityManager em;
 
+    @Resource
+    private SessionContext context;
+
     public List<Movie> listMovies() {
         return em.createNamedQuery("Movie.findAll", Movie.class).getResultList();
     }
 
+    /**
+     * Lists at most +maxResults+ movies with an id greater than +afterId+, in id order, starting from the first movie
+     * if +afterId+ is +null+. The movies are read outside of any transaction and returned detached, with their
+     * current +version+, so they can still be passed to +updateMovie(Movie, String)+.
+     */
+    @TransactionAttribute(NOT_SUPPORTED)
+    public List<Movie> listMovies(Integer afterId, int maxResults) {
+        return em.createNamedQuery("Movie.findAllAfterId", Movie.class)
+            .setParameter("afterId", afterId == null ? Integer.MIN_VALUE : afterId)
+            .setMaxResults(maxResults)
+            .setHint("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS)
+            .getResultList();
+    }
+
+    /**
+     * Streams all movies in id order, fetching +pageSize+ of them at a time through +listMovies(Integer, int)+.
+     */
+    public Iterable<Movie> streamMovies(final int pageSize) {
+        // The view actually invoked: a subclass when an alternative, like the one of the tests, is enabled
+        Class<?> view = context.getInvokedBusinessInterface();
+        final MovieBean self = (MovieBean) context.getBusinessObject(view);
+        return new Iterable<Movie>() {
+            @Override
+            public Iterator<Movie> iterator() {
+                return new KeysetIterator<Movie, Integer>(new KeysetIterator.Pager<Movie, Integer>() {
+                    @Override
+                    public List<Movie> page(Integer after, int maxResults) {
+                        return self.listMovies(after, maxResults);
+                    }
+
+                    @Override
+                    public Integer keyOf(Movie row) {
+                        return row.getId();
+                    }
+                }, pageSize);
+            }
+        };
+    }
+
     public Movie findMovie(Integer id) {
         return em.find(Movie.class, id);
     }
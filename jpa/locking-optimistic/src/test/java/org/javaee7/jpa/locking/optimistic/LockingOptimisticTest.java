@@ -6,6 +6,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -165,6 +166,27 @@ public class LockingOptimisticTest {
         assertTrue(testCountDownLatch2.await(20, SECONDS));
     }
 
+    @Test
+    public void testKeysetPagination() throws Exception {
+
+        System.out.println("Enter testKeysetPagination");
+
+        List<Integer> ids = new ArrayList<>();
+        for (Movie movie : movieBean.listMovies()) {
+            ids.add(movie.getId());
+        }
+
+        List<Integer> streamedIds = new ArrayList<>();
+        for (Movie movie : movieBean.streamMovies(2)) {
+            assertTrue(streamedIds.isEmpty() || movie.getId() > streamedIds.get(streamedIds.size() - 1));
+            assertTrue(movie.getVersion() != null);
+            streamedIds.add(movie.getId());
+        }
+
+        assertEquals(ids.size(), streamedIds.size());
+        assertTrue(streamedIds.containsAll(ids));
+    }
+
     private void resetCountDownLatches() {
         MovieBeanAlternative.lockCountDownLatch = new CountDownLatch(1);
         MovieBeanAlternative.readCountDownLatch = new CountDownLatch(1);
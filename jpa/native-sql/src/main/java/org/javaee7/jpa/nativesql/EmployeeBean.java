@@ -39,8 +39,14 @@
  */
 package org.javaee7.jpa.nativesql;
 
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+
+import java.util.Iterator;
 import java.util.List;
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -52,8 +58,49 @@ public class EmployeeBean {
     @PersistenceContext
     private EntityManager em;
 
+    @Resource
+    private SessionContext context;
+
     @SuppressWarnings("unchecked")
     public List<Employee> get() {
         return em.createNativeQuery("select * from EMPLOYEE_NATIVE_SQL", Employee.class).getResultList();
     }
+
+    /**
+     * Returns at most +maxResults+ employees with an id greater than +afterId+, in id order, starting from the first
+     * employee if +afterId+ is +null+. The seek predicate on the primary key lets the database start reading right
+     * after the previous page instead of skipping over an offset. Runs outside of any transaction, so the employees
+     * are returned detached.
+     */
+    @SuppressWarnings("unchecked")
+    @TransactionAttribute(NOT_SUPPORTED)
+    public List<Employee> get(Integer afterId, int maxResults) {
+        return em.createNativeQuery("select * from EMPLOYEE_NATIVE_SQL where ID > ? order by ID", Employee.class)
+            .setParameter(1, afterId == null ? Integer.MIN_VALUE : afterId)
+            .setMaxResults(maxResults)
+            .getResultList();
+    }
+
+    /**
+     * Streams all employees in id order, fetching +pageSize+ of them at a time through +get(Integer, int)+.
+     */
+    public Iterable<Employee> stream(final int pageSize) {
+        final EmployeeBean self = context.getBusinessObject(EmployeeBean.class);
+        return new Iterable<Employee>() {
+            @Override
+            public Iterator<Employee> iterator() {
+                return new KeysetIterator<Employee, Integer>(new KeysetIterator.Pager<Employee, Integer>() {
+                    @Override
+                    public List<Employee> page(Integer after, int maxResults) {
+                        return self.get(after, maxResults);
+                    }
+
+                    @Override
+                    public Integer keyOf(Employee employee) {
+                        return employee.getId();
+                    }
+                }, pageSize);
+            }
+        };
+    }
 }
@@ -12,6 +12,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * In this sample we're going to query a simple +JPA Entity+, using the +JPA EntityManager Native Query+ and perform
@@ -67,4 +68,22 @@ public class JpaNativeSqlTest {
         assertFalse(employees.isEmpty());
         assertEquals(8, employees.size());
     }
+
+    /**
+     * Reads the same employees through +stream+, which fetches them three at a time with a native seek query on the
+     * primary key.
+     */
+    @Test
+    public void testNativeSqlKeysetPagination() {
+        assertEquals(3, employeeBean.get(null, 3).size());
+
+        int streamed = 0;
+        int previousId = Integer.MIN_VALUE;
+        for (Employee employee : employeeBean.stream(3)) {
+            assertTrue(employee.getId() > previousId);
+            previousId = employee.getId();
+            streamed++;
+        }
+        assertEquals(8, streamed);
+    }
 }
@@ -57,6 +57,7 @@ import javax.xml.bind.annotation.XmlRootElement;
 @Table(name = "MOVIE_STORED_PROCEDURE")
 @NamedQueries({
     @NamedQuery(name = "Movie.findAll", query = "SELECT m FROM Movie m"),
+    @NamedQuery(name = "Movie.findAllAfterId", query = "SELECT m FROM Movie m WHERE m.id > :afterId ORDER BY m.id"),
 })
 @NamedStoredProcedureQuery(name = "top10Movies", procedureName = "top10Movies")
 public class Movie implements Serializable {
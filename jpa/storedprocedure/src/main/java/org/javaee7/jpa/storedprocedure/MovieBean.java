@@ -1,10 +1,17 @@
 package org.javaee7.jpa.storedprocedure;
 
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Iterator;
 import java.util.List;
 
+import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
+
 /**
  * @author Roberto Cortez
  */
@@ -13,10 +20,49 @@ public class MovieBean {
     @PersistenceContext
     private EntityManager em;
 
+    @Resource
+    private SessionContext context;
+
     public List<Movie> listMovies() {
         return em.createNamedQuery("Movie.findAll", Movie.class).getResultList();
     }
 
+    /**
+     * Lists at most +maxResults+ movies with an id greater than +afterId+, in id order, starting from the first movie
+     * if +afterId+ is +null+. Runs outside of any transaction, so the movies are returned detached.
+     */
+    @TransactionAttribute(NOT_SUPPORTED)
+    public List<Movie> listMovies(Integer afterId, int maxResults) {
+        return em.createNamedQuery("Movie.findAllAfterId", Movie.class)
+            .setParameter("afterId", afterId == null ? Integer.MIN_VALUE : afterId)
+            .setMaxResults(maxResults)
+            .setHint("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS)
+            .getResultList();
+    }
+
+    /**
+     * Streams all movies in id order, fetching +pageSize+ of them at a time through +listMovies(Integer, int)+.
+     */
+    public Iterable<Movie> streamMovies(final int pageSize) {
+        final MovieBean self = context.getBusinessObject(MovieBean.class);
+        return new Iterable<Movie>() {
+            @Override
+            public Iterator<Movie> iterator() {
+                return new KeysetIterator<Movie, Integer>(new KeysetIterator.Pager<Movie, Integer>() {
+                    @Override
+                    public List<Movie> page(Integer after, int maxResults) {
+                        return self.listMovies(after, maxResults);
+                    }
+
+                    @Override
+                    public Integer keyOf(Movie row) {
+                        return row.getId();
+                    }
+                }, pageSize);
+            }
+        };
+    }
+
     public void executeStoredProcedure() {
         em.createNamedStoredProcedureQuery("top10Movies").execute();
     }
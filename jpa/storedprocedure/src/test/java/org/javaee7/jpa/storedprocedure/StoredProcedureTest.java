@@ -10,7 +10,9 @@ import org.junit.runner.RunWith;
 import javax.inject.Inject;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Roberto Cortez
@@ -39,4 +41,19 @@ public class StoredProcedureTest {
 
         //movieBean.executeStoredProcedure();
     }
+
+    @Test
+    public void testKeysetPagination() throws Exception {
+        List<Movie> movies = movieBean.listMovies();
+
+        int streamed = 0;
+        Integer previousId = null;
+        for (Movie movie : movieBean.streamMovies(2)) {
+            assertTrue(previousId == null || movie.getId() > previousId);
+            previousId = movie.getId();
+            streamed++;
+        }
+
+        assertEquals(movies.size(), streamed);
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.servlet.nonblocking;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Does the same as +TransferServlet+ with blocking I/O, for comparison: the container thread is held for as long as
+ * the client takes to send the request and read the response.
+ */
+@WebServlet(urlPatterns = { "/BlockingTransferServlet" })
+public class BlockingTransferServlet extends HttpServlet {
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException {
+        ThreadUsage.enter();
+        try {
+            if ("disk".equals(request.getParameter("target"))) {
+                File directory = (File) getServletContext().getAttribute(ServletContext.TEMPDIR);
+                Path file = Files.createTempFile(directory.toPath(), "upload", ".bin");
+                long bytes;
+                try (OutputStream output = Files.newOutputStream(file)) {
+                    bytes = copy(request.getInputStream(), output);
+                }
+                boolean discard = Boolean.parseBoolean(request.getParameter("discard"));
+                if (discard) {
+                    Files.delete(file);
+                }
+
+                response.setContentType("text/plain");
+                response.getWriter().println("Stored " + bytes + " bytes" + (discard ? "" : " in " + file));
+            } else {
+                response.setContentType(request.getContentType() != null ? request.getContentType() : "application/octet-stream");
+                copy(request.getInputStream(), response.getOutputStream());
+            }
+        } finally {
+            ThreadUsage.exit();
+        }
+    }
+
+    private static long copy(InputStream input, OutputStream output) throws IOException {
+        byte[] buffer = new byte[TransferServlet.BUFFER_SIZE];
+        long bytes = 0;
+        int length;
+        while ((length = input.read(buffer)) != -1) {
+            output.write(buffer, 0, length);
+            bytes += length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.servlet.nonblocking;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Stores the data in a file through an +AsynchronousFileChannel+, so that no container thread waits for the disk
+ * either. One write is in flight at a time; the sink is ready again when it completes.
+ */
+public class FileSink implements Transfer.Sink, CompletionHandler<Integer, byte[]> {
+
+    private static final Logger LOGGER = Logger.getLogger(FileSink.class.getName());
+
+    private final Transfer transfer;
+    private final HttpServletResponse response;
+    private final Path path;
+    private final boolean discard;
+    private final AsynchronousFileChannel channel;
+
+    private volatile boolean writing;
+    private ByteBuffer current;
+    private long position;
+
+    /**
+     * @param discard delete the file once the transfer is finished, when only the throughput is of interest
+     */
+    public FileSink(Transfer transfer, HttpServletResponse response, Path path, boolean discard) throws IOException {
+        this.transfer = transfer;
+        this.response = response;
+        this.path = path;
+        this.discard = discard;
+        this.channel = AsynchronousFileChannel.open(path, WRITE, CREATE, TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public boolean isReady() {
+        return !writing;
+    }
+
+    @Override
+    public void write(byte[] buffer, int length) {
+        writing = true;
+        current = ByteBuffer.wrap(buffer, 0, length);
+        channel.write(current, position, buffer, this);
+    }
+
+    @Override
+    public void completed(Integer written, byte[] buffer) {
+        position += written;
+        if (current.hasRemaining()) {
+            channel.write(current, position, buffer, this);
+            return;
+        }
+
+        transfer.release(buffer);
+        writing = false;
+        transfer.pump();
+    }
+
+    @Override
+    public void failed(Throwable t, byte[] buffer) {
+        transfer.release(buffer);
+        writing = false;
+        transfer.fail(t);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        channel.close();
+        if (discard) {
+            Files.deleteIfExists(path);
+        }
+
+        // No WriteListener is set on this response, so a plain blocking write is fine for a one line reply
+        response.setContentType("text/plain");
+        response.getWriter().println("Stored " + position + " bytes" + (discard ? "" : " in " + path));
+    }
+
+    @Override
+    public void abort() {
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not remove " + path, e);
+        }
+    }
+}
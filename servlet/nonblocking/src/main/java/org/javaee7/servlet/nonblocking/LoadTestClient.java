@@ -0,0 +1,206 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.servlet.nonblocking;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Uploads +megabytes+ (default 16) from each of +clients+ (default 16) concurrent clients to +TransferServlet+ and
+ * then to +BlockingTransferServlet+, and reports for both the throughput, the most container threads busy at the
+ * same time and the peak number of threads in the JVM.
+ *
+ * The +target+ parameter is passed on to the servlets, and defaults to +disk+ with the files discarded.
+ * +HttpURLConnection+ only reads the response once the whole request is sent, so with +target=echo+ keep
+ * +megabytes+ below what the socket buffers can hold, or the echo stalls waiting for the client to read.
+ *
+ * The clients run on the default +ManagedExecutorService+, so fewer than +clients+ of them upload at once if its pool
+ * is smaller.
+ */
+@WebServlet(urlPatterns = { "/LoadTestClient" })
+public class LoadTestClient extends HttpServlet {
+
+    private static final int MEGABYTE = 1024 * 1024;
+
+    @Resource
+    ManagedExecutorService executor;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException {
+        int clients = intParameter(request, "clients", 16);
+        int megabytes = intParameter(request, "megabytes", 16);
+        String target = request.getParameter("target") != null ? request.getParameter("target") : "disk";
+
+        String base = "http://"
+            + request.getServerName()
+            + ":"
+            + request.getServerPort()
+            + request.getContextPath();
+        String query = "?target=" + target + "&discard=true";
+
+        response.setContentType("text/html;charset=UTF-8");
+        try (PrintWriter out = response.getWriter()) {
+            out.println("<html>");
+            out.println("<head>");
+            out.println("<title>Non-blocking vs blocking transfer</title>");
+            out.println("</head>");
+            out.println("<body>");
+            out.println("<h1>Non-blocking vs blocking transfer</h1>");
+            out.println(clients + " clients sending " + megabytes + " MB each, target " + target + "<br><br>");
+            out.flush();
+
+            // Warm up both servlets before measuring
+            run(new URL(base + "/TransferServlet" + query), 2, 1);
+            run(new URL(base + "/BlockingTransferServlet" + query), 2, 1);
+
+            out.println(run(new URL(base + "/TransferServlet" + query), clients, megabytes).toString("Non-blocking") + "<br>");
+            out.flush();
+            out.println(run(new URL(base + "/BlockingTransferServlet" + query), clients, megabytes).toString("Blocking") + "<br>");
+
+            out.println("</body>");
+            out.println("</html>");
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new ServletException(ex);
+        }
+    }
+
+    private Result run(final URL url, int clients, final int megabytes) throws InterruptedException, ExecutionException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        // These are client tasks, the servlets run on the container's request threads
+        List<Future<Long>> uploads = new ArrayList<>();
+        try {
+            ThreadUsage.reset();
+            threads.resetPeakThreadCount();
+            long start = System.nanoTime();
+
+            for (int i = 0; i < clients; i++) {
+                uploads.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws IOException {
+                        return upload(url, megabytes);
+                    }
+                }));
+            }
+
+            long bytes = 0;
+            for (Future<Long> upload : uploads) {
+                bytes += upload.get();
+            }
+
+            return new Result(bytes, System.nanoTime() - start, ThreadUsage.getMaxBusy(), threads.getPeakThreadCount());
+        } finally {
+            // Stops the uploads still running if one of them failed
+            for (Future<Long> upload : uploads) {
+                upload.cancel(true);
+            }
+        }
+    }
+
+    private static long upload(URL url, int megabytes) throws IOException {
+        byte[] buffer = new byte[TransferServlet.BUFFER_SIZE];
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/octet-stream");
+        connection.setChunkedStreamingMode(buffer.length);
+        connection.setDoOutput(true);
+
+        long bytes = (long) megabytes * MEGABYTE;
+        try (OutputStream output = connection.getOutputStream()) {
+            for (long sent = 0; sent < bytes; sent += buffer.length) {
+                output.write(buffer, 0, (int) Math.min(buffer.length, bytes - sent));
+            }
+        }
+
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            throw new IOException(url + " returned " + connection.getResponseCode());
+        }
+        try (InputStream input = connection.getInputStream()) {
+            while (input.read(buffer) != -1) {
+                // drain the response
+            }
+        }
+        return bytes;
+    }
+
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static final class Result {
+
+        private final long bytes;
+        private final long nanos;
+        private final int maxBusyThreads;
+        private final int peakThreads;
+
+        Result(long bytes, long nanos, int maxBusyThreads, int peakThreads) {
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.maxBusyThreads = maxBusyThreads;
+            this.peakThreads = peakThreads;
+        }
+
+        String toString(String name) {
+            double seconds = nanos / 1e9;
+            return String.format("%s: %.1f MB/s, %d container threads busy at most, %d JVM threads at peak",
+                name, bytes / (double) MEGABYTE / seconds, maxBusyThreads, peakThreads);
+        }
+    }
+}
@@ -51,8 +51,11 @@ import javax.servlet.ServletInputStream;
  */
 public class MyReadListener implements ReadListener {
 
+    private static final Logger LOGGER = Logger.getLogger(MyReadListener.class.getName());
+
     private ServletInputStream input = null;
     private AsyncContext context = null;
+    private final byte[] buffer = new byte[1024];
 
     public MyReadListener(ServletInputStream in, AsyncContext ac) {
         this.input = in;
@@ -62,22 +65,21 @@ public class MyReadListener implements ReadListener {
     @Override
     public void onDataAvailable() {
         try {
-            StringBuilder sb = new StringBuilder();
             int len = -1;
-            byte b[] = new byte[1024];
             while (input.isReady()
-                && (len = input.read(b)) != -1) {
-                String data = new String(b, 0, len);
-                System.out.println("--> " + data);
+                && (len = input.read(buffer)) != -1) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "--> {0}", new String(buffer, 0, len));
+                }
             }
         } catch (IOException ex) {
-            Logger.getLogger(MyReadListener.class.getName()).log(Level.SEVERE, null, ex);
+            LOGGER.log(Level.SEVERE, null, ex);
         }
     }
 
     @Override
     public void onAllDataRead() {
-        System.out.println("onAllDataRead");
+        LOGGER.fine("onAllDataRead");
         context.complete();
     }
 
@@ -70,6 +70,7 @@ public class MyWriteListener implements WriteListener {
             } catch (IOException ex) {
                 Logger.getLogger(MyWriteListener.class.getName()).log(Level.SEVERE, null, ex);
             }
+            context.complete();
         }
     }
 
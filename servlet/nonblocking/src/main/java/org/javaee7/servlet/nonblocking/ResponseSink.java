@@ -0,0 +1,93 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.servlet.nonblocking;
+
+import java.io.IOException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+/**
+ * Sends the data back to the client. The container buffers whatever +write+ could not send right away, so the buffer
+ * is released as soon as +write+ returns, and +isReady()+ tells when the container can take more.
+ */
+public class ResponseSink implements Transfer.Sink, WriteListener {
+
+    private final Transfer transfer;
+    private final ServletOutputStream output;
+
+    public ResponseSink(Transfer transfer, ServletOutputStream output) {
+        this.transfer = transfer;
+        this.output = output;
+    }
+
+    @Override
+    public boolean isReady() {
+        return output.isReady();
+    }
+
+    @Override
+    public void write(byte[] buffer, int length) throws IOException {
+        try {
+            output.write(buffer, 0, length);
+        } finally {
+            transfer.release(buffer);
+        }
+    }
+
+    @Override
+    public void finish() {
+        // Completing the AsyncContext flushes what is left
+    }
+
+    @Override
+    public void abort() {
+    }
+
+    @Override
+    public void onWritePossible() {
+        transfer.pump();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        transfer.fail(t);
+    }
+}
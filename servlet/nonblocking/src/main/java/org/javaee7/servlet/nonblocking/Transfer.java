@@ -0,0 +1,221 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.servlet.nonblocking;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Streams the body of a request to a +Sink+ without blocking: data is read only while +isReady()+ says so, written
+ * only while the sink is ready, and the transfer simply returns and waits for the next callback otherwise.
+ *
+ * Buffers come from a +BufferPool+. At most +maxPendingBuffers+ filled buffers wait for the sink, after that reading
+ * stops until the sink catches up, so a slow sink slows down the client instead of filling up the memory.
+ *
+ * All the callbacks, from the container or from the sink, end up in +pump+. It is synchronized, because the read
+ * and write callbacks of the same request may run on different threads.
+ */
+public class Transfer implements ReadListener {
+
+    private static final Logger LOGGER = Logger.getLogger(Transfer.class.getName());
+
+    /**
+     * Where the data goes.
+     */
+    public interface Sink {
+
+        /**
+         * Whether +write+ may be called now. When it returns +false+, the sink calls +Transfer.pump+ once it is ready
+         * again.
+         */
+        boolean isReady();
+
+        /**
+         * Writes the first +length+ bytes of +buffer+, and gives the buffer back with +Transfer.release+ once done
+         * with it.
+         */
+        void write(byte[] buffer, int length) throws IOException;
+
+        /**
+         * Called once everything was written, before the +AsyncContext+ is completed.
+         */
+        void finish() throws IOException;
+
+        void abort();
+    }
+
+    private final ServletInputStream input;
+    private final AsyncContext context;
+    private final BufferPool pool;
+    private final int maxPendingBuffers;
+    private final Queue<Chunk> pending = new ArrayDeque<>();
+
+    private Sink sink;
+    private boolean inputFinished;
+    private boolean done;
+    private long bytes;
+
+    public Transfer(ServletInputStream input, AsyncContext context, BufferPool pool, int maxPendingBuffers) {
+        this.input = input;
+        this.context = context;
+        this.pool = pool;
+        this.maxPendingBuffers = maxPendingBuffers;
+    }
+
+    public synchronized void setSink(Sink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void onDataAvailable() {
+        pump();
+    }
+
+    @Override
+    public void onAllDataRead() {
+        synchronized (this) {
+            inputFinished = true;
+        }
+        pump();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail(t);
+    }
+
+    public synchronized void pump() {
+        if (done || sink == null) {
+            return;
+        }
+
+        ThreadUsage.enter();
+        try {
+            boolean progress;
+            do {
+                progress = false;
+
+                // Write first, so that buffers go back to the pool before new ones are needed
+                while (!pending.isEmpty() && sink.isReady()) {
+                    Chunk chunk = pending.poll();
+                    sink.write(chunk.buffer, chunk.length);
+                    progress = true;
+                }
+
+                if (!inputFinished && input.isFinished()) {
+                    inputFinished = true;
+                }
+
+                if (!inputFinished && pending.size() < maxPendingBuffers && input.isReady()) {
+                    byte[] buffer = pool.acquire();
+                    int length = input.read(buffer);
+                    if (length > 0) {
+                        pending.add(new Chunk(buffer, length));
+                        bytes += length;
+                        progress = true;
+                    } else {
+                        pool.release(buffer);
+                        inputFinished = length == -1;
+                    }
+                }
+            } while (progress);
+
+            if (inputFinished && pending.isEmpty() && sink.isReady()) {
+                done = true;
+                sink.finish();
+                context.complete();
+            }
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            ThreadUsage.exit();
+        }
+    }
+
+    public synchronized void fail(Throwable t) {
+        if (done) {
+            return;
+        }
+        done = true;
+
+        LOGGER.log(Level.SEVERE, "Transfer failed after " + bytes + " bytes", t);
+
+        Chunk chunk;
+        while ((chunk = pending.poll()) != null) {
+            pool.release(chunk.buffer);
+        }
+        if (sink != null) {
+            sink.abort();
+        }
+
+        HttpServletResponse response = (HttpServletResponse) context.getResponse();
+        if (!response.isCommitted()) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+        context.complete();
+    }
+
+    public void release(byte[] buffer) {
+        pool.release(buffer);
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private static final class Chunk {
+
+        private final byte[] buffer;
+        private final int length;
+
+        Chunk(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.servlet.nonblocking;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Streams the request body back to the client (+target=echo+, the default) or into a file in the temporary directory
+ * of the application (+target=disk+, add +discard=true+ to delete it afterwards) using non-blocking I/O.
+ *
+ * The container thread only sets up the +Transfer+ and returns; the data is moved by the read and write callbacks.
+ */
+@WebServlet(urlPatterns = { "/TransferServlet" }, asyncSupported = true)
+public class TransferServlet extends HttpServlet {
+
+    static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final int POOLED_BUFFERS = 256;
+    private static final int MAX_PENDING_BUFFERS = 4;
+
+    private final BufferPool pool = new BufferPool(POOLED_BUFFERS, BUFFER_SIZE);
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException {
+        ThreadUsage.enter();
+        try {
+            AsyncContext context = request.startAsync();
+            context.setTimeout(TimeUnit.MINUTES.toMillis(5));
+
+            ServletInputStream input = request.getInputStream();
+            Transfer transfer = new Transfer(input, context, pool, MAX_PENDING_BUFFERS);
+
+            if ("disk".equals(request.getParameter("target"))) {
+                File directory = (File) getServletContext().getAttribute(ServletContext.TEMPDIR);
+                Path file = Files.createTempFile(directory.toPath(), "upload", ".bin");
+                transfer.setSink(new FileSink(transfer, response, file, Boolean.parseBoolean(request.getParameter("discard"))));
+            } else {
+                response.setContentType(request.getContentType() != null ? request.getContentType() : "application/octet-stream");
+                ServletOutputStream output = response.getOutputStream();
+                ResponseSink sink = new ResponseSink(transfer, output);
+                transfer.setSink(sink);
+                output.setWriteListener(sink);
+            }
+
+            input.setReadListener(transfer);
+        } finally {
+            ThreadUsage.exit();
+        }
+    }
+}
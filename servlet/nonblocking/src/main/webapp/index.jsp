@@ -51,6 +51,7 @@
     <body>
         <h1>Non-blocking I/O using Servlet 3.1</h1>
         Invoke <a href="${pageContext.request.contextPath}/TestClient">non-blocking input client</a><br/>
-        Invoke <a href="${pageContext.request.contextPath}/TestClient">non-blocking output client</a>
+        Invoke <a href="${pageContext.request.contextPath}/TestClient">non-blocking output client</a><br/>
+        Compare <a href="${pageContext.request.contextPath}/LoadTestClient">non-blocking and blocking transfers</a>
     </body>
 </html>
@@ -0,0 +1,269 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.websocket.chat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.websocket.CloseReason;
+import javax.websocket.CloseReason.CloseCodes;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+/**
+ * Sends one message to every peer of a room without letting a slow peer hold up the others.
+ *
+ * The message is encoded by the caller once and the same payload is handed to every peer. Each peer has its own
+ * bounded queue, drained one message at a time through +getAsyncRemote()+, so +broadcast+ never blocks on the
+ * network. When a peer's queue is full, the peer is considered too slow: depending on the +OverflowPolicy+ the new
+ * message is dropped for that peer, or the peer is disconnected.
+ */
+public class Broadcaster {
+
+    private static final Logger LOGGER = Logger.getLogger(Broadcaster.class.getName());
+
+    public enum OverflowPolicy {
+        DROP, DISCONNECT
+    }
+
+    private final ConcurrentMap<Session, Peer> peers = new ConcurrentHashMap<>();
+    private final BroadcastStatistics statistics = new BroadcastStatistics();
+    private final int maxQueuedMessages;
+    private final OverflowPolicy overflowPolicy;
+
+    public Broadcaster(int maxQueuedMessages, OverflowPolicy overflowPolicy) {
+        this.maxQueuedMessages = maxQueuedMessages;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void join(Session session) {
+        peers.putIfAbsent(session, new Peer(session));
+    }
+
+    public void leave(Session session) {
+        Peer peer = peers.remove(session);
+        if (peer != null) {
+            peer.discard();
+        }
+    }
+
+    /**
+     * Sends +text+ to every peer except +sender+, which may be +null+ to include everybody.
+     */
+    public void broadcast(String text, Session sender) {
+        fanOut(new Outbound(text, null), sender);
+    }
+
+    /**
+     * Sends +data+ to every peer except +sender+. Each peer reads its own view of the buffer, so the content is
+     * shared but not copied.
+     */
+    public void broadcast(ByteBuffer data, Session sender) {
+        fanOut(new Outbound(null, data.slice()), sender);
+    }
+
+    public BroadcastStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Messages waiting to be sent, over all the peers.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Peer peer : peers.values()) {
+            depth += peer.queued.get();
+        }
+        return depth;
+    }
+
+    public int getPeerCount() {
+        return peers.size();
+    }
+
+    private void fanOut(Outbound message, Session sender) {
+        // Holds the count above zero until every peer got the message
+        message.remaining.set(1);
+
+        for (Peer peer : peers.values()) {
+            if (peer.session.equals(sender)) {
+                continue;
+            }
+            message.remaining.incrementAndGet();
+            peer.offer(message);
+        }
+
+        statistics.broadcast();
+        done(message);
+    }
+
+    private void done(Outbound message) {
+        if (message.remaining.decrementAndGet() == 0) {
+            statistics.fannedOut(System.nanoTime() - message.created);
+        }
+    }
+
+    private void overflow(Peer peer, Outbound message) {
+        done(message);
+
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            statistics.dropped();
+            return;
+        }
+
+        if (peers.remove(peer.session, peer)) {
+            statistics.disconnected();
+            peer.discard();
+            try {
+                peer.session.close(new CloseReason(CloseCodes.TRY_AGAIN_LATER, "Too slow to keep up"));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not close slow peer", e);
+            }
+        }
+    }
+
+    private static final class Outbound {
+
+        private final String text;
+        private final ByteBuffer data;
+        private final long created = System.nanoTime();
+        private final AtomicInteger remaining = new AtomicInteger();
+
+        Outbound(String text, ByteBuffer data) {
+            this.text = text;
+            this.data = data;
+        }
+
+        void sendTo(RemoteEndpoint.Async remote, SendHandler handler) {
+            if (text != null) {
+                remote.sendText(text, handler);
+            } else {
+                remote.sendBinary(data.duplicate(), handler);
+            }
+        }
+    }
+
+    private final class Peer implements SendHandler {
+
+        private final Session session;
+        private final Queue<Outbound> queue = new ConcurrentLinkedQueue<>();
+
+        // Queued messages including the one being sent
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile Outbound inFlight;
+
+        Peer(Session session) {
+            this.session = session;
+        }
+
+        void offer(Outbound message) {
+            int depth = queued.incrementAndGet();
+            if (depth > maxQueuedMessages) {
+                queued.decrementAndGet();
+                overflow(this, message);
+                return;
+            }
+            statistics.queueDepth(depth);
+            queue.add(message);
+            sendNext();
+        }
+
+        // Only one asynchronous send may be outstanding per session
+        void sendNext() {
+            while (sending.compareAndSet(false, true)) {
+                Outbound next = queue.poll();
+                if (next == null) {
+                    sending.set(false);
+                    // A message may have been queued after poll() and before the flag was cleared
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                inFlight = next;
+                try {
+                    next.sendTo(session.getAsyncRemote(), this);
+                } catch (RuntimeException e) {
+                    onResult(new SendResult(e));
+                }
+                return;
+            }
+        }
+
+        @Override
+        public void onResult(SendResult result) {
+            Outbound sent = inFlight;
+            inFlight = null;
+            queued.decrementAndGet();
+
+            if (result.isOK()) {
+                statistics.delivered(System.nanoTime() - sent.created);
+            } else {
+                statistics.failed();
+            }
+            done(sent);
+
+            sending.set(false);
+            sendNext();
+        }
+
+        // Releases the messages still waiting, so that their fan-out completes
+        void discard() {
+            Outbound message;
+            while ((message = queue.poll()) != null) {
+                queued.decrementAndGet();
+                statistics.failed();
+                done(message);
+            }
+        }
+    }
+}
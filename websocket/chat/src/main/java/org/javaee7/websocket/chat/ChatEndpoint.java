@@ -39,22 +39,45 @@
  */
 package org.javaee7.websocket.chat;
 
-import java.io.IOException;
-import javax.websocket.EncodeException;
+import javax.websocket.OnClose;
 import javax.websocket.OnMessage;
+import javax.websocket.OnOpen;
 import javax.websocket.Session;
 import javax.websocket.server.ServerEndpoint;
 
+import org.javaee7.websocket.chat.Broadcaster.OverflowPolicy;
+
 /**
+ * Each message is sent to everybody in the room, including the sender, through a +Broadcaster+: peers that fall
+ * more than +MAX_QUEUED_MESSAGES+ behind are disconnected rather than slowing the room down.
+ *
  * @author Arun Gupta
  */
 @ServerEndpoint("/chat")
 public class ChatEndpoint {
+
+    static final int MAX_QUEUED_MESSAGES = 256;
+
+    private static final Broadcaster broadcaster = new Broadcaster(MAX_QUEUED_MESSAGES, OverflowPolicy.DISCONNECT);
+
+    @OnOpen
+    public void onOpen(Session client) {
+        broadcaster.join(client);
+    }
+
+    @OnClose
+    public void onClose(Session client) {
+        broadcaster.leave(client);
+        System.out.println("broadcast statistics: " + broadcaster.getStatistics());
+    }
+
     @OnMessage
-    public void message(String message, Session client) throws IOException, EncodeException {
+    public void message(String message, Session client) {
         System.out.println("message: " + message);
-        for (Session peer : client.getOpenSessions()) {
-            peer.getBasicRemote().sendText(message);
-        }
+        broadcaster.broadcast(message, null);
+    }
+
+    public static Broadcaster broadcaster() {
+        return broadcaster;
     }
 }
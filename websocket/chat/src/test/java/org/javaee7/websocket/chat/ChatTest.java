@@ -3,10 +3,16 @@ package org.javaee7.websocket.chat;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import javax.websocket.ClientEndpointConfig;
 import javax.websocket.ContainerProvider;
 import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
 import javax.websocket.Session;
 import javax.websocket.WebSocketContainer;
 import org.jboss.arquillian.container.test.api.Deployment;
@@ -25,6 +31,9 @@ import org.junit.runner.RunWith;
 @RunWith(Arquillian.class)
 public class ChatTest {
 
+    private static final int PEERS = 50;
+    private static final int MESSAGES = 20;
+
     @ArquillianResource
     URI base;
 
@@ -32,8 +41,11 @@ public class ChatTest {
     public static WebArchive createDeployment() {
         return ShrinkWrap.create(WebArchive.class)
             .addClasses(ChatEndpoint.class,
+                Broadcaster.class,
+                BroadcastStatistics.class,
                 ChatClientEndpoint1.class,
-                ChatClientEndpoint2.class);
+                ChatClientEndpoint2.class,
+                CountingClient.class);
     }
 
     @Test
@@ -56,6 +68,40 @@ public class ChatTest {
         assertEquals(ChatClientEndpoint2.TEXT, ChatClientEndpoint2.response);
     }
 
+    /**
+     * Runs in the container, so that the statistics of the +Broadcaster+ behind the endpoint can be read. Every
+     * message sent by one peer reaches all the others, and none of them is slow enough to be dropped.
+     */
+    @Test
+    public void testBroadcastFanOut() throws Exception {
+        CountDownLatch received = new CountDownLatch(PEERS * MESSAGES);
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < PEERS; i++) {
+            sessions.add(container.connectToServer(new CountingClient(received),
+                ClientEndpointConfig.Builder.create().build(), chatUri()));
+        }
+
+        BroadcastStatistics statistics = ChatEndpoint.broadcaster().getStatistics();
+        long deliveredBefore = statistics.getDelivered();
+
+        for (int i = 0; i < MESSAGES; i++) {
+            sessions.get(0).getBasicRemote().sendText("message " + i);
+        }
+
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+        System.out.println("broadcast statistics: " + statistics);
+        System.out.println("queue depth: " + ChatEndpoint.broadcaster().getQueueDepth());
+
+        assertTrue(statistics.getDelivered() - deliveredBefore >= PEERS * MESSAGES);
+        assertEquals(0, statistics.getDisconnected());
+
+        for (Session session : sessions) {
+            session.close();
+        }
+    }
+
     public Session connectToServer(Class<?> endpoint) throws DeploymentException, IOException, URISyntaxException {
         WebSocketContainer container = ContainerProvider.getWebSocketContainer();
         URI uri = new URI("ws://"
@@ -66,4 +112,30 @@ public class ChatTest {
             + "chat");
         return container.connectToServer(endpoint, uri);
     }
+
+    private URI chatUri() throws URISyntaxException {
+        return new URI("ws://" + base.getHost() + ":" + base.getPort() + base.getPath() + "chat");
+    }
+
+    /**
+     * Counts down the latch for every message received.
+     */
+    public static class CountingClient extends Endpoint {
+
+        private final CountDownLatch received;
+
+        public CountingClient(CountDownLatch received) {
+            this.received = received;
+        }
+
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+            session.addMessageHandler(new MessageHandler.Whole<String>() {
+                @Override
+                public void onMessage(String message) {
+                    received.countDown();
+                }
+            });
+        }
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.javaee7.websocket.whiteboard;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a +Broadcaster+.
+ *
+ * Fan-out latency is the time from a +broadcast+ call until the message was sent to (or given up for) the last peer.
+ * Delivery latency is the same per peer, so it includes the time the message waited in the peer's queue.
+ */
+public class BroadcastStatistics {
+
+    private final AtomicLong broadcasts = new AtomicLong();
+    private final AtomicLong fanOuts = new AtomicLong();
+    private final AtomicLong fanOutNanos = new AtomicLong();
+    private final AtomicLong maxFanOutNanos = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong deliveryNanos = new AtomicLong();
+    private final AtomicLong maxDeliveryNanos = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+
+    void broadcast() {
+        broadcasts.incrementAndGet();
+    }
+
+    void fannedOut(long nanos) {
+        fanOuts.incrementAndGet();
+        fanOutNanos.addAndGet(nanos);
+        updateMax(maxFanOutNanos, nanos);
+    }
+
+    void delivered(long nanos) {
+        delivered.incrementAndGet();
+        deliveryNanos.addAndGet(nanos);
+        updateMax(maxDeliveryNanos, nanos);
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void dropped() {
+        dropped.incrementAndGet();
+    }
+
+    void disconnected() {
+        disconnected.incrementAndGet();
+    }
+
+    void queueDepth(int depth) {
+        updateMax(maxQueueDepth, depth);
+    }
+
+    public long getBroadcasts() {
+        return broadcasts.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getDisconnected() {
+        return disconnected.get();
+    }
+
+    /**
+     * The deepest any single peer's queue has been.
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public double getAverageFanOutMillis() {
+        return average(fanOutNanos, fanOuts);
+    }
+
+    public double getMaxFanOutMillis() {
+        return toMillis(maxFanOutNanos.get());
+    }
+
+    public double getAverageDeliveryMillis() {
+        return average(deliveryNanos, delivered);
+    }
+
+    public double getMaxDeliveryMillis() {
+        return toMillis(maxDeliveryNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "broadcasts=%d, delivered=%d, failed=%d, dropped=%d, disconnected=%d, maxQueueDepth=%d, "
+                + "fanOut avg/max=%.2f/%.2f ms, delivery avg/max=%.2f/%.2f ms",
+            getBroadcasts(), getDelivered(), getFailed(), getDropped(), getDisconnected(), getMaxQueueDepth(),
+            getAverageFanOutMillis(), getMaxFanOutMillis(), getAverageDeliveryMillis(), getMaxDeliveryMillis());
+    }
+
+    private static double average(AtomicLong totalNanos, AtomicLong count) {
+        long n = count.get();
+        return n == 0 ? 0 : toMillis(totalNanos.get()) / n;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+}
@@ -39,11 +39,7 @@
  */
 package org.javaee7.websocket.whiteboard;
 
-import java.io.IOException;
-import java.lang.invoke.MethodHandles;
 import java.nio.ByteBuffer;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -54,7 +50,12 @@ import javax.websocket.OnOpen;
 import javax.websocket.Session;
 import javax.websocket.server.ServerEndpoint;
 
+import org.javaee7.websocket.whiteboard.Broadcaster.OverflowPolicy;
+
 /**
+ * Figures and snapshots are passed on to the other peers through a +Broadcaster+. A figure is encoded once per
+ * broadcast, not once per peer, and a peer that falls behind misses figures instead of holding up the others.
+ *
  * @author Arun Gupta
  */
 @ServerEndpoint(value = "/websocket",
@@ -64,39 +65,36 @@ public class Whiteboard {
 
     private static final Logger LOGGER = Logger.getLogger(Whiteboard.class.getName());
 
-    private static final Object PRESENT = new Object();
+    private static final int MAX_QUEUED_MESSAGES = 256;
+
+    private static final Broadcaster broadcaster = new Broadcaster(MAX_QUEUED_MESSAGES, OverflowPolicy.DROP);
 
-    private static final ConcurrentMap<Session, Object> peers = new ConcurrentHashMap<>();
+    private final FigureEncoder encoder = new FigureEncoder();
 
     @OnOpen
     public void onOpen(Session peer) {
-        peers.put(peer, PRESENT);
+        broadcaster.join(peer);
     }
 
     @OnClose
     public void onClose(Session peer) {
-        peers.remove(peer);
+        broadcaster.leave(peer);
+        LOGGER.log(Level.INFO, "broadcast statistics: {0}", broadcaster.getStatistics());
     }
 
     @OnMessage
-    public void broadcastFigure(Figure figure, Session session) throws IOException, EncodeException {
+    public void broadcastFigure(Figure figure, Session session) throws EncodeException {
         LOGGER.log(Level.INFO, "boradcastFigure: {0}", figure);
-        for (Session peer : session.getOpenSessions()) {
-            //        for (Session peer : peers.keySet()) {
-            if (!peer.equals(session)) {
-                peer.getBasicRemote().sendObject(figure);
-            }
-        }
+        broadcaster.broadcast(encoder.encode(figure), session);
     }
 
     @OnMessage
-    public void broadcastSnapshot(ByteBuffer data, Session session) throws IOException {
+    public void broadcastSnapshot(ByteBuffer data, Session session) {
         LOGGER.log(Level.INFO, "broadcastBinary: {0}", data);
-        for (Session peer : session.getOpenSessions()) {
-            //        for (Session peer : peers.keySet()) {
-            if (!peer.equals(session)) {
-                peer.getBasicRemote().sendBinary(data);
-            }
-        }
+        broadcaster.broadcast(data, session);
+    }
+
+    public static Broadcaster broadcaster() {
+        return broadcaster;
     }
 }